@@ -0,0 +1,15 @@
+package rcs.auth.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.PropertySource;
+
+@SpringBootApplication
+// declared here rather than on a @Configuration so that the file is loaded before any @Conditional is evaluated
+@PropertySource("file:${app.properties}")
+public class ReactiveAuthApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(ReactiveAuthApplication.class, args);
+    }
+}
@@ -0,0 +1,29 @@
+package rcs.auth.reactive.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Map;
+
+@Configuration
+public class AuthConfig {
+
+    private static final String bcrypt = "bcrypt";
+
+    // set it to the blocking service's cost when both share a database
+    @Value("${auth.hashing.bcrypt.cost:10}")
+    private int bcryptCost;
+
+    @Bean
+    public PasswordEncoder encoder() {
+        BCryptPasswordEncoder bcryptEncoder = new BCryptPasswordEncoder(bcryptCost);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(bcrypt, Map.of(bcrypt, bcryptEncoder));
+        // hashes written before algorithm ids were stored
+        encoder.setDefaultPasswordEncoderForMatches(bcryptEncoder);
+        return encoder;
+    }
+}
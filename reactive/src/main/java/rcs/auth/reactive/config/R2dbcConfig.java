@@ -0,0 +1,19 @@
+package rcs.auth.reactive.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.DialectResolver;
+import org.springframework.r2dbc.core.DatabaseClient;
+import rcs.auth.reactive.repositories.UserAuthorityConverters;
+
+@Configuration
+public class R2dbcConfig {
+
+    @Bean
+    public R2dbcCustomConversions r2dbcCustomConversions(DatabaseClient databaseClient) {
+        return R2dbcCustomConversions.of(
+                DialectResolver.getDialect(databaseClient.getConnectionFactory()),
+                UserAuthorityConverters.all());
+    }
+}
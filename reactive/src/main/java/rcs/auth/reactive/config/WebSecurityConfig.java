@@ -0,0 +1,95 @@
+package rcs.auth.reactive.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UserDetailsRepositoryReactiveAuthenticationManager;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.ServerAuthenticationEntryPoint;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.authentication.logout.HttpStatusReturningServerLogoutSuccessHandler;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import rcs.auth.reactive.security.EndpointSecurity;
+import rcs.auth.reactive.security.LoadSheddingAuthenticationFailureHandler;
+import rcs.auth.reactive.services.PasswordHashingScheduler;
+import rcs.auth.reactive.services.ReactiveUserCredentialsService;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.RejectedExecutionException;
+
+@Configuration
+@EnableWebFluxSecurity
+public class WebSecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(
+            ServerHttpSecurity http,
+            ReactiveAuthenticationManager authenticationManager) {
+        ServerAuthenticationEntryPoint entryPoint = new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED);
+
+        return http.cors()
+                .and()
+                .csrf()
+                .disable()
+                .exceptionHandling()
+                .authenticationEntryPoint(entryPoint)
+                .and()
+                .authorizeExchange()
+
+                .pathMatchers(HttpMethod.GET, "/authenticate")
+                .authenticated()
+
+                .pathMatchers(HttpMethod.POST, "/register")
+                .permitAll()
+
+                .pathMatchers(HttpMethod.PUT, "/users/{username}/password")
+                .access(EndpointSecurity::canUpdatePassword)
+
+                .pathMatchers(HttpMethod.PUT, "/users/{username}/authority")
+                .hasAuthority("ADMIN")
+
+                .pathMatchers(HttpMethod.DELETE, "/users/{username}")
+                .hasAuthority("ADMIN")
+
+                .anyExchange()
+                .permitAll()
+
+                .and()
+                .formLogin()
+                .authenticationManager(authenticationManager)
+                // an explicit entry point leaves the login URL unset
+                .requiresAuthenticationMatcher(ServerWebExchangeMatchers.pathMatchers(HttpMethod.POST, "/login"))
+                .authenticationEntryPoint(entryPoint)
+                .authenticationSuccessHandler((exchange, authentication) -> Mono.empty()) // disables redirect
+                .authenticationFailureHandler(new LoadSheddingAuthenticationFailureHandler())
+                .and()
+                .logout()
+                .logoutSuccessHandler(new HttpStatusReturningServerLogoutSuccessHandler())
+                .and()
+                .build();
+    }
+
+    // the password is verified on the hashing scheduler, so that the event loop is never blocked by BCrypt
+    @Bean
+    public ReactiveAuthenticationManager authenticationManager(
+            ReactiveUserCredentialsService userCredentialsService,
+            PasswordEncoder encoder,
+            PasswordHashingScheduler hashingScheduler) {
+        UserDetailsRepositoryReactiveAuthenticationManager authenticationManager =
+                new UserDetailsRepositoryReactiveAuthenticationManager(userCredentialsService);
+        authenticationManager.setPasswordEncoder(encoder);
+        authenticationManager.setUserDetailsPasswordService(userCredentialsService);
+        authenticationManager.setScheduler(hashingScheduler.getScheduler());
+
+        return authentication -> authenticationManager.authenticate(authentication)
+                .onErrorMap(RejectedExecutionException.class, e -> new AuthenticationServiceException(
+                        e.getMessage(),
+                        hashingScheduler.rejected()));
+    }
+}
@@ -0,0 +1,87 @@
+package rcs.auth.reactive.controllers;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.web.bind.annotation.*;
+import rcs.auth.api.models.AuthenticatedUser;
+import rcs.auth.api.models.LoginCredentials;
+import rcs.auth.api.models.UpdateAuthorityRequest;
+import rcs.auth.api.models.UpdatePasswordRequest;
+import rcs.auth.reactive.exceptions.PasswordHashingRejectedException;
+import rcs.auth.reactive.services.ReactiveUserCredentialsService;
+import reactor.core.publisher.Mono;
+
+import java.util.stream.Collectors;
+
+@RestController
+public class ReactiveAuthController {
+
+    private final ReactiveUserCredentialsService userCredentialsService;
+
+    public ReactiveAuthController(ReactiveUserCredentialsService userCredentialsService) {
+        this.userCredentialsService = userCredentialsService;
+    }
+
+    @PostMapping(
+            path = "/register",
+            consumes = { MediaType.APPLICATION_FORM_URLENCODED_VALUE })
+    public Mono<ResponseEntity<Void>> createUser(LoginCredentials request) {
+        return userCredentialsService.save(request)
+                .thenReturn(ResponseEntity.ok()
+                        .build());
+    }
+
+    @GetMapping("/authenticate")
+    public ResponseEntity<AuthenticatedUser> getLoggedInUser(@AuthenticationPrincipal UserDetails user) {
+        if (user == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok()
+                .body(toAuthenticatedUser(user));
+    }
+
+    @PutMapping("/users/{username}/password")
+    public Mono<ResponseEntity<Void>> updatePassword(
+            @PathVariable String username,
+            @RequestBody UpdatePasswordRequest request) {
+        return userCredentialsService.updatePassword(username, request.getPassword())
+                .thenReturn(ResponseEntity.ok()
+                        .build());
+    }
+
+    @PutMapping("/users/{username}/authority")
+    public Mono<ResponseEntity<Void>> updateAuthority(
+            @PathVariable String username,
+            @RequestBody UpdateAuthorityRequest request) {
+        return userCredentialsService.updateAuthority(username, request.getAuthority())
+                .thenReturn(ResponseEntity.ok()
+                        .build());
+    }
+
+    @DeleteMapping("/users/{username}")
+    public Mono<ResponseEntity<Void>> deleteUser(@PathVariable String username) {
+        return userCredentialsService.delete(username)
+                .thenReturn(ResponseEntity.ok()
+                        .build());
+    }
+
+    private static AuthenticatedUser toAuthenticatedUser(UserDetails user) {
+        return new AuthenticatedUser(
+                user.getUsername(),
+                user.getAuthorities().stream()
+                        .map(GrantedAuthority::getAuthority)
+                        .collect(Collectors.toSet()));
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Void> handlePasswordHashingRejected(PasswordHashingRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .build();
+    }
+}
@@ -0,0 +1,13 @@
+package rcs.auth.reactive.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+// not an AuthenticationException: the security filter chain would see it first and answer 401
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class UsernameNotFoundException extends RuntimeException {
+
+    public UsernameNotFoundException(String username) {
+        super("Username " + username + " not found.");
+    }
+}
@@ -0,0 +1,8 @@
+package rcs.auth.reactive.repositories;
+
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import rcs.auth.reactive.repositories.models.UserCredentials;
+
+public interface ReactiveUserCredentialsRepository
+        extends ReactiveCrudRepository<UserCredentials, String>, ReactiveUserCredentialsRepositoryCustom {
+}
@@ -0,0 +1,13 @@
+package rcs.auth.reactive.repositories;
+
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.reactive.repositories.models.UserCredentials;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveUserCredentialsRepositoryCustom {
+
+    Mono<Boolean> updatePassword(String username, String encodedPassword);
+    Mono<Boolean> updateAuthority(String username, UserAuthority authority);
+    Mono<Boolean> insert(UserCredentials credentials);
+    Mono<Boolean> deleteUser(String username);
+}
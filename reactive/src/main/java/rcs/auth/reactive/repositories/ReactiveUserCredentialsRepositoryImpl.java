@@ -0,0 +1,83 @@
+package rcs.auth.reactive.repositories;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.reactive.repositories.models.UserCredentials;
+import reactor.core.publisher.Mono;
+
+@Repository
+public class ReactiveUserCredentialsRepositoryImpl implements ReactiveUserCredentialsRepositoryCustom {
+
+    private static final String updatePasswordSql = updateSql(UserCredentials.Fields.password);
+    private static final String updateAuthoritySql = updateSql(UserCredentials.Fields.authority);
+
+    private static final String insertSql =
+            "insert into " + UserCredentials.tableName +
+                    " (" + UserCredentials.Fields.username +
+                    ", " + UserCredentials.Fields.password +
+                    ", " + UserCredentials.Fields.authority + ")" +
+                    " values (:" + UserCredentials.Fields.username +
+                    ", :" + UserCredentials.Fields.password +
+                    ", :" + UserCredentials.Fields.authority + ")";
+
+    private static final String deleteSql =
+            "delete from " + UserCredentials.tableName +
+                    " where " + UserCredentials.Fields.username + " = :" + UserCredentials.Fields.username;
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveUserCredentialsRepositoryImpl(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    @Override
+    public Mono<Boolean> updatePassword(String username, String encodedPassword) {
+        return updateSuccessful(
+                databaseClient.sql(updatePasswordSql)
+                        .bind(UserCredentials.Fields.username, username)
+                        .bind(UserCredentials.Fields.password, encodedPassword));
+    }
+
+    @Override
+    public Mono<Boolean> updateAuthority(String username, UserAuthority authority) {
+        return updateSuccessful(
+                databaseClient.sql(updateAuthoritySql)
+                        .bind(UserCredentials.Fields.username, username)
+                        .bind(UserCredentials.Fields.authority, UserAuthorityConverters.toDbValue(authority)));
+    }
+
+    // save() would issue an update, since the id of a new user is already set
+    @Override
+    public Mono<Boolean> insert(UserCredentials credentials) {
+        return updateSuccessful(
+                databaseClient.sql(insertSql)
+                        .bind(UserCredentials.Fields.username, credentials.getUsername())
+                        .bind(UserCredentials.Fields.password, credentials.getPassword())
+                        .bind(UserCredentials.Fields.authority,
+                                UserAuthorityConverters.toDbValue(credentials.getAuthority())))
+                // a taken username surfaces as a DataIntegrityViolationException, whatever the driver
+                .onErrorReturn(DataIntegrityViolationException.class, false);
+    }
+
+    // unlike deleteById, reports whether the user existed
+    @Override
+    public Mono<Boolean> deleteUser(String username) {
+        return updateSuccessful(
+                databaseClient.sql(deleteSql)
+                        .bind(UserCredentials.Fields.username, username));
+    }
+
+    private static String updateSql(String field) {
+        return "update " + UserCredentials.tableName +
+                " set " + field + " = :" + field +
+                " where " + UserCredentials.Fields.username + " = :" + UserCredentials.Fields.username;
+    }
+
+    private Mono<Boolean> updateSuccessful(DatabaseClient.GenericExecuteSpec statement) {
+        return statement.fetch()
+                .rowsUpdated()
+                .map(updateCount -> updateCount == 1);
+    }
+}
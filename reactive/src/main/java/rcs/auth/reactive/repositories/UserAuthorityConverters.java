@@ -0,0 +1,48 @@
+package rcs.auth.reactive.repositories;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import rcs.auth.api.models.UserAuthority;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// stored as the same integers as the JPA entity of the blocking service, so that both can share a database
+public class UserAuthorityConverters {
+
+    private static final Map<UserAuthority, Integer> authorityToDbValue = Map.of(
+            UserAuthority.USER, 0,
+            UserAuthority.ADMIN, 1);
+
+    private static final Map<Integer, UserAuthority> dbValueToAuthority = authorityToDbValue.keySet().stream()
+            .collect(Collectors.toMap(authorityToDbValue::get, Function.identity()));
+
+    public static List<Converter<?, ?>> all() {
+        return List.of(new ToDbValue(), new FromDbValue());
+    }
+
+    static Integer toDbValue(UserAuthority authority) {
+        return authorityToDbValue.get(authority);
+    }
+
+    @WritingConverter
+    static class ToDbValue implements Converter<UserAuthority, Integer> {
+
+        @Override
+        public Integer convert(UserAuthority authority) {
+            return authorityToDbValue.get(authority);
+        }
+    }
+
+    @ReadingConverter
+    static class FromDbValue implements Converter<Integer, UserAuthority> {
+
+        @Override
+        public UserAuthority convert(Integer dbValue) {
+            return dbValueToAuthority.get(dbValue);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package rcs.auth.reactive.repositories.models;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+import rcs.auth.api.models.UserAuthority;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@Table(UserCredentials.tableName)
+public class UserCredentials {
+
+    public static final String tableName = "user_credentials";
+
+    public static final class Fields {
+        public static final String username = "username";
+        public static final String password = "password";
+        public static final String authority = "authority";
+    }
+
+    @Id
+    private String username;
+    private String password;
+    private UserAuthority authority;
+}
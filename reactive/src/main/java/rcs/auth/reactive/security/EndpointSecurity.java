@@ -0,0 +1,27 @@
+package rcs.auth.reactive.security;
+
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.server.authorization.AuthorizationContext;
+import reactor.core.publisher.Mono;
+
+public class EndpointSecurity {
+
+    public static Mono<AuthorizationDecision> canUpdatePassword(
+            Mono<Authentication> authentication,
+            AuthorizationContext context) {
+        Object username = context.getVariables().get("username");
+        return authentication
+                .filter(Authentication::isAuthenticated)
+                .map(user -> isAdmin(user) || user.getName().equals(username))
+                .map(AuthorizationDecision::new)
+                .defaultIfEmpty(new AuthorizationDecision(false));
+    }
+
+    private static boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .anyMatch("ADMIN"::equals);
+    }
+}
@@ -0,0 +1,25 @@
+package rcs.auth.reactive.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.server.WebFilterExchange;
+import org.springframework.security.web.server.authentication.ServerAuthenticationFailureHandler;
+import rcs.auth.reactive.exceptions.PasswordHashingRejectedException;
+import reactor.core.publisher.Mono;
+
+public class LoadSheddingAuthenticationFailureHandler implements ServerAuthenticationFailureHandler {
+
+    @Override
+    public Mono<Void> onAuthenticationFailure(WebFilterExchange exchange, AuthenticationException exception) {
+        ServerHttpResponse response = exchange.getExchange().getResponse();
+        if (exception.getCause() instanceof PasswordHashingRejectedException rejection) {
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(rejection.getRetryAfterSeconds()));
+        } else {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        }
+        return response.setComplete();
+    }
+}
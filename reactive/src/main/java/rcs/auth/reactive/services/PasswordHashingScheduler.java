@@ -0,0 +1,53 @@
+package rcs.auth.reactive.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import rcs.auth.reactive.exceptions.PasswordHashingRejectedException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Keeps password hashing off the event loop. The number of threads and of queued tasks is bounded, so that a burst
+ * of logins is shed with a 503 rather than queued indefinitely.
+ */
+@Component
+public class PasswordHashingScheduler {
+
+    private final Scheduler scheduler;
+    private final long retryAfterSeconds;
+
+    public PasswordHashingScheduler(
+            @Value("${auth.hashing.threads:0}") int threads,
+            @Value("${auth.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${auth.hashing.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.scheduler = Schedulers.newBoundedElastic(
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors(),
+                queueCapacity,
+                "password-hashing");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public <T> Mono<T> submit(Callable<T> task) {
+        return Mono.fromCallable(task)
+                .subscribeOn(scheduler)
+                .onErrorMap(RejectedExecutionException.class, e -> rejected());
+    }
+
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    public PasswordHashingRejectedException rejected() {
+        return new PasswordHashingRejectedException(retryAfterSeconds);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+}
@@ -0,0 +1,92 @@
+package rcs.auth.reactive.services;
+
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsPasswordService;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import rcs.auth.api.models.LoginCredentials;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.reactive.exceptions.FailedToUpdateUserException;
+import rcs.auth.reactive.exceptions.UsernameAlreadyExistsException;
+import rcs.auth.reactive.exceptions.UsernameNotFoundException;
+import rcs.auth.reactive.repositories.ReactiveUserCredentialsRepository;
+import rcs.auth.reactive.repositories.models.UserCredentials;
+import reactor.core.publisher.Mono;
+
+import java.util.stream.Collectors;
+
+@Service
+public class ReactiveUserCredentialsService implements ReactiveUserDetailsService, ReactiveUserDetailsPasswordService {
+
+    private final ReactiveUserCredentialsRepository repository;
+    private final PasswordEncoder encoder;
+    private final PasswordHashingScheduler hashingScheduler;
+
+    public ReactiveUserCredentialsService(
+            ReactiveUserCredentialsRepository repository,
+            PasswordEncoder encoder,
+            PasswordHashingScheduler hashingScheduler) {
+        this.repository = repository;
+        this.encoder = encoder;
+        this.hashingScheduler = hashingScheduler;
+    }
+
+    // empty when the user does not exist, which form login reports as bad credentials
+    @Override
+    public Mono<UserDetails> findByUsername(String username) {
+        return repository.findById(username)
+                .map(this::toUser);
+    }
+
+    // a single INSERT, so concurrent registrations of the same name cannot both succeed
+    public Mono<Void> save(LoginCredentials request) {
+        String username = request.getUsername();
+        return hashingScheduler.submit(() -> encoder.encode(request.getPassword()))
+                .flatMap(encodedPassword -> repository.insert(
+                        new UserCredentials(username, encodedPassword, UserAuthority.USER)))
+                .flatMap(inserted -> inserted
+                        ? Mono.empty()
+                        : Mono.error(new UsernameAlreadyExistsException(username)));
+    }
+
+    public Mono<Void> updatePassword(String username, String newPassword) {
+        return hashingScheduler.submit(() -> encoder.encode(newPassword))
+                .flatMap(encodedPassword -> repository.updatePassword(username, encodedPassword))
+                .flatMap(updated -> updated
+                        ? Mono.empty()
+                        : Mono.error(new FailedToUpdateUserException(username, UserCredentials.Fields.password)));
+    }
+
+    // called on successful login when the stored hash no longer matches the current hashing parameters
+    @Override
+    public Mono<UserDetails> updatePassword(UserDetails user, String newEncodedPassword) {
+        return repository.updatePassword(user.getUsername(), newEncodedPassword)
+                .thenReturn(new User(user.getUsername(), newEncodedPassword, user.getAuthorities()));
+    }
+
+    public Mono<Void> updateAuthority(String username, UserAuthority newAuthority) {
+        return repository.updateAuthority(username, newAuthority)
+                .flatMap(updated -> updated
+                        ? Mono.empty()
+                        : Mono.error(new FailedToUpdateUserException(username, UserCredentials.Fields.authority)));
+    }
+
+    public Mono<Void> delete(String username) {
+        return repository.deleteUser(username)
+                .flatMap(deleted -> deleted
+                        ? Mono.empty()
+                        : Mono.error(new UsernameNotFoundException(username)));
+    }
+
+    private UserDetails toUser(UserCredentials credentials) {
+        return new User(
+                credentials.getUsername(),
+                credentials.getPassword(),
+                credentials.getAuthority().getRoles().stream()
+                        .map(SimpleGrantedAuthority::new)
+                        .collect(Collectors.toList()));
+    }
+}
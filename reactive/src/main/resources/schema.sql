@@ -0,0 +1,5 @@
+CREATE TABLE IF NOT EXISTS user_credentials (
+  username    VARCHAR(32) PRIMARY KEY,
+  password    VARCHAR(128) NOT NULL,
+  authority   INTEGER NOT NULL
+);
\ No newline at end of file
@@ -0,0 +1,272 @@
+package rcs.auth.reactive.controllers;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.BodyInserters;
+import rcs.auth.api.models.AuthenticatedUser;
+import rcs.auth.api.models.UpdateAuthorityRequest;
+import rcs.auth.api.models.UpdatePasswordRequest;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.reactive.repositories.ReactiveUserCredentialsRepository;
+import rcs.auth.reactive.repositories.models.UserCredentials;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@TestPropertySource("classpath:test.properties")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ReactiveAuthControllerTest {
+
+    private static final String sessionCookie = "SESSION";
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private ReactiveUserCredentialsRepository repository;
+
+    @Autowired
+    private PasswordEncoder encoder;
+
+    @Before
+    public void setup() {
+        repository.deleteAll().block();
+        repository.insert(new UserCredentials("admin", encoder.encode("password"), UserAuthority.ADMIN)).block();
+    }
+
+    private WebTestClient.ResponseSpec register(String username, String password) {
+        return client.post()
+                .uri("/register")
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(BodyInserters.fromFormData("username", username).with("password", password))
+                .exchange();
+    }
+
+    private WebTestClient.ResponseSpec login(String username, String password) {
+        return client.post()
+                .uri("/login")
+                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                .body(BodyInserters.fromFormData("username", username).with("password", password))
+                .exchange();
+    }
+
+    private String session(String username, String password) {
+        ResponseCookie cookie = login(username, password)
+                .expectStatus().isOk()
+                .returnResult(Void.class)
+                .getResponseCookies()
+                .getFirst(sessionCookie);
+        assertThat(cookie).isNotNull();
+        return cookie.getValue();
+    }
+
+    @Test
+    public void testRegisterAndAuthenticate() {
+        // Arrange
+        register("username", "password").expectStatus().isOk();
+        String session = session("username", "password");
+
+        // Act
+        AuthenticatedUser actual = client.get()
+                .uri("/authenticate")
+                .cookie(sessionCookie, session)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(AuthenticatedUser.class)
+                .returnResult()
+                .getResponseBody();
+
+        // Assert
+        assertThat(actual.getUsername()).isEqualTo("username");
+        assertThat(actual.getRoles()).isEqualTo(Set.of("USER"));
+    }
+
+    @Test
+    public void testRegisterUsernameAlreadyExists() {
+        // Arrange
+        register("username", "password").expectStatus().isOk();
+
+        // Act
+        WebTestClient.ResponseSpec actual = register("username", "other");
+
+        // Assert
+        actual.expectStatus().isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    public void testLoginWithWrongPassword() {
+        // Arrange
+        register("username", "password").expectStatus().isOk();
+
+        // Act
+        WebTestClient.ResponseSpec actual = login("username", "wrong");
+
+        // Assert
+        actual.expectStatus().isUnauthorized();
+    }
+
+    @Test
+    public void testAuthenticateWithoutSession() {
+        // Arrange
+
+        // Act
+        WebTestClient.ResponseSpec actual = client.get()
+                .uri("/authenticate")
+                .exchange();
+
+        // Assert
+        actual.expectStatus().isUnauthorized();
+    }
+
+    @Test
+    public void testLogout() {
+        // Arrange
+        String session = session("admin", "password");
+
+        // Act
+        client.post()
+                .uri("/logout")
+                .cookie(sessionCookie, session)
+                .exchange()
+                .expectStatus().isOk();
+
+        // Assert
+        client.get()
+                .uri("/authenticate")
+                .cookie(sessionCookie, session)
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    public void testUpdateOwnPassword() {
+        // Arrange
+        register("username", "password").expectStatus().isOk();
+        String session = session("username", "password");
+
+        // Act
+        client.put()
+                .uri("/users/username/password")
+                .cookie(sessionCookie, session)
+                .bodyValue(new UpdatePasswordRequest("n3wP455w0rd"))
+                .exchange()
+                .expectStatus().isOk();
+
+        // Assert
+        login("username", "password").expectStatus().isUnauthorized();
+        login("username", "n3wP455w0rd").expectStatus().isOk();
+    }
+
+    @Test
+    public void testUpdateOtherUsersPasswordIsForbidden() {
+        // Arrange
+        register("username", "password").expectStatus().isOk();
+        register("other", "password").expectStatus().isOk();
+        String session = session("username", "password");
+
+        // Act
+        WebTestClient.ResponseSpec actual = client.put()
+                .uri("/users/other/password")
+                .cookie(sessionCookie, session)
+                .bodyValue(new UpdatePasswordRequest("n3wP455w0rd"))
+                .exchange();
+
+        // Assert
+        actual.expectStatus().isForbidden();
+    }
+
+    @Test
+    public void testAdminUpdatesPasswordOfUserThatDoesNotExist() {
+        // Arrange
+        String session = session("admin", "password");
+
+        // Act
+        WebTestClient.ResponseSpec actual = client.put()
+                .uri("/users/username/password")
+                .cookie(sessionCookie, session)
+                .bodyValue(new UpdatePasswordRequest("n3wP455w0rd"))
+                .exchange();
+
+        // Assert
+        actual.expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void testUpdateAuthority() {
+        // Arrange
+        register("username", "password").expectStatus().isOk();
+        String session = session("admin", "password");
+
+        // Act
+        client.put()
+                .uri("/users/username/authority")
+                .cookie(sessionCookie, session)
+                .bodyValue(new UpdateAuthorityRequest(UserAuthority.ADMIN))
+                .exchange()
+                .expectStatus().isOk();
+
+        // Assert
+        assertThat(repository.findById("username").block().getAuthority()).isEqualTo(UserAuthority.ADMIN);
+    }
+
+    @Test
+    public void testUpdateAuthorityRequiresAdmin() {
+        // Arrange
+        register("username", "password").expectStatus().isOk();
+        String session = session("username", "password");
+
+        // Act
+        WebTestClient.ResponseSpec actual = client.put()
+                .uri("/users/username/authority")
+                .cookie(sessionCookie, session)
+                .bodyValue(new UpdateAuthorityRequest(UserAuthority.ADMIN))
+                .exchange();
+
+        // Assert
+        actual.expectStatus().isForbidden();
+    }
+
+    @Test
+    public void testDeleteUser() {
+        // Arrange
+        register("username", "password").expectStatus().isOk();
+        String session = session("admin", "password");
+
+        // Act
+        client.delete()
+                .uri("/users/username")
+                .cookie(sessionCookie, session)
+                .exchange()
+                .expectStatus().isOk();
+
+        // Assert
+        assertThat(repository.findById("username").block()).isNull();
+    }
+
+    @Test
+    public void testDeleteUserThatDoesNotExist() {
+        // Arrange
+        String session = session("admin", "password");
+
+        // Act
+        WebTestClient.ResponseSpec actual = client.delete()
+                .uri("/users/username")
+                .cookie(sessionCookie, session)
+                .exchange();
+
+        // Assert
+        actual.expectStatus().isNotFound();
+    }
+}
@@ -0,0 +1,114 @@
+package rcs.auth.reactive.repositories;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.reactive.repositories.models.UserCredentials;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@TestPropertySource("classpath:test.properties")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+public class ReactiveUserCredentialsRepositoryImplTest {
+
+    @Autowired
+    private ReactiveUserCredentialsRepository target;
+
+    @Before
+    public void setup() {
+        target.deleteAll().block();
+    }
+
+    @Test
+    public void testInsert() {
+        // Arrange
+        UserCredentials credentials = new UserCredentials("username", "password", UserAuthority.ADMIN);
+
+        // Act
+        Boolean actual = target.insert(credentials).block();
+
+        // Assert
+        assertThat(actual).isTrue();
+        assertThat(target.findById("username").block()).isEqualTo(credentials);
+    }
+
+    @Test
+    public void testInsertUsernameAlreadyExists() {
+        // Arrange
+        target.insert(new UserCredentials("username", "password", UserAuthority.USER)).block();
+
+        // Act
+        Boolean actual = target.insert(new UserCredentials("username", "other", UserAuthority.ADMIN)).block();
+
+        // Assert
+        assertThat(actual).isFalse();
+        assertThat(target.findById("username").block().getPassword()).isEqualTo("password");
+    }
+
+    @Test
+    public void testUpdatePassword() {
+        // Arrange
+        target.insert(new UserCredentials("username", "password", UserAuthority.USER)).block();
+
+        // Act
+        Boolean actual = target.updatePassword("username", "n3wP455w0rd").block();
+
+        // Assert
+        assertThat(actual).isTrue();
+        assertThat(target.findById("username").block().getPassword()).isEqualTo("n3wP455w0rd");
+    }
+
+    @Test
+    public void testUpdatePasswordUserDoesNotExist() {
+        // Arrange
+
+        // Act
+        Boolean actual = target.updatePassword("username", "n3wP455w0rd").block();
+
+        // Assert
+        assertThat(actual).isFalse();
+    }
+
+    @Test
+    public void testUpdateAuthority() {
+        // Arrange
+        target.insert(new UserCredentials("username", "password", UserAuthority.USER)).block();
+
+        // Act
+        Boolean actual = target.updateAuthority("username", UserAuthority.ADMIN).block();
+
+        // Assert
+        assertThat(actual).isTrue();
+        assertThat(target.findById("username").block().getAuthority()).isEqualTo(UserAuthority.ADMIN);
+    }
+
+    @Test
+    public void testDeleteUser() {
+        // Arrange
+        target.insert(new UserCredentials("username", "password", UserAuthority.USER)).block();
+
+        // Act
+        Boolean actual = target.deleteUser("username").block();
+
+        // Assert
+        assertThat(actual).isTrue();
+        assertThat(target.findById("username").block()).isNull();
+    }
+
+    @Test
+    public void testDeleteUserDoesNotExist() {
+        // Arrange
+
+        // Act
+        Boolean actual = target.deleteUser("username").block();
+
+        // Assert
+        assertThat(actual).isFalse();
+    }
+}
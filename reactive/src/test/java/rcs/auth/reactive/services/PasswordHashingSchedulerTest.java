@@ -0,0 +1,60 @@
+package rcs.auth.reactive.services;
+
+import org.junit.After;
+import org.junit.Test;
+import rcs.auth.reactive.exceptions.PasswordHashingRejectedException;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PasswordHashingSchedulerTest {
+
+    private final PasswordHashingScheduler target = new PasswordHashingScheduler(1, 1, 7);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @After
+    public void teardown() {
+        release.countDown();
+        target.shutdown();
+    }
+
+    private Mono<String> blockingTask() {
+        return target.submit(() -> {
+            started.countDown();
+            release.await();
+            return "hash";
+        });
+    }
+
+    @Test
+    public void testRunsOffTheCallingThread() {
+        // Arrange
+        release.countDown();
+
+        // Act
+        String actual = target.submit(() -> Thread.currentThread().getName()).block();
+
+        // Assert
+        assertThat(actual).startsWith("password-hashing");
+    }
+
+    @Test
+    public void testRejectsOnceThreadsAndQueueAreFull() throws InterruptedException {
+        // Arrange
+        blockingTask().subscribe();
+        started.await();
+        blockingTask().subscribe();
+
+        // Act
+        PasswordHashingRejectedException actual = assertThrows(
+                PasswordHashingRejectedException.class,
+                () -> blockingTask().block());
+
+        // Assert
+        assertThat(actual.getRetryAfterSeconds()).isEqualTo(7);
+    }
+}
@@ -2,8 +2,11 @@ package rcs.auth;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.PropertySource;
 
 @SpringBootApplication
+// declared here rather than on a @Configuration so that the file is loaded before any @Conditional is evaluated
+@PropertySource("file:${app.properties}")
 public class AuthApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,76 @@
+package rcs.auth.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import rcs.auth.security.AccessTokenRevoker;
+import rcs.auth.security.AccessTokenSuccessHandler;
+import rcs.auth.services.UserCredentialsChangeLog;
+import rcs.auth.tokens.AccessTokenIssuer;
+import rcs.auth.tokens.AccessTokenVerifier;
+import rcs.auth.tokens.TokenRevocationList;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Configuration
+@ConditionalOnProperty(name = "auth.tokens.enabled", havingValue = "true")
+public class AccessTokenConfig {
+
+    // comma separated keyId:base64Key pairs; the first key signs new tokens, all of them are accepted
+    @Value("${auth.tokens.signing-keys}")
+    private List<String> signingKeys;
+
+    @Value("${auth.tokens.ttl-seconds:900}")
+    private long ttlSeconds;
+
+    @Bean
+    public TokenRevocationList tokenRevocationList() {
+        return new TokenRevocationList(Duration.ofSeconds(ttlSeconds), Clock.systemUTC());
+    }
+
+    @Bean
+    public AccessTokenVerifier accessTokenVerifier(TokenRevocationList tokenRevocationList) {
+        return new AccessTokenVerifier(keysById(), Clock.systemUTC(), tokenRevocationList);
+    }
+
+    @Bean
+    public AccessTokenSuccessHandler accessTokenSuccessHandler() {
+        Map.Entry<String, byte[]> signingKey = keysById().entrySet().iterator().next();
+        return new AccessTokenSuccessHandler(
+                new AccessTokenIssuer(
+                        signingKey.getKey(),
+                        signingKey.getValue(),
+                        Duration.ofSeconds(ttlSeconds),
+                        Clock.systemUTC()));
+    }
+
+    @Bean
+    public AccessTokenRevoker accessTokenRevoker(
+            AccessTokenVerifier accessTokenVerifier,
+            TokenRevocationList tokenRevocationList,
+            UserCredentialsChangeLog changeLog) {
+        return new AccessTokenRevoker(accessTokenVerifier, tokenRevocationList, changeLog);
+    }
+
+    private Map<String, byte[]> keysById() {
+        Map<String, byte[]> keysById = new LinkedHashMap<>();
+        for (String signingKey : signingKeys) {
+            String[] parts = signingKey.trim().split(":", 2);
+            if (parts.length != 2 || parts[0].isEmpty() || parts[0].contains(".")) {
+                throw new IllegalArgumentException("Expected keyId:base64Key in auth.tokens.signing-keys");
+            }
+            byte[] key = Base64.getDecoder().decode(parts[1]);
+            if (key.length < 32) {
+                throw new IllegalArgumentException("Access token key " + parts[0] + " must be at least 256 bits");
+            }
+            keysById.put(parts[0], key);
+        }
+        return keysById;
+    }
+}
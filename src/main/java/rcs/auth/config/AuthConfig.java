@@ -1,20 +1,114 @@
 package rcs.auth.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
-import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
+import org.springframework.util.unit.DataSize;
+import rcs.auth.security.BCryptCostCalibrator;
+import rcs.auth.security.CostAwareBCryptPasswordEncoder;
+import rcs.auth.security.LoadSheddingAuthenticationFailureHandler;
+import rcs.auth.security.TimedPasswordEncoder;
+import rcs.auth.sessions.SessionJournal;
+import rcs.auth.sessions.SessionStore;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
 
 @Configuration
 public class AuthConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(AuthConfig.class);
+
+    private static final String bcrypt = "bcrypt";
+
+    // the same on every node, otherwise logins through different nodes would keep re-hashing passwords
+    @Value("${auth.hashing.bcrypt.cost:10}")
+    private int bcryptCost;
+
+    // only logs the cost that meets auth.hashing.target-verify-millis on this machine, to be pinned above
+    @Value("${auth.hashing.bcrypt.calibrate:false}")
+    private boolean calibrateBcryptCost;
+
+    @Value("${auth.hashing.bcrypt.min-cost:10}")
+    private int bcryptMinCost;
+
+    @Value("${auth.hashing.bcrypt.max-cost:16}")
+    private int bcryptMaxCost;
+
+    @Value("${auth.hashing.target-verify-millis:50}")
+    private long targetVerifyMillis;
+
+    @Value("${auth.hashing.calibration-samples:5}")
+    private int calibrationSamples;
+
+    // the container's setting, which applied to sessions before they moved to the session store
+    @Value("${server.servlet.session.timeout:30m}")
+    private Duration sessionTimeout;
+
+    // 0 = four per core; rounded up to a power of two
+    @Value("${auth.sessions.stripes:0}")
+    private int sessionStripes;
+
+    // empty = sessions are not journaled, and don't survive a restart
+    @Value("${auth.sessions.journal.file:}")
+    private String sessionJournalFile;
+
+    @Value("${auth.sessions.journal.size:64MB}")
+    private DataSize sessionJournalSize;
+
+    // the records that a machine crash may lose; a process crash loses none
+    @Value("${auth.sessions.journal.flush-interval:1s}")
+    private Duration sessionJournalFlushInterval;
+
+    @Value("${auth.sessions.journal.touch-interval:1m}")
+    private Duration sessionJournalTouchInterval;
+
     @Bean
-    public PasswordEncoder encoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder encoder(MeterRegistry meterRegistry) {
+        if (calibrateBcryptCost) {
+            int calibratedCost = new BCryptCostCalibrator(
+                    Duration.ofMillis(targetVerifyMillis),
+                    bcryptMinCost,
+                    bcryptMaxCost,
+                    calibrationSamples)
+                    .calibrate();
+            logger.info("Calibrated {} cost {} for {} ms; set auth.hashing.bcrypt.cost={} on every node to use it",
+                    bcrypt, calibratedCost, targetVerifyMillis, calibratedCost);
+        }
+        logger.info("Hashing new passwords with {} cost {}", bcrypt, bcryptCost);
+
+        CostAwareBCryptPasswordEncoder bcryptEncoder = new CostAwareBCryptPasswordEncoder(bcryptCost);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(bcrypt, Map.of(bcrypt, bcryptEncoder));
+        // hashes written before algorithm ids were stored
+        encoder.setDefaultPasswordEncoderForMatches(bcryptEncoder);
+        return new TimedPasswordEncoder(encoder, meterRegistry);
+    }
+
+    // logged in sessions, also accessed by id by POST /authenticate/batch
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public SessionStore sessionStore() {
+        int stripes = sessionStripes > 0 ? sessionStripes : 4 * Runtime.getRuntime().availableProcessors();
+        SessionJournal journal = sessionJournalFile.isEmpty()
+                ? null
+                : new SessionJournal(
+                        Path.of(sessionJournalFile),
+                        sessionJournalSize.toBytes(),
+                        sessionJournalFlushInterval,
+                        sessionJournalTouchInterval);
+        return new SessionStore(
+                sessionTimeout,
+                1 << -Integer.numberOfLeadingZeros(stripes - 1),
+                System::currentTimeMillis,
+                journal);
     }
 
     @Bean
@@ -24,6 +118,6 @@ public class AuthConfig {
 
     @Bean
     public AuthenticationFailureHandler authenticationFailureHandler() {
-        return new SimpleUrlAuthenticationFailureHandler();
+        return new LoadSheddingAuthenticationFailureHandler();
     }
 }
@@ -2,12 +2,17 @@ package rcs.auth.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.CorsConfigurationSource;
+import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class CorsConfig {
 
+    private static final CorsConfiguration configuration = corsConfiguration();
+
     @Bean
     public WebMvcConfigurer getCorsConfigurer() {
         return new WebMvcConfigurer() {
@@ -15,11 +20,28 @@ public class CorsConfig {
             public void addCorsMappings(CorsRegistry registry) {
                 registry
                         .addMapping("/**")
-                        .allowedMethods("*")
-                        .allowedOriginPatterns("*")
-                        .allowCredentials(true);
+                        .combine(configuration);
             }
         };
     }
 
-}
\ No newline at end of file
+    // used by the security filter chains, which would otherwise ask MVC's handler mappings for the configuration on
+    // every request
+    @Bean
+    public CorsConfigurationSource corsConfigurationSource() {
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", configuration);
+        return source;
+    }
+
+    private static CorsConfiguration corsConfiguration() {
+        CorsConfiguration configuration = new CorsConfiguration();
+        configuration.addAllowedOriginPattern("*");
+        configuration.addAllowedMethod("*");
+        configuration.addAllowedHeader("*");
+        configuration.setAllowCredentials(true);
+        configuration.setMaxAge(1800L);
+        return configuration;
+    }
+
+}
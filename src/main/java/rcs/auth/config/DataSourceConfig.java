@@ -1,16 +1,22 @@
 package rcs.auth.config;
 
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.PropertySource;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import rcs.auth.repositories.ReplicaRoutingDataSource;
 
+import javax.annotation.PreDestroy;
 import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
-@PropertySource("file:${app.properties}")
 public class DataSourceConfig {
 
     @Value("${spring.datasource.username}")
@@ -22,13 +28,81 @@ public class DataSourceConfig {
     @Value("${spring.datasource.url}")
     private String url;
 
+    @Value("${spring.datasource.prepared-statement-cache.enabled:true}")
+    private boolean preparedStatementCacheEnabled;
+
+    @Value("${spring.datasource.prepared-statement-cache.size:250}")
+    private int preparedStatementCacheSize;
+
+    @Value("${spring.datasource.prepared-statement-cache.sql-limit:2048}")
+    private int preparedStatementCacheSqlLimit;
+
+    @Value("${spring.datasource.replica-urls:}")
+    private List<String> replicaUrls;
+
+    @Value("${spring.datasource.replica-lag-query:}")
+    private String replicaLagQuery;
+
+    @Value("${spring.datasource.replica-max-lag-seconds:5}")
+    private long replicaMaxLagSeconds;
+
+    @Value("${spring.datasource.replica-check-interval-seconds:5}")
+    private long replicaCheckIntervalSeconds;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    // read-only transactions go to a replica when replicas are configured, see ReplicaRoutingDataSource
     @Bean
-    public DataSource dataSource() {
-        return DataSourceBuilder.create()
+    public DataSource dataSource(MeterRegistry meterRegistry) {
+        HikariDataSource primary = pool("auth", url, meterRegistry);
+        if (replicaUrls.isEmpty()) {
+            return primary;
+        }
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            replicas.add(pool("auth-replica-" + i, replicaUrls.get(i), meterRegistry));
+        }
+        routingDataSource = new ReplicaRoutingDataSource(
+                primary, replicas, replicaLagQuery, Duration.ofSeconds(replicaMaxLagSeconds));
+        routingDataSource.startHealthChecks(Duration.ofSeconds(replicaCheckIntervalSeconds));
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @PreDestroy
+    public void closeReplicas() {
+        if (routingDataSource != null) {
+            routingDataSource.close();
+        }
+    }
+
+    private HikariDataSource pool(String name, String url, MeterRegistry meterRegistry) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
                 .username(username)
                 .password(password)
                 .url(url)
                 .build();
+        // names the pool in the hikaricp.* metrics
+        dataSource.setPoolName(name);
+        // set here because Spring Boot only instruments a data source bean that is itself a pool
+        dataSource.setMetricRegistry(meterRegistry);
+
+        // these are MySQL Connector/J properties; other drivers may reject unknown properties
+        if (url.startsWith("jdbc:mysql:")) {
+            // sends JDBC batches as multi-row inserts instead of one round trip per row
+            dataSource.addDataSourceProperty("rewriteBatchedStatements", "true");
+            // makes a positive fetch size stream rows through a server-side cursor instead of reading them all
+            dataSource.addDataSourceProperty("useCursorFetch", "true");
+            if (preparedStatementCacheEnabled) {
+                dataSource.addDataSourceProperty("useServerPrepStmts", "true");
+                dataSource.addDataSourceProperty("cachePrepStmts", "true");
+                dataSource.addDataSourceProperty("prepStmtCacheSize", preparedStatementCacheSize);
+                dataSource.addDataSourceProperty("prepStmtCacheSqlLimit", preparedStatementCacheSqlLimit);
+            }
+        }
+
+        return dataSource;
     }
 
     @Bean
@@ -1,26 +1,52 @@
 package rcs.auth.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpMethod;
-import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
-import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
-import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.logout.LogoutHandler;
+import org.springframework.security.web.context.SecurityContextPersistenceFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.web.cors.CorsUtils;
+import rcs.auth.security.AccessTokenAuthenticationFilter;
+import rcs.auth.security.AccessTokenRevoker;
+import rcs.auth.security.AccessTokenSuccessHandler;
+import rcs.auth.security.AuthenticatedUserFilter;
 import rcs.auth.security.EndpointSecurity;
+import rcs.auth.security.LoginMetricsFilter;
+import rcs.auth.security.LoginThrottle;
+import rcs.auth.security.LoginThrottlingFilter;
+import rcs.auth.security.OffloadingPasswordEncoder;
 import rcs.auth.security.RestAuthenticationEntryPoint;
+import rcs.auth.security.SessionStoreSecurityContextRepository;
+import rcs.auth.services.PasswordHashingExecutor;
 import rcs.auth.services.UserCredentialsService;
+import rcs.auth.sessions.SessionStore;
+import rcs.auth.tokens.AccessTokenVerifier;
 
-import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
-
+/**
+ * One security filter chain per route group, each with only the filters its routes need. The first chain that
+ * matches a request handles it.
+ */
 @Configuration
 @EnableWebSecurity
-public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
+public class WebSecurityConfig {
 
     @Autowired
     private RestAuthenticationEntryPoint restAuthenticationEntryPoint;
@@ -34,46 +60,187 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
     @Autowired
     private PasswordEncoder encoder;
 
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+
     @Autowired
     private UserCredentialsService userCredentialsService;
 
-    @Override
-    protected void configure(HttpSecurity http) throws Exception {
-        http.cors()
+    @Autowired
+    private SessionStore sessionStore;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ObjectProvider<LoginThrottle> loginThrottle;
+
+    @Autowired
+    private ObjectProvider<AccessTokenVerifier> accessTokenVerifier;
+
+    @Autowired
+    private ObjectProvider<AccessTokenSuccessHandler> accessTokenSuccessHandler;
+
+    @Autowired
+    private ObjectProvider<AccessTokenRevoker> accessTokenRevoker;
+
+    // only the CORS headers, which the CORS filter writes before ending the request
+    @Bean
+    @Order(1)
+    public SecurityFilterChain preflightFilterChain(HttpSecurity http) throws Exception {
+        lean(http).requestMatcher(CorsUtils::isPreFlightRequest)
+                .cors()
+                .and()
+                .securityContext()
+                .disable()
+                .exceptionHandling()
+                .disable();
+        return http.build();
+    }
+
+    // stateless: the route doesn't read the requester's session, and may not create one
+    @Bean
+    @Order(2)
+    public SecurityFilterChain publicFilterChain(HttpSecurity http) throws Exception {
+        lean(http).requestMatcher(new AntPathRequestMatcher("/register", HttpMethod.POST.name()))
+                .cors()
+                .and()
+                .securityContext()
+                .disable()
+                .exceptionHandling()
+                .disable();
+        return http.build();
+    }
+
+    // reads the session, or the access token, but never creates a session; the batch route is for gateways, which
+    // authenticate as an admin, since it looks up many sessions per request
+    @Bean
+    @Order(3)
+    public SecurityFilterChain authenticateFilterChain(HttpSecurity http) throws Exception {
+        lean(http).requestMatcher(new OrRequestMatcher(
+                        new AntPathRequestMatcher("/authenticate", HttpMethod.GET.name()),
+                        new AntPathRequestMatcher("/authenticate/batch", HttpMethod.POST.name())))
+                .cors()
+                .and()
+                .securityContext()
+                .securityContextRepository(new SessionStoreSecurityContextRepository(sessionStore, false))
+                .and()
+                .exceptionHandling()
+                .authenticationEntryPoint(restAuthenticationEntryPoint)
+                .and()
+                .authorizeHttpRequests()
+                .antMatchers(HttpMethod.POST, "/authenticate/batch")
+                .access(endpointSecurity.admin())
+                .anyRequest()
+                .authenticated();
+
+        accessTokenVerifier.ifAvailable(verifier -> http.addFilterAfter(
+                new AccessTokenAuthenticationFilter(verifier),
+                SecurityContextPersistenceFilter.class));
+
+        // after authorization, so that it only sees authenticated requests
+        http.addFilterAfter(new AuthenticatedUserFilter(objectMapper), AuthorizationFilter.class);
+        return http.build();
+    }
+
+    // login, logout, the user routes and everything else
+    @Bean
+    @Order(4)
+    public SecurityFilterChain defaultFilterChain(HttpSecurity http) throws Exception {
+        AuthenticationSuccessHandler successHandler = accessTokenSuccessHandler.getIfAvailable();
+        if (successHandler == null) {
+            successHandler = (request, response, authentication) -> { }; // disables redirect
+        }
+
+        LogoutHandler tokenLogoutHandler = accessTokenRevoker.getIfAvailable();
+        if (tokenLogoutHandler == null) {
+            tokenLogoutHandler = (request, response, authentication) -> { };
+        }
+
+        SessionStoreSecurityContextRepository securityContextRepository =
+                new SessionStoreSecurityContextRepository(sessionStore, true);
+
+        http.authenticationManager(authenticationManager())
+                .cors()
                 .and()
                 .csrf()
                 .disable()
+                .securityContext()
+                .securityContextRepository(securityContextRepository)
+                .and()
+                // sessions are created by the security context repository, and never by the container
+                .sessionManagement()
+                .disable()
+                .requestCache()
+                .disable()
                 .exceptionHandling()
                 .authenticationEntryPoint(restAuthenticationEntryPoint)
                 .and()
-                .authorizeRequests()
+                .authorizeHttpRequests()
 
-                .antMatchers(HttpMethod.GET, "/authenticate")
-                .authenticated()
+                .antMatchers(HttpMethod.GET, "/users")
+                .access(endpointSecurity.admin())
 
-                .antMatchers(HttpMethod.POST, "/register")
-                .permitAll()
+                .antMatchers(HttpMethod.POST, "/users/import")
+                .access(endpointSecurity.admin())
 
                 .antMatchers(HttpMethod.PUT, "/users/{username}/password")
-                .access("@endpointSecurity.canUpdatePassword(authentication, #username)")
+                .access(endpointSecurity.adminOrSelf("username"))
 
                 .antMatchers(HttpMethod.PUT, "/users/{username}/authority")
-                .hasAuthority("ADMIN")
+                .access(endpointSecurity.admin())
 
                 .antMatchers(HttpMethod.DELETE, "/users/{username}")
-                .hasAuthority("ADMIN")
+                .access(endpointSecurity.admin())
 
                 .and()
                 .formLogin()
-                .successHandler((request, response, authentication) -> { }) // disables redirect
+                .successHandler(successHandler)
                 .failureHandler(failureHandler)
                 .and()
                 .logout()
+                .addLogoutHandler(securityContextRepository)
+                .addLogoutHandler(tokenLogoutHandler)
                 .logoutSuccessHandler((request, response, authentication) -> { });
+
+        http.addFilterBefore(new LoginMetricsFilter(meterRegistry), UsernamePasswordAuthenticationFilter.class);
+
+        // after the metrics filter, so that throttled logins are counted
+        loginThrottle.ifAvailable(throttle -> http.addFilterBefore(
+                new LoginThrottlingFilter(throttle),
+                UsernamePasswordAuthenticationFilter.class));
+
+        // after the session's security context is loaded, so that a token takes precedence over it
+        accessTokenVerifier.ifAvailable(verifier -> http.addFilterAfter(
+                new AccessTokenAuthenticationFilter(verifier),
+                SecurityContextPersistenceFilter.class));
+        return http.build();
     }
 
-    @Override
-    protected void configure(AuthenticationManagerBuilder auth) throws Exception {
-        auth.userDetailsService(userCredentialsService).passwordEncoder(encoder);
+    private AuthenticationManager authenticationManager() {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userCredentialsService);
+        provider.setUserDetailsPasswordService(userCredentialsService);
+        provider.setPasswordEncoder(new OffloadingPasswordEncoder(encoder, passwordHashingExecutor));
+        return new ProviderManager(provider);
+    }
+
+    // drops the defaults that only the default chain needs; security headers are kept everywhere
+    private static HttpSecurity lean(HttpSecurity http) throws Exception {
+        return http.csrf()
+                .disable()
+                .sessionManagement()
+                .disable()
+                .requestCache()
+                .disable()
+                .anonymous()
+                .disable()
+                .servletApi()
+                .disable()
+                .logout()
+                .disable();
     }
-}
\ No newline at end of file
+}
@@ -1,57 +1,167 @@
 package rcs.auth.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import rcs.auth.api.models.AuthenticatedUser;
 import rcs.auth.api.models.LoginCredentials;
 import rcs.auth.api.models.UpdateAuthorityRequest;
 import rcs.auth.api.models.UpdatePasswordRequest;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.exceptions.FailedToUpdateUserException;
+import rcs.auth.exceptions.PasswordHashingRejectedException;
+import rcs.auth.exceptions.UsernameNotFoundException;
+import rcs.auth.services.SessionIntrospectionService;
 import rcs.auth.services.UserCredentialsService;
+import rcs.auth.services.UserImportResult;
+import rcs.auth.services.UserImportService;
+import rcs.auth.services.UserListingService;
 import rcs.auth.utils.AuthUtils;
+import rcs.auth.utils.ErrorResponses;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 @RestController
 public class AuthController {
 
+    private static final String textCsvValue = "text/csv";
+
     @Autowired
     private AuthUtils authUtils;
 
     @Autowired
     private UserCredentialsService userCredentialsService;
 
+    @Autowired
+    private UserImportService userImportService;
+
+    @Autowired
+    private UserListingService userListingService;
+
+    @Autowired
+    private SessionIntrospectionService sessionIntrospectionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${auth.authenticate-batch.max-size:1000}")
+    private int maxBatchSize;
+
     @PostMapping(
             path = "/register",
             consumes = { MediaType.APPLICATION_FORM_URLENCODED_VALUE })
-    public ResponseEntity<Void> createUser(LoginCredentials request) {
-        userCredentialsService.save(request);
-        return ResponseEntity.ok()
-                .build();
+    public CompletableFuture<ResponseEntity<Void>> createUser(LoginCredentials request) {
+        return userCredentialsService.save(request)
+                .thenApply(ignored -> ResponseEntity.ok()
+                        .build());
     }
 
     @GetMapping("/authenticate")
     public ResponseEntity<AuthenticatedUser> getLoggedInUser() {
         return authUtils.tryGetLoggedInUser()
-                .map(user -> new AuthenticatedUser(
-                            user.getUsername(),
-                            user.getAuthorities().stream()
-                                    .map(GrantedAuthority::getAuthority)
-                                    .collect(Collectors.toSet())))
+                .map(AuthController::toAuthenticatedUser)
                 .map(authenticatedUser -> ResponseEntity.ok().body(authenticatedUser))
                 .orElse(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
     }
 
+    // responds with one element per session id or token, in request order; null marks an invalid one. The request
+    // is validated before the body is streamed, since once it has started the status can no longer change
+    @PostMapping(
+            path = "/authenticate/batch",
+            consumes = { MediaType.APPLICATION_JSON_VALUE })
+    public ResponseEntity<StreamingResponseBody> getLoggedInUsers(@RequestBody List<String> sessionIdsOrTokens) {
+        if (sessionIdsOrTokens.size() > maxBatchSize
+                || sessionIdsOrTokens.stream().anyMatch(sessionIdOrToken -> sessionIdOrToken == null
+                        || sessionIdOrToken.isBlank())) {
+            return ResponseEntity.badRequest()
+                    .build();
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                generator.writeStartArray();
+                for (String sessionIdOrToken : sessionIdsOrTokens) {
+                    generator.writeObject(sessionIntrospectionService.tryGetUser(sessionIdOrToken)
+                            .map(AuthController::toAuthenticatedUser)
+                            .orElse(null));
+                }
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
     @PutMapping("/users/{username}/password")
-    public ResponseEntity<Void> updatePassword(
+    public CompletableFuture<ResponseEntity<Void>> updatePassword(
             @PathVariable String username,
             @RequestBody UpdatePasswordRequest request) {
-        userCredentialsService.updatePassword(username, request.getPassword());
+        return userCredentialsService.updatePassword(username, request.getPassword())
+                .thenApply(ignored -> ResponseEntity.ok()
+                        .build());
+    }
+
+    // one JSON object per line; pass the last username received as "after" to resume
+    @GetMapping(
+            path = "/users",
+            produces = { MediaType.APPLICATION_NDJSON_VALUE })
+    public ResponseEntity<StreamingResponseBody> getUsers(
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) UserAuthority authority,
+            @RequestParam(required = false) Long limit) {
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+                generator.setRootValueSeparator(null);
+                userListingService.forEachUser(after, authority, limit == null ? Long.MAX_VALUE : limit, user -> {
+                    try {
+                        generator.writeObject(user);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
         return ResponseEntity.ok()
-                .build();
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    // the body is read line by line as it arrives, so the import size is not bounded by memory
+    @PostMapping(
+            path = "/users/import",
+            consumes = { MediaType.APPLICATION_NDJSON_VALUE, textCsvValue })
+    public ResponseEntity<UserImportResult> importUsers(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) throws IOException {
+        UserImportService.Format format = contentType.isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? UserImportService.Format.NDJSON
+                : UserImportService.Format.CSV;
+        Charset charset = Optional.ofNullable(contentType.getCharset()).orElse(StandardCharsets.UTF_8);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, charset))) {
+            return ResponseEntity.ok()
+                    .body(userImportService.importUsers(reader, format));
+        }
     }
 
     @PutMapping("/users/{username}/authority")
@@ -69,4 +179,29 @@ public class AuthController {
         return ResponseEntity.ok()
                 .build();
     }
+
+    public static AuthenticatedUser toAuthenticatedUser(User user) {
+        return new AuthenticatedUser(
+                user.getUsername(),
+                user.getAuthorities().stream()
+                        .map(GrantedAuthority::getAuthority)
+                        .collect(Collectors.toSet()));
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<byte[]> handleFailedToUpdateUser(FailedToUpdateUserException e) {
+        return ErrorResponses.of(HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<byte[]> handleUsernameNotFound(UsernameNotFoundException e) {
+        return ErrorResponses.of(HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<Void> handlePasswordHashingRejected(PasswordHashingRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .build();
+    }
 }
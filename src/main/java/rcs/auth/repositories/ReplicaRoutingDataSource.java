@@ -0,0 +1,149 @@
+package rcs.auth.repositories;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to a replica, round robin, and everything else to the primary.
+ *
+ * Replicas are checked periodically; one that cannot be reached or whose lag query reports more than the
+ * tolerated lag is skipped until a later check finds it healthy again, and reads fall back to the primary when no
+ * replica is healthy. The read-only flag is only known once the transaction has started, so this must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which defers choosing a target until
+ * the first statement. Reads that must not miss a recent write can be sent to the primary with
+ * {@link #readFromPrimary(Supplier)}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    private static final String primaryKey = "primary";
+    private static final String replicaKeyPrefix = "replica-";
+
+    private static final ThreadLocal<Boolean> primaryRead = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final String lagQuery;
+    private final Duration maxLag;
+    private final AtomicIntegerArray healthy;
+    private final AtomicInteger next = new AtomicInteger();
+    private ScheduledExecutorService healthChecker;
+
+    /**
+     * @param lagQuery returns the replica's lag in seconds as a single number, e.g. from the replica's own
+     *                 heartbeat table; if empty, replicas are only checked for being reachable
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, String lagQuery, Duration maxLag) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+        this.healthy = new AtomicIntegerArray(replicas.size());
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(primaryKey, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(replicaKeyPrefix + i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    // the connection must not have been chosen yet, i.e. read must run the transaction's first statement
+    public static <T> T readFromPrimary(Supplier<T> read) {
+        Boolean previous = primaryRead.get();
+        primaryRead.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                primaryRead.remove();
+            }
+        }
+    }
+
+    public void startHealthChecks(Duration interval) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("replica-health-");
+        threadFactory.setDaemon(true);
+        healthChecker = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        healthChecker.scheduleWithFixedDelay(this::checkReplicas, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public void checkReplicas() {
+        for (int i = 0; i < replicas.size(); i++) {
+            boolean isHealthy = isHealthy(replicas.get(i));
+            if (healthy.getAndSet(i, isHealthy ? 1 : 0) == 1 != isHealthy) {
+                logger.warn("Replica " + i + (isHealthy ? " is healthy again" : " is unhealthy, reading from primary"));
+            }
+        }
+    }
+
+    private boolean isHealthy(DataSource replica) {
+        try (Connection connection = replica.getConnection()) {
+            if (lagQuery.isEmpty()) {
+                return connection.isValid(1);
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                return resultSet.next() && resultSet.getDouble(1) <= maxLag.toSeconds() && !resultSet.wasNull();
+            }
+        } catch (SQLException e) {
+            logger.debug("Replica health check failed", e);
+            return false;
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || primaryRead.get() != null) {
+            return primaryKey;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            int candidate = (start + i) % replicas.size();
+            if (healthy.get(candidate) == 1) {
+                return replicaKeyPrefix + candidate;
+            }
+        }
+        return primaryKey;
+    }
+
+    @Override
+    public void close() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+        for (DataSource dataSource : replicas) {
+            closeQuietly(dataSource);
+        }
+        closeQuietly(primary);
+    }
+
+    private void closeQuietly(DataSource dataSource) {
+        if (dataSource instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                logger.warn("Failed to close data source", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package rcs.auth.repositories;
+
+import org.springframework.data.repository.CrudRepository;
+import rcs.auth.repositories.models.UserCredentialsChange;
+
+public interface UserCredentialsChangeRepository
+        extends CrudRepository<UserCredentialsChange, Long>, UserCredentialsChangeRepositoryCustom {
+}
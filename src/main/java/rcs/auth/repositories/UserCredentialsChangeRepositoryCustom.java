@@ -0,0 +1,14 @@
+package rcs.auth.repositories;
+
+import rcs.auth.repositories.models.UserCredentialsChange;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface UserCredentialsChangeRepositoryCustom {
+
+    void insertAll(List<UserCredentialsChange> changes);
+    int forEachChangeAfter(long afterId, int limit, Consumer<UserCredentialsChange> action);
+    int deleteChangedBefore(Instant before);
+}
@@ -0,0 +1,102 @@
+package rcs.auth.repositories;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+import rcs.auth.repositories.models.UserCredentialsChange;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+@Repository
+public class UserCredentialsChangeRepositoryImpl implements UserCredentialsChangeRepositoryCustom {
+
+    private static final String insertSql =
+            "insert into " + UserCredentialsChange.tableName +
+                    " (" + UserCredentialsChange.Fields.username +
+                    ", " + UserCredentialsChange.Fields.changeType +
+                    ", " + UserCredentialsChange.Fields.node +
+                    ", " + UserCredentialsChange.Fields.changedAt +
+                    ", " + UserCredentialsChange.Fields.tokenId + ")" +
+                    " values (:" + UserCredentialsChange.Fields.username +
+                    ", :" + UserCredentialsChange.Fields.changeType +
+                    ", :" + UserCredentialsChange.Fields.node +
+                    ", :" + UserCredentialsChange.Fields.changedAt +
+                    ", :" + UserCredentialsChange.Fields.tokenId + ")";
+
+    private static final String afterIdParameter = "afterId";
+    private static final String limitParameter = "limit";
+    private static final String beforeParameter = "before";
+
+    // a range scan of the primary key
+    private static final String listChangesSql =
+            "select " + UserCredentialsChange.Fields.id +
+                    ", " + UserCredentialsChange.Fields.username +
+                    ", " + UserCredentialsChange.Fields.changeType +
+                    ", " + UserCredentialsChange.Fields.node +
+                    ", " + UserCredentialsChange.Fields.changedAt +
+                    ", " + UserCredentialsChange.Fields.tokenId +
+                    " from " + UserCredentialsChange.tableName +
+                    " where " + UserCredentialsChange.Fields.id + " > :" + afterIdParameter +
+                    " order by " + UserCredentialsChange.Fields.id +
+                    " limit :" + limitParameter;
+
+    private static final String deleteSql =
+            "delete from " + UserCredentialsChange.tableName +
+                    " where " + UserCredentialsChange.Fields.changedAt + " < :" + beforeParameter;
+
+    private NamedParameterJdbcTemplate template;
+
+    public UserCredentialsChangeRepositoryImpl(JdbcTemplate template) {
+        this.template = new NamedParameterJdbcTemplate(template);
+    }
+
+    // sent as a single JDBC batch, in the caller's transaction
+    @Override
+    public void insertAll(List<UserCredentialsChange> changes) {
+        template.batchUpdate(
+                insertSql,
+                changes.stream()
+                        .map(this::toParameters)
+                        .toArray(SqlParameterSource[]::new));
+    }
+
+    @Override
+    public int forEachChangeAfter(long afterId, int limit, Consumer<UserCredentialsChange> action) {
+        int[] count = { 0 };
+        template.query(
+                listChangesSql,
+                new MapSqlParameterSource()
+                        .addValue(afterIdParameter, afterId)
+                        .addValue(limitParameter, limit),
+                resultSet -> {
+                    action.accept(new UserCredentialsChange(
+                            resultSet.getLong(UserCredentialsChange.Fields.id),
+                            resultSet.getString(UserCredentialsChange.Fields.username),
+                            resultSet.getString(UserCredentialsChange.Fields.changeType),
+                            resultSet.getString(UserCredentialsChange.Fields.node),
+                            resultSet.getTimestamp(UserCredentialsChange.Fields.changedAt).toInstant(),
+                            resultSet.getString(UserCredentialsChange.Fields.tokenId)));
+                    count[0]++;
+                });
+        return count[0];
+    }
+
+    @Override
+    public int deleteChangedBefore(Instant before) {
+        return template.update(deleteSql, new MapSqlParameterSource(beforeParameter, Timestamp.from(before)));
+    }
+
+    private SqlParameterSource toParameters(UserCredentialsChange change) {
+        return new MapSqlParameterSource()
+                .addValue(UserCredentialsChange.Fields.username, change.getUsername())
+                .addValue(UserCredentialsChange.Fields.changeType, change.getChangeType())
+                .addValue(UserCredentialsChange.Fields.node, change.getNode())
+                .addValue(UserCredentialsChange.Fields.changedAt, Timestamp.from(change.getChangedAt()))
+                .addValue(UserCredentialsChange.Fields.tokenId, change.getTokenId());
+    }
+}
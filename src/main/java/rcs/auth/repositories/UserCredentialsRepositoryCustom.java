@@ -1,9 +1,21 @@
 package rcs.auth.repositories;
 
 import rcs.auth.api.models.UserAuthority;
+import rcs.auth.repositories.models.UserCredentials;
+import rcs.auth.repositories.models.UserSummary;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface UserCredentialsRepositoryCustom {
 
     boolean updatePassword(String username, String encodedPassword);
     boolean updateAuthority(String username, UserAuthority authority);
+    Set<String> findExistingUsernames(Collection<String> usernames);
+    void insertAll(List<UserCredentials> credentials);
+    boolean insert(UserCredentials credentials);
+    boolean deleteUser(String username);
+    int forEachUser(String afterUsername, UserAuthority authority, int limit, Consumer<UserSummary> action);
 }
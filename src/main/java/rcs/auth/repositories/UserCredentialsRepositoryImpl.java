@@ -1,11 +1,24 @@
 package rcs.auth.repositories;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.stereotype.Repository;
 import rcs.auth.api.models.UserAuthority;
 import rcs.auth.repositories.models.UserCredentials;
+import rcs.auth.repositories.models.UserSummary;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Repository
 public class UserCredentialsRepositoryImpl implements UserCredentialsRepositoryCustom {
@@ -14,39 +27,155 @@ public class UserCredentialsRepositoryImpl implements UserCredentialsRepositoryC
             UserAuthority.USER, 0,
             UserAuthority.ADMIN, 1);
 
-    private JdbcTemplate template;
+    private static final Map<Integer, UserAuthority> dbValueToAuthority = authorityToDbValue.keySet().stream()
+            .collect(Collectors.toMap(authorityToDbValue::get, Function.identity()));
 
-    public UserCredentialsRepositoryImpl(JdbcTemplate template) {
-        this.template = template;
+    // constant statements let the driver and the database reuse their prepared form across calls
+    private static final String updatePasswordSql = updateSql(UserCredentials.Fields.password);
+    private static final String updateAuthoritySql = updateSql(UserCredentials.Fields.authority);
+
+    private static final String findExistingUsernamesSql =
+            "select " + UserCredentials.Fields.username + " from " + UserCredentials.tableName +
+                    " where " + UserCredentials.Fields.username + " in (:" + UserCredentials.Fields.username + ")";
+
+    private static final String insertSql =
+            "insert into " + UserCredentials.tableName +
+                    " (" + UserCredentials.Fields.username +
+                    ", " + UserCredentials.Fields.password +
+                    ", " + UserCredentials.Fields.authority + ")" +
+                    " values (:" + UserCredentials.Fields.username +
+                    ", :" + UserCredentials.Fields.password +
+                    ", :" + UserCredentials.Fields.authority + ")";
+
+    private static final String deleteSql =
+            "delete from " + UserCredentials.tableName +
+                    " where " + UserCredentials.Fields.username + " = :" + UserCredentials.Fields.username;
+
+    private static final String afterUsernameParameter = "afterUsername";
+    private static final String limitParameter = "limit";
+
+    // keyset pagination: each page starts after the last username of the previous one, using the primary key index
+    private static final String listUsersSql = listUsersSql(false);
+    private static final String listUsersWithAuthoritySql = listUsersSql(true);
+
+    private NamedParameterJdbcTemplate template;
+    private NamedParameterJdbcTemplate listingTemplate;
+
+    public UserCredentialsRepositoryImpl(
+            JdbcTemplate template,
+            @Value("${auth.user-listing.fetch-size:500}") int listingFetchSize) {
+        this.template = new NamedParameterJdbcTemplate(template);
+
+        // a fetch size lets the driver stream the rows of a page rather than materializing all of them
+        JdbcTemplate listingJdbcTemplate = new JdbcTemplate(template.getDataSource());
+        listingJdbcTemplate.setFetchSize(listingFetchSize);
+        this.listingTemplate = new NamedParameterJdbcTemplate(listingJdbcTemplate);
     }
 
     @Override
     public boolean updatePassword(String username, String encodedPassword) {
         return updateSuccessful(
                 template.update(
-                        updateQuery(
-                                username,
-                                UserCredentials.Fields.password,
-                                encodedPassword)));
+                        updatePasswordSql,
+                        new MapSqlParameterSource()
+                                .addValue(UserCredentials.Fields.username, username)
+                                .addValue(UserCredentials.Fields.password, encodedPassword)));
     }
 
     @Override
     public boolean updateAuthority(String username, UserAuthority authority) {
         return updateSuccessful(
                 template.update(
-                        updateQuery(
-                                username,
-                                UserCredentials.Fields.authority,
-                                authorityToDbValue.get(authority))));
-    }
-
-    private String updateQuery(String username, String field, Object newValue) {
-        return "update ${table} c set c.${fieldToUpdate} = '${newValue}' where c.${fieldToMatch} = '${valueToMatch}'"
-                .replace("${table}", UserCredentials.tableName)
-                .replace("${fieldToUpdate}", field)
-                .replace("${newValue}", newValue.toString())
-                .replace("${fieldToMatch}", UserCredentials.Fields.username)
-                .replace("${valueToMatch}", username);
+                        updateAuthoritySql,
+                        new MapSqlParameterSource()
+                                .addValue(UserCredentials.Fields.username, username)
+                                .addValue(UserCredentials.Fields.authority, authorityToDbValue.get(authority))));
+    }
+
+    @Override
+    public Set<String> findExistingUsernames(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(
+                template.queryForList(
+                        findExistingUsernamesSql,
+                        new MapSqlParameterSource(UserCredentials.Fields.username, usernames),
+                        String.class));
+    }
+
+    // sent as a single JDBC batch; fails as a whole if any username is taken
+    @Override
+    public void insertAll(List<UserCredentials> credentials) {
+        template.batchUpdate(
+                insertSql,
+                credentials.stream()
+                        .map(this::toParameters)
+                        .toArray(SqlParameterSource[]::new));
+    }
+
+    @Override
+    public boolean insert(UserCredentials credentials) {
+        try {
+            return updateSuccessful(template.update(insertSql, toParameters(credentials)));
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    // unlike deleteById, does not load the entity first
+    @Override
+    public boolean deleteUser(String username) {
+        return updateSuccessful(
+                template.update(
+                        deleteSql,
+                        new MapSqlParameterSource(UserCredentials.Fields.username, username)));
+    }
+
+    @Override
+    public int forEachUser(String afterUsername, UserAuthority authority, int limit, Consumer<UserSummary> action) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue(afterUsernameParameter, afterUsername == null ? "" : afterUsername)
+                .addValue(limitParameter, limit);
+        if (authority != null) {
+            parameters.addValue(UserCredentials.Fields.authority, authorityToDbValue.get(authority));
+        }
+
+        int[] count = { 0 };
+        listingTemplate.query(
+                authority == null ? listUsersSql : listUsersWithAuthoritySql,
+                parameters,
+                resultSet -> {
+                    action.accept(new UserSummary(
+                            resultSet.getString(UserCredentials.Fields.username),
+                            dbValueToAuthority.get(resultSet.getInt(UserCredentials.Fields.authority))));
+                    count[0]++;
+                });
+        return count[0];
+    }
+
+    private SqlParameterSource toParameters(UserCredentials credentials) {
+        return new MapSqlParameterSource()
+                .addValue(UserCredentials.Fields.username, credentials.getUsername())
+                .addValue(UserCredentials.Fields.password, credentials.getPassword())
+                .addValue(UserCredentials.Fields.authority, authorityToDbValue.get(credentials.getAuthority()));
+    }
+
+    private static String updateSql(String field) {
+        return "update " + UserCredentials.tableName +
+                " set " + field + " = :" + field +
+                " where " + UserCredentials.Fields.username + " = :" + UserCredentials.Fields.username;
+    }
+
+    private static String listUsersSql(boolean filterByAuthority) {
+        return "select " + UserCredentials.Fields.username + ", " + UserCredentials.Fields.authority +
+                " from " + UserCredentials.tableName +
+                " where " + UserCredentials.Fields.username + " > :" + afterUsernameParameter +
+                (filterByAuthority
+                        ? " and " + UserCredentials.Fields.authority + " = :" + UserCredentials.Fields.authority
+                        : "") +
+                " order by " + UserCredentials.Fields.username +
+                " limit :" + limitParameter;
     }
 
     private boolean updateSuccessful(int updateCount) {
@@ -0,0 +1,71 @@
+package rcs.auth.repositories.models;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.validator.constraints.Length;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.Instant;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@Entity
+@Table(
+        name = UserCredentialsChange.tableName,
+        indexes = @Index(name = "changed_at_index", columnList = UserCredentialsChange.Fields.changedAt))
+public class UserCredentialsChange {
+
+    public static final String tableName = "user_credentials_changes";
+
+    // a logout that revoked one access token, rather than a change to the user
+    public static final String tokenRevoked = "TOKEN_REVOKED";
+
+    public static final class Fields {
+        public static final String id = "id";
+        public static final String username = "username";
+        public static final String changeType = "change_type";
+        public static final String node = "node";
+        public static final String changedAt = "changed_at";
+        public static final String tokenId = "token_id";
+    }
+
+    // increasing in the order that rows are inserted, which is not quite the order that they are committed in
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Length(max = 32)
+    private String username;
+
+    // the name of a UserCredentialsChangedEvent.Change, or of tokenRevoked
+    @Column(name = Fields.changeType)
+    @Length(max = 32)
+    private String changeType;
+
+    // the node that made the change
+    @Length(max = 36)
+    private String node;
+
+    // named explicitly, for the index to refer to
+    @Column(name = Fields.changedAt)
+    private Instant changedAt;
+
+    // only for tokenRevoked
+    @Column(name = Fields.tokenId)
+    @Length(max = 36)
+    private String tokenId;
+
+    public UserCredentialsChange(Long id, String username, String changeType, String node, Instant changedAt) {
+        this(id, username, changeType, node, changedAt, null);
+    }
+}
@@ -0,0 +1,16 @@
+package rcs.auth.repositories.models;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import rcs.auth.api.models.UserAuthority;
+
+// everything about a user except the password hash
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+public class UserSummary {
+
+    private String username;
+    private UserAuthority authority;
+}
@@ -0,0 +1,48 @@
+package rcs.auth.security;
+
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.Transient;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import rcs.auth.tokens.VerifiedAccessToken;
+
+import java.util.stream.Collectors;
+
+// @Transient keeps token authentications out of the http session
+@Transient
+public class AccessTokenAuthentication extends AbstractAuthenticationToken {
+
+    private final User principal;
+    private final VerifiedAccessToken token;
+
+    public static AccessTokenAuthentication of(VerifiedAccessToken token) {
+        User principal = new UserPrincipal(
+                token.username(),
+                "",
+                token.roles().stream()
+                        .map(SimpleGrantedAuthority::new)
+                        .collect(Collectors.toList()));
+        return new AccessTokenAuthentication(principal, token);
+    }
+
+    public AccessTokenAuthentication(User principal, VerifiedAccessToken token) {
+        super(principal.getAuthorities());
+        this.principal = principal;
+        this.token = token;
+        setAuthenticated(true);
+    }
+
+    @Override
+    public Object getCredentials() {
+        return "";
+    }
+
+    @Override
+    public User getPrincipal() {
+        return principal;
+    }
+
+    public VerifiedAccessToken getToken() {
+        return token;
+    }
+}
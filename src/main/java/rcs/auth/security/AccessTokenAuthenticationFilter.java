@@ -0,0 +1,46 @@
+package rcs.auth.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import rcs.auth.tokens.AccessTokenVerifier;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Optional;
+
+public class AccessTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String bearerPrefix = "Bearer ";
+
+    private final AccessTokenVerifier verifier;
+
+    public AccessTokenAuthenticationFilter(AccessTokenVerifier verifier) {
+        this.verifier = verifier;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain chain) throws ServletException, IOException {
+
+        tryGetBearerToken(request)
+                .flatMap(verifier::verify)
+                .map(AccessTokenAuthentication::of)
+                .ifPresent(authentication -> SecurityContextHolder.getContext().setAuthentication(authentication));
+
+        chain.doFilter(request, response);
+    }
+
+    public static Optional<String> tryGetBearerToken(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.startsWith(bearerPrefix)) {
+            return Optional.of(header.substring(bearerPrefix.length()));
+        }
+        return Optional.empty();
+    }
+}
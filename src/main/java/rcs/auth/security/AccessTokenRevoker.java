@@ -0,0 +1,47 @@
+package rcs.auth.security;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.logout.LogoutHandler;
+import rcs.auth.services.UserCredentialsChangeLog;
+import rcs.auth.services.UserCredentialsChangedEvent;
+import rcs.auth.tokens.AccessTokenVerifier;
+import rcs.auth.tokens.TokenRevocationList;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+public class AccessTokenRevoker implements LogoutHandler {
+
+    private final AccessTokenVerifier verifier;
+    private final TokenRevocationList revocationList;
+    private final UserCredentialsChangeLog changeLog;
+
+    public AccessTokenRevoker(
+            AccessTokenVerifier verifier,
+            TokenRevocationList revocationList,
+            UserCredentialsChangeLog changeLog) {
+        this.verifier = verifier;
+        this.revocationList = revocationList;
+        this.changeLog = changeLog;
+    }
+
+    // here at once, and on the other nodes once they read the change log
+
+    @Override
+    public void logout(HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
+        AccessTokenAuthenticationFilter.tryGetBearerToken(request)
+                .flatMap(verifier::verify)
+                .ifPresent(token -> {
+                    revocationList.revokeToken(token.tokenId());
+                    changeLog.appendTokenRevocation(token.username(), token.tokenId());
+                });
+    }
+
+    @EventListener
+    public void onUserCredentialsChanged(UserCredentialsChangedEvent event) {
+        if (event.getChange() != UserCredentialsChangedEvent.Change.CREATED) {
+            revocationList.revokeUser(event.getUsername());
+        }
+    }
+}
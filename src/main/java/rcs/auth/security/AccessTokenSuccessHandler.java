@@ -0,0 +1,36 @@
+package rcs.auth.security;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
+import rcs.auth.tokens.AccessTokenIssuer;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.stream.Collectors;
+
+public class AccessTokenSuccessHandler implements AuthenticationSuccessHandler {
+
+    public static final String tokenHeader = "X-Auth-Token";
+
+    private final AccessTokenIssuer issuer;
+
+    public AccessTokenSuccessHandler(AccessTokenIssuer issuer) {
+        this.issuer = issuer;
+    }
+
+    @Override
+    public void onAuthenticationSuccess(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            Authentication authentication) {
+
+        String token = issuer.issue(
+                authentication.getName(),
+                authentication.getAuthorities().stream()
+                        .map(GrantedAuthority::getAuthority)
+                        .collect(Collectors.toSet()));
+
+        response.setHeader(tokenHeader, token);
+    }
+}
@@ -0,0 +1,92 @@
+package rcs.auth.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import rcs.auth.controllers.AuthController;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Answers GET /authenticate for authenticated users without dispatching to {@link AuthController}. The response is
+ * rendered with the application's object mapper, as the controller would, once per {@link UserPrincipal}; since a
+ * principal's authorities never change, a changed authority takes effect with the principal loaded on the next login,
+ * which renders its own response. Requests that don't accept JSON are left to the controller, which rejects them.
+ */
+public class AuthenticatedUserFilter extends OncePerRequestFilter {
+
+    private static final String path = "/authenticate";
+
+    private final RequestMatcher authenticateRequestMatcher = new AntPathRequestMatcher(path, "GET");
+    private final ObjectMapper objectMapper;
+
+    public AuthenticatedUserFilter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !authenticateRequestMatcher.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain chain) throws ServletException, IOException {
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null
+                || !(authentication.getPrincipal() instanceof User user)
+                || !acceptsJson(request.getHeader(HttpHeaders.ACCEPT))) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        byte[] body = render(user);
+
+        // so that http_server_requests is still tagged with the route rather than UNKNOWN
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, path);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private byte[] render(User user) throws IOException {
+        if (!(user instanceof UserPrincipal principal)) {
+            return objectMapper.writeValueAsBytes(AuthController.toAuthenticatedUser(user));
+        }
+        // rendering twice in a race is harmless, both render the same bytes
+        byte[] body = principal.getAuthenticatedUserJson();
+        if (body == null) {
+            body = objectMapper.writeValueAsBytes(AuthController.toAuthenticatedUser(principal));
+            principal.setAuthenticatedUserJson(body);
+        }
+        return body;
+    }
+
+    private static boolean acceptsJson(String accept) {
+        if (accept == null || accept.equals(MediaType.ALL_VALUE) || accept.equals(MediaType.APPLICATION_JSON_VALUE)) {
+            return true;
+        }
+        try {
+            return MediaType.parseMediaTypes(accept).stream()
+                    .anyMatch(mediaType -> mediaType.isCompatibleWith(MediaType.APPLICATION_JSON));
+        } catch (InvalidMediaTypeException e) {
+            // the controller answers a malformed header as it always has
+            return false;
+        }
+    }
+}
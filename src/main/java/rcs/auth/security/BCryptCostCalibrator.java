@@ -0,0 +1,48 @@
+package rcs.auth.security;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+public class BCryptCostCalibrator {
+
+    private static final String samplePassword = "calibration-sample-password";
+
+    private final long targetNanos;
+    private final int minCost;
+    private final int maxCost;
+    private final int samples;
+
+    public BCryptCostCalibrator(Duration targetVerifyTime, int minCost, int maxCost, int samples) {
+        this.targetNanos = targetVerifyTime.toNanos();
+        this.minCost = minCost;
+        this.maxCost = maxCost;
+        this.samples = samples;
+    }
+
+    // each cost step doubles the work, so stop as soon as the next step would exceed the target
+    public int calibrate() {
+        int cost = minCost;
+        long median = medianVerifyNanos(cost);
+        while (cost < maxCost && median * 2 <= targetNanos) {
+            cost++;
+            median = medianVerifyNanos(cost);
+        }
+        return cost;
+    }
+
+    long medianVerifyNanos(int cost) {
+        String hash = BCrypt.hashpw(samplePassword, BCrypt.gensalt(cost));
+        BCrypt.checkpw(samplePassword, hash); // warm up
+
+        long[] timings = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            BCrypt.checkpw(samplePassword, hash);
+            timings[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(timings);
+        return timings[samples / 2];
+    }
+}
@@ -1,21 +1,46 @@
 package rcs.auth.security;
 
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
 import org.springframework.stereotype.Component;
-import rcs.auth.utils.AuthUtils;
 
+/**
+ * Authorization rules for the routes of {@link rcs.auth.config.WebSecurityConfig}. The checks read the
+ * {@link Roles} bitset of the principal and allocate nothing, unlike access expressions, which are evaluated
+ * reflectively with a new evaluation context per request.
+ */
 @Component
 public class EndpointSecurity {
 
-    private AuthUtils authUtils;
+    private static final AuthorizationDecision granted = new AuthorizationDecision(true);
+    private static final AuthorizationDecision denied = new AuthorizationDecision(false);
 
-    public EndpointSecurity(AuthUtils authUtils) {
-        this.authUtils = authUtils;
+    private final AuthorizationManager<RequestAuthorizationContext> admin =
+            (authentication, context) -> decide(isAdmin(authentication.get()));
+
+    public AuthorizationManager<RequestAuthorizationContext> admin() {
+        return admin;
+    }
+
+    public AuthorizationManager<RequestAuthorizationContext> adminOrSelf(String usernameVariable) {
+        return (authentication, context) -> decide(
+                canUpdatePassword(authentication.get(), context.getVariables().get(usernameVariable)));
     }
 
     public boolean canUpdatePassword(Authentication authentication, String username) {
-        return authUtils.tryGetLoggedInUser(authentication)
-                .map(user -> authUtils.isAdmin(user) || user.getUsername().equals(username))
-                .orElse(false);
+        return authentication.getPrincipal() instanceof User user
+                && (Roles.isAdmin(UserPrincipal.rolesOf(user)) || user.getUsername().equals(username));
+    }
+
+    private static boolean isAdmin(Authentication authentication) {
+        return authentication.getPrincipal() instanceof User user
+                && Roles.isAdmin(UserPrincipal.rolesOf(user));
+    }
+
+    private static AuthorizationDecision decide(boolean granted) {
+        return granted ? EndpointSecurity.granted : denied;
     }
 }
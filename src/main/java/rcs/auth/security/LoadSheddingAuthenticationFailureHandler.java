@@ -0,0 +1,30 @@
+package rcs.auth.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import rcs.auth.exceptions.PasswordHashingRejectedException;
+import rcs.auth.utils.ErrorResponses;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+// failed and shed logins are the bulk of an attack's requests, so neither is dispatched again to the error controller
+public class LoadSheddingAuthenticationFailureHandler implements AuthenticationFailureHandler {
+
+    @Override
+    public void onAuthenticationFailure(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            AuthenticationException exception) throws IOException {
+
+        if (exception.getCause() instanceof PasswordHashingRejectedException rejection) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(rejection.getRetryAfterSeconds()));
+            ErrorResponses.write(response, HttpStatus.SERVICE_UNAVAILABLE);
+        } else {
+            ErrorResponses.write(response, HttpStatus.UNAUTHORIZED);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package rcs.auth.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Times form logins by outcome. Logins are handled inside the security filter chain, where the MVC request metrics
+ * cannot attribute them to an endpoint. A login that fails with an exception, whose status has not been set yet, is
+ * an error.
+ */
+public class LoginMetricsFilter extends OncePerRequestFilter {
+
+    private final RequestMatcher loginRequestMatcher = new AntPathRequestMatcher("/login", "POST");
+    private final MeterRegistry registry;
+
+    public LoginMetricsFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !loginRequestMatcher.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain chain) throws ServletException, IOException {
+
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "error";
+        try {
+            chain.doFilter(request, response);
+            outcome = outcome(response.getStatus());
+        } finally {
+            sample.stop(Timer.builder("auth.login")
+                    .description("Time to process a form login")
+                    .tag("outcome", outcome)
+                    .register(registry));
+        }
+    }
+
+    private static String outcome(int status) {
+        if (status == HttpStatus.SERVICE_UNAVAILABLE.value()) {
+            return "shed";
+        }
+        if (status == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            return "throttled";
+        }
+        return HttpStatus.valueOf(status).is2xxSuccessful() ? "success" : "failure";
+    }
+}
@@ -0,0 +1,137 @@
+package rcs.auth.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits login attempts per username and per client address with token buckets. A bucket that has been idle long
+ * enough to refill completely is indistinguishable from a new one, so buckets expire after that long; the number
+ * of buckets is bounded so that attempts from many addresses cannot exhaust memory.
+ *
+ * Only throttles once the application is ready, so that the warm-up's own logins are not counted.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.login-throttle.enabled", havingValue = "true", matchIfMissing = true)
+public class LoginThrottle implements MeterBinder {
+
+    // longer usernames cannot exist, see UserCredentials
+    private static final int maxUsernameLength = 32;
+
+    private final Limit usernameLimit;
+    private final Limit addressLimit;
+    private final LongSupplier nanoTime;
+
+    private volatile boolean active;
+
+    @Autowired
+    public LoginThrottle(
+            @Value("${auth.login-throttle.username.capacity:10}") long usernameCapacity,
+            @Value("${auth.login-throttle.username.per-minute:10}") long usernamePerMinute,
+            @Value("${auth.login-throttle.address.capacity:50}") long addressCapacity,
+            @Value("${auth.login-throttle.address.per-minute:300}") long addressPerMinute,
+            @Value("${auth.login-throttle.max-keys:100000}") long maxKeys) {
+        this(usernameCapacity, usernamePerMinute, addressCapacity, addressPerMinute, maxKeys, System::nanoTime);
+    }
+
+    LoginThrottle(
+            long usernameCapacity,
+            long usernamePerMinute,
+            long addressCapacity,
+            long addressPerMinute,
+            long maxKeys,
+            LongSupplier nanoTime) {
+        this.usernameLimit = new Limit(usernameCapacity, usernamePerMinute, maxKeys, nanoTime);
+        this.addressLimit = new Limit(addressCapacity, addressPerMinute, maxKeys, nanoTime);
+        this.nanoTime = nanoTime;
+    }
+
+    @EventListener
+    public void onReadinessChanged(AvailabilityChangeEvent<ReadinessState> event) {
+        active = event.getState() == ReadinessState.ACCEPTING_TRAFFIC;
+    }
+
+    void activate() {
+        active = true;
+    }
+
+    // empty if the attempt may proceed, otherwise how long until it would be allowed
+    public Optional<Duration> tryAcquire(String username, String address) {
+        if (!active) {
+            return Optional.empty();
+        }
+        long now = nanoTime.getAsLong();
+        long waitNanos = addressLimit.tryTake(address, now);
+        if (waitNanos == 0 && username != null) {
+            waitNanos = usernameLimit.tryTake(usernameKey(username), now);
+        }
+        return waitNanos == 0 ? Optional.empty() : Optional.of(Duration.ofNanos(waitNanos));
+    }
+
+    // MySQL compares usernames case-insensitively
+    private static String usernameKey(String username) {
+        String key = username.length() > maxUsernameLength ? username.substring(0, maxUsernameLength) : username;
+        return key.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        usernameLimit.bindTo(registry, "username");
+        addressLimit.bindTo(registry, "address");
+    }
+
+    private static class Limit {
+
+        private final long capacity;
+        private final long nanosPerToken;
+        private final Cache<String, TokenBucket> buckets;
+        private final LongAdder throttled = new LongAdder();
+
+        Limit(long capacity, long perMinute, long maxKeys, LongSupplier nanoTime) {
+            this.capacity = capacity;
+            this.nanosPerToken = TimeUnit.MINUTES.toNanos(1) / perMinute;
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxKeys)
+                    .expireAfterAccess(Duration.ofNanos(nanosPerToken * capacity))
+                    .ticker(nanoTime::getAsLong)
+                    .build();
+        }
+
+        long tryTake(String key, long now) {
+            long waitNanos = buckets.get(key, ignored -> new TokenBucket(now))
+                    .tryTake(now, nanosPerToken, capacity);
+            if (waitNanos > 0) {
+                throttled.increment();
+            }
+            return waitNanos;
+        }
+
+        void bindTo(MeterRegistry registry, String key) {
+            FunctionCounter.builder("auth.login.throttled", throttled, LongAdder::sum)
+                    .description("Login attempts rejected before authentication because of too many attempts")
+                    .tag("key", key)
+                    .register(registry);
+            Gauge.builder("auth.login.throttle.buckets", buckets, Cache::estimatedSize)
+                    .description("Usernames or client addresses with recent login attempts")
+                    .tag("key", key)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package rcs.auth.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import rcs.auth.utils.ErrorResponses;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Rejects form logins over the limits of the login throttle before the user is loaded or any password is hashed.
+ * Behind a proxy, the client address is only right with server.forward-headers-strategy set.
+ */
+public class LoginThrottlingFilter extends OncePerRequestFilter {
+
+    private final RequestMatcher loginRequestMatcher = new AntPathRequestMatcher("/login", "POST");
+    private final LoginThrottle throttle;
+
+    public LoginThrottlingFilter(LoginThrottle throttle) {
+        this.throttle = throttle;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !loginRequestMatcher.matches(request);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain chain) throws ServletException, IOException {
+
+        Optional<Duration> wait = throttle.tryAcquire(
+                request.getParameter(UsernamePasswordAuthenticationFilter.SPRING_SECURITY_FORM_USERNAME_KEY),
+                request.getRemoteAddr());
+        if (wait.isPresent()) {
+            // rounded up, so that a client retrying after that long is allowed
+            long retryAfterSeconds = wait.get().plusSeconds(1).minusNanos(1).toSeconds();
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            ErrorResponses.write(response, HttpStatus.TOO_MANY_REQUESTS);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
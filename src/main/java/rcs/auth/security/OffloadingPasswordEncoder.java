@@ -0,0 +1,43 @@
+package rcs.auth.security;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import rcs.auth.exceptions.PasswordHashingRejectedException;
+import rcs.auth.services.PasswordHashingExecutor;
+
+import java.util.function.Supplier;
+
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final PasswordHashingExecutor executor;
+
+    public OffloadingPasswordEncoder(PasswordEncoder delegate, PasswordHashingExecutor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T run(Supplier<T> task) {
+        try {
+            return executor.run(task);
+        } catch (PasswordHashingRejectedException e) {
+            // surfaces through the authentication failure handler instead of the error page
+            throw new AuthenticationServiceException(e.getMessage(), e);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
+import rcs.auth.utils.ErrorResponses;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -18,6 +19,7 @@ public final class RestAuthenticationEntryPoint implements AuthenticationEntryPo
             HttpServletResponse response,
             AuthenticationException exception) throws IOException {
 
-        response.sendError(HttpStatus.UNAUTHORIZED.value(), exception.getMessage());
+        // written directly rather than with sendError, which would dispatch again to the error controller
+        ErrorResponses.write(response, HttpStatus.UNAUTHORIZED);
     }
 }
@@ -0,0 +1,80 @@
+package rcs.auth.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import rcs.auth.api.models.UserAuthority;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The roles of a user as a bitset, with one bit per role that any {@link UserAuthority} grants. The bitset and the
+ * granted authorities of each {@link UserAuthority} are computed once, so that authorization checks only compare
+ * longs.
+ */
+public final class Roles {
+
+    private static final List<String> names = Arrays.stream(UserAuthority.values())
+            .map(UserAuthority::getRoles)
+            .flatMap(Set::stream)
+            .distinct()
+            .sorted()
+            .collect(Collectors.toUnmodifiableList());
+
+    private static final long[] bitsByAuthority = Arrays.stream(UserAuthority.values())
+            .mapToLong(authority -> bitsOf(authority.getRoles()))
+            .toArray();
+
+    private static final List<List<GrantedAuthority>> authoritiesByAuthority = Arrays.stream(UserAuthority.values())
+            .map(authority -> authority.getRoles().stream()
+                    .sorted()
+                    .<GrantedAuthority>map(SimpleGrantedAuthority::new)
+                    .collect(Collectors.toUnmodifiableList()))
+            .collect(Collectors.toUnmodifiableList());
+
+    public static final long admin = bit("ADMIN");
+
+    private Roles() { }
+
+    public static long of(UserAuthority authority) {
+        return bitsByAuthority[authority.ordinal()];
+    }
+
+    // roles that no UserAuthority grants have no bit and are ignored
+    public static long of(Collection<? extends GrantedAuthority> authorities) {
+        long bits = 0;
+        for (GrantedAuthority authority : authorities) {
+            bits |= bit(authority.getAuthority());
+        }
+        return bits;
+    }
+
+    public static List<GrantedAuthority> authoritiesOf(UserAuthority authority) {
+        return authoritiesByAuthority.get(authority.ordinal());
+    }
+
+    // in bit order, so that a bitset written by one version of the roles can be read by another
+    public static List<String> names() {
+        return names;
+    }
+
+    public static boolean isAdmin(long roles) {
+        return (roles & admin) != 0;
+    }
+
+    private static long bitsOf(Set<String> roles) {
+        long bits = 0;
+        for (String role : roles) {
+            bits |= bit(role);
+        }
+        return bits;
+    }
+
+    private static long bit(String role) {
+        int index = names.indexOf(role);
+        return index < 0 ? 0 : 1L << index;
+    }
+}
@@ -0,0 +1,137 @@
+package rcs.auth.security;
+
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.Transient;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.web.authentication.logout.LogoutHandler;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+import org.springframework.security.web.context.SaveContextOnUpdateOrErrorResponseWrapper;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.web.util.WebUtils;
+import rcs.auth.sessions.SessionStore;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Keeps the security context of logged in users in the {@link SessionStore}, identified by the session cookie,
+ * instead of in the servlet container's session. A login creates a new session, even if the request had one, and
+ * logging out invalidates it. Token authentications are {@link Transient} and never stored.
+ *
+ * The cookie has the container's default name, so that clients' existing cookies keep working.
+ */
+public class SessionStoreSecurityContextRepository implements SecurityContextRepository, LogoutHandler {
+
+    public static final String cookieName = "JSESSIONID";
+
+    private static final String loadedAuthenticationAttribute =
+            SessionStoreSecurityContextRepository.class.getName() + ".LOADED_AUTHENTICATION";
+
+    private final SessionStore sessionStore;
+    private final boolean allowSessionCreation;
+
+    public SessionStoreSecurityContextRepository(SessionStore sessionStore, boolean allowSessionCreation) {
+        this.sessionStore = sessionStore;
+        this.allowSessionCreation = allowSessionCreation;
+    }
+
+    @Override
+    public SecurityContext loadContext(HttpRequestResponseHolder requestResponseHolder) {
+        HttpServletRequest request = requestResponseHolder.getRequest();
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        String sessionId = tryGetSessionId(request);
+        if (sessionId != null) {
+            sessionStore.access(sessionId).ifPresent(principal -> {
+                Authentication authentication =
+                        new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+                context.setAuthentication(authentication);
+                request.setAttribute(loadedAuthenticationAttribute, authentication);
+            });
+        }
+        if (allowSessionCreation) {
+            // so that a login is saved before its response is committed
+            requestResponseHolder.setResponse(new SaveOnCommitResponseWrapper(requestResponseHolder.getResponse(), request));
+        }
+        return context;
+    }
+
+    @Override
+    public void saveContext(SecurityContext context, HttpServletRequest request, HttpServletResponse response) {
+        if (response instanceof SaveOnCommitResponseWrapper wrapper) {
+            if (!wrapper.isContextSaved()) {
+                save(context, request, response);
+            }
+        } else if (allowSessionCreation) {
+            save(context, request, response);
+        }
+    }
+
+    @Override
+    public boolean containsContext(HttpServletRequest request) {
+        String sessionId = tryGetSessionId(request);
+        return sessionId != null && sessionStore.find(sessionId).isPresent();
+    }
+
+    @Override
+    public void logout(HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
+        String sessionId = tryGetSessionId(request);
+        if (sessionId != null) {
+            sessionStore.invalidate(sessionId);
+        }
+    }
+
+    private void save(SecurityContext context, HttpServletRequest request, HttpServletResponse response) {
+        Authentication authentication = context.getAuthentication();
+        if (authentication == null
+                || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken
+                || AnnotationUtils.getAnnotation(authentication.getClass(), Transient.class) != null
+                || authentication == request.getAttribute(loadedAuthenticationAttribute)
+                || !(authentication.getPrincipal() instanceof User user)) {
+            return;
+        }
+
+        // a new id on every login, so that an id known before the login cannot be used after it
+        String previousSessionId = tryGetSessionId(request);
+        if (previousSessionId != null) {
+            sessionStore.invalidate(previousSessionId);
+        }
+
+        String sessionId = sessionStore.create(user);
+        request.setAttribute(loadedAuthenticationAttribute, authentication);
+        response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(cookieName, sessionId)
+                .path(request.getContextPath().isEmpty() ? "/" : request.getContextPath())
+                .secure(request.isSecure())
+                .httpOnly(true)
+                .build()
+                .toString());
+    }
+
+    private static String tryGetSessionId(HttpServletRequest request) {
+        Cookie cookie = WebUtils.getCookie(request, cookieName);
+        return cookie == null ? null : cookie.getValue();
+    }
+
+    private class SaveOnCommitResponseWrapper extends SaveContextOnUpdateOrErrorResponseWrapper {
+
+        private final HttpServletRequest request;
+
+        SaveOnCommitResponseWrapper(HttpServletResponse response, HttpServletRequest request) {
+            super(response, true);
+            this.request = request;
+        }
+
+        @Override
+        protected void saveContext(SecurityContext context) {
+            save(context, request, this);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package rcs.auth.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket kept as a single timestamp, the time at which the bucket would be full again (the generic cell rate
+ * algorithm), so that taking a token is one compare-and-set rather than a lock.
+ */
+class TokenBucket {
+
+    private final AtomicLong fullAtNanos;
+
+    TokenBucket(long nowNanos) {
+        this.fullAtNanos = new AtomicLong(nowNanos);
+    }
+
+    // returns 0 if a token was taken, otherwise how long until the next one is available
+    long tryTake(long nowNanos, long nanosPerToken, long capacity) {
+        long maxDebtNanos = nanosPerToken * capacity;
+        while (true) {
+            long fullAt = fullAtNanos.get();
+            long newFullAt = Math.max(fullAt, nowNanos) + nanosPerToken;
+            long debtNanos = newFullAt - nowNanos;
+            if (debtNanos > maxDebtNanos) {
+                return debtNanos - maxDebtNanos;
+            }
+            if (fullAtNanos.compareAndSet(fullAt, newFullAt)) {
+                return 0;
+            }
+        }
+    }
+}
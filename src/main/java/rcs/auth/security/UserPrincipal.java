@@ -0,0 +1,63 @@
+package rcs.auth.security;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import rcs.auth.api.models.UserAuthority;
+
+import java.util.Collection;
+
+/**
+ * A {@link User} that carries its {@link Roles} bitset, so that authorization checks don't iterate its authorities.
+ */
+public class UserPrincipal extends User {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long roles;
+
+    // the GET /authenticate response, rendered on first use and not kept with the session
+    private transient volatile byte[] authenticatedUserJson;
+
+    public UserPrincipal(String username, String password, UserAuthority authority) {
+        super(username, password, Roles.authoritiesOf(authority));
+        this.roles = Roles.of(authority);
+    }
+
+    public UserPrincipal(String username, String password, Collection<? extends GrantedAuthority> authorities) {
+        this(username, password, authorities, Roles.of(authorities));
+    }
+
+    private UserPrincipal(
+            String username,
+            String password,
+            Collection<? extends GrantedAuthority> authorities,
+            long roles) {
+
+        super(username, password, authorities);
+        this.roles = roles;
+    }
+
+    public static UserPrincipal withPassword(UserDetails user, String password) {
+        return new UserPrincipal(user.getUsername(), password, user.getAuthorities(), rolesOf(user));
+    }
+
+    // principals of sessions created before this class existed are plain users
+    public static long rolesOf(UserDetails user) {
+        return user instanceof UserPrincipal principal
+                ? principal.roles
+                : Roles.of(user.getAuthorities());
+    }
+
+    public long getRoles() {
+        return roles;
+    }
+
+    public byte[] getAuthenticatedUserJson() {
+        return authenticatedUserJson;
+    }
+
+    public void setAuthenticatedUserJson(byte[] authenticatedUserJson) {
+        this.authenticatedUserJson = authenticatedUserJson;
+    }
+}
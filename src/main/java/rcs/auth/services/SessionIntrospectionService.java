@@ -0,0 +1,38 @@
+package rcs.auth.services;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.stereotype.Service;
+import rcs.auth.security.AccessTokenAuthentication;
+import rcs.auth.sessions.SessionStore;
+import rcs.auth.tokens.AccessTokenVerifier;
+
+import java.util.Optional;
+
+@Service
+public class SessionIntrospectionService {
+
+    private SessionStore sessionStore;
+    private ObjectProvider<AccessTokenVerifier> accessTokenVerifier;
+
+    public SessionIntrospectionService(
+            SessionStore sessionStore,
+            ObjectProvider<AccessTokenVerifier> accessTokenVerifier) {
+        this.sessionStore = sessionStore;
+        this.accessTokenVerifier = accessTokenVerifier;
+    }
+
+    public Optional<User> tryGetUser(String sessionIdOrToken) {
+        AccessTokenVerifier verifier = accessTokenVerifier.getIfAvailable();
+        if (verifier != null) {
+            Optional<User> tokenUser = verifier.verify(sessionIdOrToken)
+                    .map(token -> AccessTokenAuthentication.of(token).getPrincipal());
+            if (tokenUser.isPresent()) {
+                return tokenUser;
+            }
+        }
+
+        // extends the session, like GET /authenticate, which gateways call this instead of
+        return sessionStore.access(sessionIdOrToken).map(User.class::cast);
+    }
+}
@@ -0,0 +1,212 @@
+package rcs.auth.services;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+import rcs.auth.repositories.ReplicaRoutingDataSource;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs before the application reports itself ready to accept traffic, see /actuator/health/readiness.
+ *
+ * Opens the minimum number of connections of every pool, loads the users that were most active before the last
+ * shutdown into the user details cache, and sends synthetic requests through the security filter chain, including
+ * failing logins that run a full password verification, until the JIT compiler has settled.
+ */
+@Component
+@ConditionalOnProperty(name = "auth.warm-up.enabled", havingValue = "true", matchIfMissing = true)
+public class StartupWarmUp implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmUp.class);
+
+    // settled once the JIT compiler spends less than this share of a round compiling, or once rounds have
+    // stopped getting faster; compilation time is summed over all compiler threads and rarely drops to nothing
+    private static final double settledCompilationShare = 0.05;
+    private static final double minSpeedup = 0.05;
+    private static final int minRounds = 3;
+    private static final int roundsWithoutSpeedup = 3;
+    private static final int authenticateRequestsPerLogin = 20;
+    private static final int preloadChunkSize = 1000;
+    private static final String loginForm = "username=warm-up&password=warm-up";
+
+    private final ApplicationContext context;
+    private final DataSource dataSource;
+    private final UserCredentialsService userCredentialsService;
+    private final UserDetailsCache cache;
+    private final Duration maxDuration;
+    private final int requestsPerRound;
+    private final String activeUsersFile;
+    private final int activeUsersLimit;
+
+    public StartupWarmUp(
+            ApplicationContext context,
+            DataSource dataSource,
+            UserCredentialsService userCredentialsService,
+            UserDetailsCache cache,
+            @Value("${auth.warm-up.max-seconds:30}") long maxSeconds,
+            @Value("${auth.warm-up.requests-per-round:200}") int requestsPerRound,
+            @Value("${auth.warm-up.active-users-file:}") String activeUsersFile,
+            @Value("${auth.warm-up.active-users-limit:10000}") int activeUsersLimit) {
+        this.context = context;
+        this.dataSource = dataSource;
+        this.userCredentialsService = userCredentialsService;
+        this.cache = cache;
+        this.maxDuration = Duration.ofSeconds(maxSeconds);
+        this.requestsPerRound = requestsPerRound;
+        this.activeUsersFile = activeUsersFile;
+        this.activeUsersLimit = activeUsersLimit;
+    }
+
+    // a failed step only leaves the application colder, so it never prevents startup
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        try {
+            openConnections();
+        } catch (SQLException | RuntimeException e) {
+            logger.warn("Failed to open connections during warm-up", e);
+        }
+        try {
+            preloadActiveUsers();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to preload active users during warm-up", e);
+        }
+        if (context instanceof WebServerApplicationContext webServerContext) {
+            sendRequests(webServerContext.getWebServer().getPort());
+        }
+        logger.info("Warm-up took {} ms", Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    @PreDestroy
+    public void saveActiveUsers() {
+        if (activeUsersFile.isEmpty()) {
+            return;
+        }
+        try {
+            Files.write(Path.of(activeUsersFile), cache.hottestUsernames(activeUsersLimit));
+        } catch (IOException e) {
+            logger.warn("Failed to save active users to {}", activeUsersFile, e);
+        }
+    }
+
+    void openConnections() throws SQLException {
+        for (HikariDataSource pool : pools()) {
+            List<Connection> connections = new ArrayList<>();
+            try {
+                // the pool is configured, and its minimum known, once the first connection is opened
+                connections.add(pool.getConnection());
+                while (connections.size() < pool.getMinimumIdle()) {
+                    connections.add(pool.getConnection());
+                }
+            } finally {
+                for (Connection connection : connections) {
+                    connection.close();
+                }
+            }
+        }
+    }
+
+    private List<HikariDataSource> pools() throws SQLException {
+        Collection<DataSource> dataSources = dataSource.isWrapperFor(ReplicaRoutingDataSource.class)
+                ? dataSource.unwrap(ReplicaRoutingDataSource.class).getResolvedDataSources().values()
+                : List.of(dataSource);
+        List<HikariDataSource> pools = new ArrayList<>();
+        for (DataSource candidate : dataSources) {
+            if (candidate.isWrapperFor(HikariDataSource.class)) {
+                pools.add(candidate.unwrap(HikariDataSource.class));
+            }
+        }
+        return pools;
+    }
+
+    void preloadActiveUsers() throws IOException {
+        if (activeUsersFile.isEmpty() || !Files.exists(Path.of(activeUsersFile))) {
+            return;
+        }
+        List<String> usernames;
+        try (Stream<String> lines = Files.lines(Path.of(activeUsersFile))) {
+            usernames = lines.limit(activeUsersLimit).collect(Collectors.toList());
+        }
+        for (int i = 0; i < usernames.size(); i += preloadChunkSize) {
+            userCredentialsService.preload(usernames.subList(i, Math.min(i + preloadChunkSize, usernames.size())));
+        }
+        logger.info("Preloaded {} active users", usernames.size());
+    }
+
+    void sendRequests(int port) {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest authenticate = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/authenticate"))
+                .GET()
+                .build();
+        HttpRequest login = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(loginForm))
+                .build();
+
+        CompilationMXBean compilation = ManagementFactory.getCompilationMXBean();
+        boolean canTrackCompilation = compilation != null && compilation.isCompilationTimeMonitoringSupported();
+        long deadline = System.nanoTime() + maxDuration.toNanos();
+        int rounds = 0;
+        long fastestRoundMillis = Long.MAX_VALUE;
+        int slowRounds = 0;
+        try {
+            while (System.nanoTime() < deadline) {
+                long roundStart = System.nanoTime();
+                long compilationMillis = canTrackCompilation ? compilation.getTotalCompilationTime() : 0;
+                for (int i = 0; i < requestsPerRound; i++) {
+                    client.send(i % authenticateRequestsPerLogin == 0 ? login : authenticate,
+                            HttpResponse.BodyHandlers.discarding());
+                }
+                rounds++;
+                long roundMillis = Duration.ofNanos(System.nanoTime() - roundStart).toMillis();
+                long roundCompilationMillis = canTrackCompilation
+                        ? compilation.getTotalCompilationTime() - compilationMillis
+                        : 0;
+
+                if (roundMillis < fastestRoundMillis * (1 - minSpeedup)) {
+                    slowRounds = 0;
+                } else {
+                    slowRounds++;
+                }
+                fastestRoundMillis = Math.min(fastestRoundMillis, roundMillis);
+
+                // without compilation times, the minimum number of rounds has to do
+                if (rounds >= minRounds && roundCompilationMillis < settledCompilationShare * roundMillis
+                        || slowRounds >= roundsWithoutSpeedup) {
+                    break;
+                }
+            }
+            logger.info("Sent {} rounds of warm-up requests", rounds);
+        } catch (IOException e) {
+            logger.warn("Failed to send warm-up requests", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
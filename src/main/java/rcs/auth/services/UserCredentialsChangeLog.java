@@ -0,0 +1,290 @@
+package rcs.auth.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import rcs.auth.repositories.UserCredentialsChangeRepository;
+import rcs.auth.repositories.models.UserCredentialsChange;
+import rcs.auth.services.UserCredentialsChangedEvent.Change;
+import rcs.auth.sessions.SessionStore;
+import rcs.auth.tokens.TokenRevocationList;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Makes the changes to users made on one node known to the others. Each change is written to the
+ * user_credentials_changes table in the transaction that makes it, and every node reads the rows written since it
+ * last looked, in order of id, once per poll interval. Changes made by other nodes are applied as if they had been
+ * made here: the user's cached details are dropped, and a remote {@link UserCredentialsChangedEvent} is published, on
+ * which the user's sessions and access tokens are invalidated. Access tokens revoked on logout are logged the same way.
+ *
+ * Ids are assigned when rows are inserted but become visible when they are committed, so a row may show up after
+ * rows with higher ids. Ids that a poll skipped over are looked for again until they show up, or until the gap timeout
+ * has passed and their transactions are taken to have rolled back. Rows are deleted once older than the retention.
+ */
+@Service
+public class UserCredentialsChangeLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserCredentialsChangeLog.class);
+
+    // the ids of a larger gap are not looked for, e.g. those that the database reserved for a batch and didn't use
+    private static final int maxGap = 1000;
+
+    private static final long pruneIntervalNanos = TimeUnit.MINUTES.toNanos(1);
+
+    private final UserCredentialsChangeRepository repository;
+    private final UserDetailsCache cache;
+    private final SessionStore sessionStore;
+    private final TokenRevocationList tokenRevocationList; // null if access tokens are disabled
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final long pollIntervalMillis;
+    private final int pageSize;
+    private final Duration retention;
+    private final long gapTimeoutNanos;
+    private final LongSupplier nanoTime;
+    private final String node = UUID.randomUUID().toString();
+    private final LongAdder applied = new LongAdder();
+
+    // only used by the poller, or by the caller of poll
+    private long lastId;
+    // until the changes made while this node was down have been read; polling them instead would apply them as new
+    private boolean catchUpPending;
+    private final TreeMap<Long, Long> gapDeadlines = new TreeMap<>();
+    private long prunedNanos;
+
+    private ScheduledExecutorService poller;
+
+    @Autowired
+    public UserCredentialsChangeLog(
+            UserCredentialsChangeRepository repository,
+            UserDetailsCache cache,
+            SessionStore sessionStore,
+            ObjectProvider<TokenRevocationList> tokenRevocationList,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${auth.credentials-changes.enabled:true}") boolean enabled,
+            @Value("${auth.credentials-changes.poll-interval-millis:1000}") long pollIntervalMillis,
+            @Value("${auth.credentials-changes.page-size:1000}") int pageSize,
+            @Value("${auth.credentials-changes.retention-seconds:3600}") long retentionSeconds,
+            @Value("${auth.credentials-changes.gap-timeout-seconds:60}") long gapTimeoutSeconds) {
+        this(repository,
+                cache,
+                sessionStore,
+                tokenRevocationList.getIfAvailable(),
+                eventPublisher,
+                meterRegistry,
+                enabled,
+                pollIntervalMillis,
+                pageSize,
+                retentionSeconds,
+                gapTimeoutSeconds,
+                System::nanoTime);
+    }
+
+    UserCredentialsChangeLog(
+            UserCredentialsChangeRepository repository,
+            UserDetailsCache cache,
+            SessionStore sessionStore,
+            TokenRevocationList tokenRevocationList,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            boolean enabled,
+            long pollIntervalMillis,
+            int pageSize,
+            long retentionSeconds,
+            long gapTimeoutSeconds,
+            LongSupplier nanoTime) {
+        this.repository = repository;
+        this.cache = cache;
+        this.sessionStore = sessionStore;
+        this.tokenRevocationList = tokenRevocationList;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.pollIntervalMillis = pollIntervalMillis;
+        this.pageSize = pageSize;
+        this.retention = Duration.ofSeconds(retentionSeconds);
+        this.gapTimeoutNanos = TimeUnit.SECONDS.toNanos(gapTimeoutSeconds);
+        this.nanoTime = nanoTime;
+        this.prunedNanos = nanoTime.getAsLong();
+
+        // not a MeterBinder, for the same reason as the username filter's
+        FunctionCounter.builder("auth.credentials-changes.applied", applied, LongAdder::sum)
+                .description("Changes to users made on other nodes and applied on this one")
+                .register(meterRegistry);
+    }
+
+    // before the application reports ready
+    @EventListener(ApplicationStartedEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        catchUpPending = true;
+        try {
+            catchUp();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read user changes made while this node was down, retrying", e);
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("credentials-changes-");
+        threadFactory.setDaemon(true);
+        poller = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        poller.scheduleWithFixedDelay(this::pollSafely, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+
+    // in the caller's transaction, so that the change and its row are committed or rolled back together
+    public void append(String username, Change change) {
+        appendAll(List.of(username), change);
+    }
+
+    public void appendAll(Collection<String> usernames, Change change) {
+        if (!enabled || usernames.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        repository.insertAll(usernames.stream()
+                .map(username -> new UserCredentialsChange(null, username, change.name(), node, now))
+                .collect(Collectors.toList()));
+    }
+
+    // outside of any transaction, the logout having nothing else to commit
+    public void appendTokenRevocation(String username, String tokenId) {
+        if (!enabled) {
+            return;
+        }
+        repository.insertAll(List.of(new UserCredentialsChange(
+                null, username, UserCredentialsChange.tokenRevoked, node, Instant.now(), tokenId)));
+    }
+
+    void poll() {
+        if (catchUpPending) {
+            catchUp();
+        }
+        long now = nanoTime.getAsLong();
+        gapDeadlines.values().removeIf(deadline -> deadline - now < 0);
+        long afterId = gapDeadlines.isEmpty() ? lastId : gapDeadlines.firstKey() - 1;
+        int count;
+        do {
+            long[] pageLastId = { afterId };
+            count = repository.forEachChangeAfter(afterId, pageSize, change -> {
+                pageLastId[0] = change.getId();
+                if (isNew(change.getId(), now)) {
+                    apply(change);
+                }
+            });
+            afterId = pageLastId[0];
+        } while (count == pageSize);
+
+        if (now - prunedNanos >= pruneIntervalNanos) {
+            prunedNanos = now;
+            repository.deleteChangedBefore(Instant.now().minus(retention));
+        }
+    }
+
+    // the sessions restored at startup may predate changes made while this node was down, and so may the access
+    // tokens issued by any node, whose revocations were only kept in memory; nothing else here does. After a failure
+    // it resumes after the last change read, the rest being harmless to repeat
+    private void catchUp() {
+        int count;
+        do {
+            count = repository.forEachChangeAfter(lastId, pageSize, change -> {
+                lastId = change.getId();
+                Change type = changeOf(change);
+                if (type == Change.AUTHORITY_UPDATED || type == Change.DELETED) {
+                    sessionStore.invalidateUser(change.getUsername(), change.getChangedAt());
+                }
+                // like AccessTokenRevoker does for changes made while this node is up
+                if (tokenRevocationList != null && type != null && type != Change.CREATED) {
+                    tokenRevocationList.revokeUser(change.getUsername(), change.getChangedAt().toEpochMilli());
+                }
+                if (isTokenRevocation(change)) {
+                    tokenRevocationList.revokeToken(change.getTokenId(), change.getChangedAt().toEpochMilli());
+                }
+            });
+        } while (count == pageSize);
+        catchUpPending = false;
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to read user changes made on other nodes, retrying", e);
+        }
+    }
+
+    private boolean isNew(long id, long now) {
+        if (id > lastId) {
+            if (id - lastId - 1 <= maxGap) {
+                for (long missing = lastId + 1; missing < id; missing++) {
+                    gapDeadlines.put(missing, now + gapTimeoutNanos);
+                }
+            }
+            lastId = id;
+            return true;
+        }
+        return gapDeadlines.remove(id) != null;
+    }
+
+    private void apply(UserCredentialsChange change) {
+        if (node.equals(change.getNode())) {
+            return;
+        }
+        if (isTokenRevocation(change)) {
+            tokenRevocationList.revokeToken(change.getTokenId(), change.getChangedAt().toEpochMilli());
+            applied.increment();
+            return;
+        }
+        Change type = changeOf(change);
+        if (type == null) {
+            return;
+        }
+        cache.invalidate(change.getUsername());
+        eventPublisher.publishEvent(new UserCredentialsChangedEvent(change.getUsername(), type, true));
+        applied.increment();
+    }
+
+    // ignored if access tokens are disabled here, e.g. while they are being enabled one node at a time
+    private boolean isTokenRevocation(UserCredentialsChange change) {
+        return tokenRevocationList != null
+                && UserCredentialsChange.tokenRevoked.equals(change.getChangeType())
+                && change.getTokenId() != null;
+    }
+
+    // null for a change that a newer version of this service wrote, during a rolling deploy
+    private static Change changeOf(UserCredentialsChange change) {
+        try {
+            return Change.valueOf(change.getChangeType());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
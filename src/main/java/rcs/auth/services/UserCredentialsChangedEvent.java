@@ -0,0 +1,28 @@
+package rcs.auth.services;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+public class UserCredentialsChangedEvent {
+
+    public enum Change {
+        CREATED,
+        PASSWORD_UPDATED,
+        AUTHORITY_UPDATED,
+        DELETED
+    }
+
+    private String username;
+    private Change change;
+
+    // made on another node, and read from the change log
+    private boolean remote;
+
+    public UserCredentialsChangedEvent(String username, Change change) {
+        this(username, change, false);
+    }
+}
@@ -1,77 +1,170 @@
 package rcs.auth.services;
 
-import org.springframework.dao.EmptyResultDataAccessException;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import rcs.auth.api.models.LoginCredentials;
 import rcs.auth.api.models.UserAuthority;
 import rcs.auth.exceptions.FailedToUpdateUserException;
 import rcs.auth.exceptions.UsernameAlreadyExistsException;
 import rcs.auth.exceptions.UsernameNotFoundException;
 import rcs.auth.repositories.models.UserCredentials;
+import rcs.auth.repositories.ReplicaRoutingDataSource;
 import rcs.auth.repositories.UserCredentialsRepository;
+import rcs.auth.security.UserPrincipal;
+import rcs.auth.services.UserCredentialsChangedEvent.Change;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
-public class UserCredentialsService implements UserDetailsService {
+public class UserCredentialsService implements UserDetailsService, UserDetailsPasswordService {
 
     private PasswordEncoder encoder;
     private UserCredentialsRepository repository;
+    private UserDetailsCache cache;
+    private PasswordHashingExecutor hashingExecutor;
+    private Executor writeExecutor;
+    private UsernameFilter usernameFilter;
+    private UserCredentialsChangeLog changeLog;
+    private TransactionTemplate transactionTemplate;
+    private TransactionTemplate readOnlyTransactionTemplate;
+    private ApplicationEventPublisher eventPublisher;
 
-    public UserCredentialsService(PasswordEncoder encoder, UserCredentialsRepository repository) {
+    public UserCredentialsService(
+            PasswordEncoder encoder,
+            UserCredentialsRepository repository,
+            UserDetailsCache cache,
+            PasswordHashingExecutor hashingExecutor,
+            @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor writeExecutor,
+            UsernameFilter usernameFilter,
+            UserCredentialsChangeLog changeLog,
+            TransactionTemplate transactionTemplate,
+            ApplicationEventPublisher eventPublisher) {
         this.encoder = encoder;
         this.repository = repository;
+        this.cache = cache;
+        this.hashingExecutor = hashingExecutor;
+        this.writeExecutor = writeExecutor;
+        this.usernameFilter = usernameFilter;
+        this.changeLog = changeLog;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(
+                transactionTemplate.getTransactionManager(), transactionTemplate);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.eventPublisher = eventPublisher;
     }
 
+    // without a transaction of its own, so that a cache hit takes no connection; a miss is read in a read-only one,
+    // so that it can be served by a replica and Hibernate skips flushing and dirty checking. What is read is cached,
+    // so users changed too recently for every replica to have caught up are read from the primary; for an unknown
+    // username, form login still verifies the password against a dummy hash, so that the response takes as long as
+    // for a known one
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public User loadUserByUsername(String username) throws UsernameNotFoundException {
-        return repository.findById(username)
-                .map(credentials -> new User(
-                        credentials.getUsername(),
-                        credentials.getPassword(),
-                        credentials.getAuthority().getRoles().stream()
-                                .map(SimpleGrantedAuthority::new)
-                                .collect(Collectors.toList())))
-                .orElseThrow(() -> new UsernameNotFoundException(username));
+        if (!usernameFilter.mightExist(username)) {
+            throw new UsernameNotFoundException(username);
+        }
+        return cache.get(username, this::findUser);
     }
 
-    public void save(LoginCredentials request) {
-        String username = request.getUsername();
-        if (repository.existsById(username)) {
-            throw new UsernameAlreadyExistsException(username);
-        }
+    // one query for all of them instead of one per first login, e.g. to warm the cache at startup; recently changed
+    // users are left to be loaded from the primary on their first login
+    @Transactional(readOnly = true)
+    public void preload(Collection<String> usernames) {
+        List<String> settled = usernames.stream()
+                .filter(username -> !cache.isRecentlyInvalidated(username))
+                .collect(Collectors.toList());
+        repository.findAllById(settled).forEach(credentials -> cache.put(toUser(credentials)));
+    }
 
-        UserCredentials credentials = new UserCredentials(
-                username,
-                encoder.encode(request.getPassword()),
-                UserAuthority.USER);
+    // a single INSERT, so concurrent registrations of the same name cannot both succeed; the hash completes
+    // outside of the method's transaction, so the writes get their own, on the application's task executor so that
+    // hashing threads don't wait on the database
+    public CompletableFuture<Void> save(LoginCredentials request) {
+        String username = request.getUsername();
+        return hashingExecutor.submit(() -> encoder.encode(request.getPassword()))
+                .thenAcceptAsync(encodedPassword -> transactionTemplate.executeWithoutResult(status -> {
+                    if (!repository.insert(new UserCredentials(username, encodedPassword, UserAuthority.USER))) {
+                        throw new UsernameAlreadyExistsException(username);
+                    }
+                    cache.invalidate(username);
+                    publish(username, Change.CREATED);
+                }), writeExecutor);
+    }
 
-        repository.save(credentials);
+    public CompletableFuture<Void> updatePassword(String username, String newPassword) {
+        return hashingExecutor.submit(() -> encoder.encode(newPassword))
+                .thenAcceptAsync(encodedPassword -> transactionTemplate.executeWithoutResult(status -> {
+                    boolean updated = repository.updatePassword(username, encodedPassword);
+                    cache.invalidate(username);
+                    if (!updated) {
+                        throw new FailedToUpdateUserException(username, UserCredentials.Fields.password);
+                    }
+                    publish(username, Change.PASSWORD_UPDATED);
+                }), writeExecutor);
     }
 
-    public void updatePassword(String username, String newPassword) {
-        if (!repository.updatePassword(username, encoder.encode(newPassword))) {
-            throw new FailedToUpdateUserException(username, UserCredentials.Fields.password);
-        }
+    // called on successful login when the stored hash no longer matches the current hashing parameters
+    @Override
+    public User updatePassword(UserDetails user, String newEncodedPassword) {
+        repository.updatePassword(user.getUsername(), newEncodedPassword);
+        cache.invalidate(user.getUsername());
+        return UserPrincipal.withPassword(user, newEncodedPassword);
     }
 
     public void updateAuthority(String username, UserAuthority newAuthority) {
-        if (!repository.updateAuthority(username, newAuthority)) {
+        boolean updated = repository.updateAuthority(username, newAuthority);
+        cache.invalidate(username);
+        if (!updated) {
             throw new FailedToUpdateUserException(username, UserCredentials.Fields.authority);
         }
+        publish(username, Change.AUTHORITY_UPDATED);
     }
 
     public void delete(String username) {
-        try {
-            repository.deleteById(username);
-        } catch (EmptyResultDataAccessException e){
+        boolean deleted = repository.deleteUser(username);
+        cache.invalidate(username);
+        if (!deleted) {
             throw new UsernameNotFoundException(username);
         }
+        publish(username, Change.DELETED);
+    }
+
+    private void publish(String username, Change change) {
+        changeLog.append(username, change);
+        eventPublisher.publishEvent(new UserCredentialsChangedEvent(username, change));
+    }
+
+    private User findUser(String username) {
+        Optional<UserCredentials> credentials = cache.isRecentlyInvalidated(username)
+                ? ReplicaRoutingDataSource.readFromPrimary(() -> findById(username))
+                : findById(username);
+        return credentials
+                .map(this::toUser)
+                .orElseThrow(() -> new UsernameNotFoundException(username));
+    }
+
+    private Optional<UserCredentials> findById(String username) {
+        return readOnlyTransactionTemplate.execute(status -> repository.findById(username));
+    }
+
+    private User toUser(UserCredentials credentials) {
+        return new UserPrincipal(credentials.getUsername(), credentials.getPassword(), credentials.getAuthority());
     }
 }
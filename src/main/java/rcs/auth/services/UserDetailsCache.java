@@ -0,0 +1,133 @@
+package rcs.auth.services;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rcs.auth.security.UserPrincipal;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+@Component
+public class UserDetailsCache implements MeterBinder {
+
+    // a synchronous cache runs the loader inside the map's lock on the entry, where a load blocked on the database
+    // would pin a virtual thread to its carrier; loads here complete a future on the calling thread instead
+    private final AsyncCache<String, User> cache;
+
+    // usernames whose row may still be stale on a replica that is within the tolerated lag, or that fell behind
+    // since its last health check
+    private final Cache<String, Boolean> recentlyInvalidated;
+
+    public UserDetailsCache(
+            @Value("${auth.user-details-cache.maximum-size:10000}") long maximumSize,
+            @Value("${auth.user-details-cache.ttl-seconds:300}") long ttlSeconds,
+            @Value("#{${spring.datasource.replica-max-lag-seconds:5}"
+                    + " + ${spring.datasource.replica-check-interval-seconds:5}}") long replicaStaleSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .buildAsync();
+        this.recentlyInvalidated = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(replicaStaleSeconds))
+                .build();
+    }
+
+    public User get(String username, Function<String, User> loader) {
+        CompletableFuture<User> cached = cache.getIfPresent(username);
+        if (cached == null) {
+            // concurrent callers for the same username wait for the first one's load
+            CompletableFuture<User> loading = new CompletableFuture<>();
+            cached = cache.asMap().putIfAbsent(username, loading);
+            if (cached == null) {
+                load(username, loader, loading);
+                cached = loading;
+            }
+        }
+        // spring security erases the password of the authenticated principal,
+        // so never hand out the cached instance itself
+        return copyOf(join(cached));
+    }
+
+    public void put(User user) {
+        cache.put(user.getUsername(), CompletableFuture.completedFuture(copyOf(user)));
+    }
+
+    // most likely to be used again first, as judged by the eviction policy
+    public List<String> hottestUsernames(int limit) {
+        return cache.synchronous().policy().eviction()
+                .map(eviction -> List.copyOf(eviction.hottest(limit).keySet()))
+                .orElseGet(List::of);
+    }
+
+    public void invalidate(String username) {
+        cache.synchronous().invalidate(username);
+        recentlyInvalidated.put(username, Boolean.TRUE);
+
+        // a concurrent load may re-populate the entry with the old row until the
+        // current transaction commits, so invalidate again once it completes
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.synchronous().invalidate(username);
+                    // replicas start catching up from the commit
+                    recentlyInvalidated.put(username, Boolean.TRUE);
+                }
+            });
+        }
+    }
+
+    // whether a replica may still return the row as it was before the last invalidation
+    public boolean isRecentlyInvalidated(String username) {
+        return recentlyInvalidated.getIfPresent(username) != null;
+    }
+
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "userDetails");
+    }
+
+    private void load(String username, Function<String, User> loader, CompletableFuture<User> loading) {
+        try {
+            loading.complete(loader.apply(username));
+        } catch (RuntimeException e) {
+            cache.asMap().remove(username, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private User join(CompletableFuture<User> user) {
+        try {
+            return user.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private User copyOf(User user) {
+        return UserPrincipal.withPassword(user, user.getPassword());
+    }
+}
@@ -0,0 +1,44 @@
+package rcs.auth.services;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+public class UserImportResult {
+
+    public enum Reason {
+        INVALID,
+        DUPLICATE_IN_REQUEST,
+        ALREADY_EXISTS
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Conflict {
+        private long line;
+        private String username;
+        private Reason reason;
+    }
+
+    private int imported;
+    private List<Conflict> conflicts = new ArrayList<>();
+    // past the maximum number of reported conflicts, which are only counted
+    private long unreportedConflicts;
+
+    void addImported(int count) {
+        imported += count;
+    }
+
+    void addConflict(long line, String username, Reason reason) {
+        conflicts.add(new Conflict(line, username, reason));
+    }
+
+    void addUnreportedConflict() {
+        unreportedConflicts++;
+    }
+}
@@ -0,0 +1,269 @@
+package rcs.auth.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import rcs.auth.api.models.LoginCredentials;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.repositories.UserCredentialsRepository;
+import rcs.auth.repositories.models.UserCredentials;
+import rcs.auth.services.UserCredentialsChangedEvent.Change;
+import rcs.auth.services.UserImportResult.Reason;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Registers users read line by line from NDJSON or CSV. Lines are processed in chunks: existing usernames are
+ * looked up with one query, passwords are hashed in parallel and the rows are written with one JDBC batch.
+ *
+ * Memory is bounded by the chunk size rather than by the upload: a username repeated within a chunk is a duplicate
+ * in the request, one repeated in a later chunk already exists by then, and only the first conflicts are reported.
+ */
+@Service
+public class UserImportService {
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    private static final int maxUsernameLength = 32;
+
+    private PasswordEncoder encoder;
+    private UserCredentialsRepository repository;
+    private UserDetailsCache cache;
+    private TransactionTemplate transactionTemplate;
+    private UserCredentialsChangeLog changeLog;
+    private ApplicationEventPublisher eventPublisher;
+    private ObjectMapper objectMapper;
+    private int chunkSize;
+    private int maxReportedConflicts;
+
+    // separate from PasswordHashingExecutor so that an import does not shed logins
+    private ForkJoinPool hashingPool;
+
+    public UserImportService(
+            PasswordEncoder encoder,
+            UserCredentialsRepository repository,
+            UserDetailsCache cache,
+            TransactionTemplate transactionTemplate,
+            UserCredentialsChangeLog changeLog,
+            ApplicationEventPublisher eventPublisher,
+            ObjectMapper objectMapper,
+            @Value("${auth.user-import.chunk-size:500}") int chunkSize,
+            @Value("${auth.user-import.hashing-threads:0}") int hashingThreads,
+            @Value("${auth.user-import.max-reported-conflicts:1000}") int maxReportedConflicts) {
+        this.encoder = encoder;
+        this.repository = repository;
+        this.cache = cache;
+        this.transactionTemplate = transactionTemplate;
+        this.changeLog = changeLog;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.maxReportedConflicts = maxReportedConflicts;
+        this.hashingPool = new ForkJoinPool(hashingThreads > 0
+                ? hashingThreads
+                : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hashingPool.shutdownNow();
+    }
+
+    public UserImportResult importUsers(BufferedReader reader, Format format) throws IOException {
+        UserImportResult result = new UserImportResult();
+        // of the current chunk; earlier chunks have been written, so the existence query finds theirs
+        Set<String> seenUsernames = new HashSet<>();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+
+            LoginCredentials credentials = parse(line, format);
+            if (format == Format.CSV && lineNumber == 1 && isCsvHeader(credentials)) {
+                continue;
+            }
+            if (!isValid(credentials)) {
+                addConflict(result, lineNumber, credentials == null ? null : credentials.getUsername(), Reason.INVALID);
+            } else if (!seenUsernames.add(credentials.getUsername())) {
+                addConflict(result, lineNumber, credentials.getUsername(), Reason.DUPLICATE_IN_REQUEST);
+            } else {
+                chunk.add(new Row(lineNumber, credentials));
+                if (chunk.size() == chunkSize) {
+                    importChunk(chunk, result);
+                    chunk.clear();
+                    seenUsernames.clear();
+                }
+            }
+        }
+
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, result);
+        }
+
+        return result;
+    }
+
+    private void importChunk(List<Row> chunk, UserImportResult result) {
+        Set<String> existingUsernames = repository.findExistingUsernames(chunk.stream()
+                .map(row -> row.credentials().getUsername())
+                .collect(Collectors.toList()));
+
+        List<Row> newRows = new ArrayList<>(chunk.size());
+        for (Row row : chunk) {
+            if (existingUsernames.contains(row.credentials().getUsername())) {
+                addConflict(result, row.line(), row.credentials().getUsername(), Reason.ALREADY_EXISTS);
+            } else {
+                newRows.add(row);
+            }
+        }
+
+        if (newRows.isEmpty()) {
+            return;
+        }
+
+        List<UserCredentials> hashed = hashingPool.submit(() -> newRows.parallelStream()
+                        .map(row -> new UserCredentials(
+                                row.credentials().getUsername(),
+                                encoder.encode(row.credentials().getPassword()),
+                                UserAuthority.USER))
+                        .collect(Collectors.toList()))
+                .join();
+
+        List<String> imported = new ArrayList<>(hashed.size());
+        try {
+            List<String> usernames = hashed.stream().map(UserCredentials::getUsername).collect(Collectors.toList());
+            transactionTemplate.executeWithoutResult(status -> {
+                repository.insertAll(hashed);
+                changeLog.appendAll(usernames, Change.CREATED);
+            });
+            imported.addAll(usernames);
+        } catch (DuplicateKeyException e) {
+            // a username was registered since the lookup above; the batch was rolled back, so retry row by row
+            for (int i = 0; i < hashed.size(); i++) {
+                UserCredentials credentials = hashed.get(i);
+                boolean inserted = transactionTemplate.execute(status -> {
+                    if (!repository.insert(credentials)) {
+                        return false;
+                    }
+                    changeLog.append(credentials.getUsername(), Change.CREATED);
+                    return true;
+                });
+                if (inserted) {
+                    imported.add(credentials.getUsername());
+                } else {
+                    addConflict(result, newRows.get(i).line(), credentials.getUsername(), Reason.ALREADY_EXISTS);
+                }
+            }
+        }
+
+        result.addImported(imported.size());
+        imported.forEach(username -> {
+            cache.invalidate(username);
+            eventPublisher.publishEvent(new UserCredentialsChangedEvent(username, Change.CREATED));
+        });
+    }
+
+    private void addConflict(UserImportResult result, long line, String username, Reason reason) {
+        if (result.getConflicts().size() < maxReportedConflicts) {
+            result.addConflict(line, username, reason);
+        } else {
+            result.addUnreportedConflict();
+        }
+    }
+
+    private LoginCredentials parse(String line, Format format) {
+        if (format == Format.NDJSON) {
+            try {
+                return objectMapper.readValue(line, LoginCredentials.class);
+            } catch (JsonProcessingException e) {
+                return null;
+            }
+        }
+
+        // either field may be quoted as in RFC 4180, with quotes inside doubled; unquoted, the username cannot
+        // contain a comma and the password may. A quoted field must end where its field does, and on the same line
+        String username;
+        int separator;
+        if (line.startsWith("\"")) {
+            int end = closingQuote(line);
+            if (end < 0 || end + 1 == line.length() || line.charAt(end + 1) != ',') {
+                return null;
+            }
+            username = unquote(line, end);
+            separator = end + 1;
+        } else {
+            separator = line.indexOf(',');
+            if (separator < 0) {
+                return null;
+            }
+            username = line.substring(0, separator).strip();
+        }
+
+        String password = line.substring(separator + 1);
+        if (password.startsWith("\"")) {
+            int end = closingQuote(password);
+            if (end != password.length() - 1) {
+                return null;
+            }
+            password = unquote(password, end);
+        }
+        return new LoginCredentials(username, password);
+    }
+
+    // of the field that the opening quote at the start of the given text begins, or -1 if it isn't closed
+    private static int closingQuote(String text) {
+        for (int i = 1; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                if (i + 1 < text.length() && text.charAt(i + 1) == '"') {
+                    i++;
+                } else {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static String unquote(String text, int closingQuote) {
+        return text.substring(1, closingQuote).replace("\"\"", "\"");
+    }
+
+    // which may be quoted like any other line
+    private boolean isCsvHeader(LoginCredentials credentials) {
+        return credentials != null
+                && UserCredentials.Fields.username.equalsIgnoreCase(credentials.getUsername())
+                && UserCredentials.Fields.password.equalsIgnoreCase(credentials.getPassword().strip());
+    }
+
+    private boolean isValid(LoginCredentials credentials) {
+        return credentials != null
+                && credentials.getUsername() != null
+                && !credentials.getUsername().isBlank()
+                && credentials.getUsername().length() <= maxUsernameLength
+                && credentials.getPassword() != null
+                && !credentials.getPassword().isEmpty();
+    }
+
+    private record Row(long line, LoginCredentials credentials) { }
+}
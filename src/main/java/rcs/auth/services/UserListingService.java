@@ -0,0 +1,51 @@
+package rcs.auth.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.repositories.UserCredentialsRepository;
+import rcs.auth.repositories.models.UserSummary;
+
+import java.util.function.Consumer;
+
+/**
+ * Walks user_credentials in username order one bounded page at a time, so that neither the application nor
+ * the database holds more than a page, and no transaction stays open for the whole listing. Each page is read in
+ * its own read-only transaction, so it can be served by a replica.
+ */
+@Service
+public class UserListingService {
+
+    private UserCredentialsRepository repository;
+    private TransactionTemplate readOnlyTransaction;
+    private int pageSize;
+
+    public UserListingService(
+            UserCredentialsRepository repository,
+            PlatformTransactionManager transactionManager,
+            @Value("${auth.user-listing.page-size:1000}") int pageSize) {
+        this.repository = repository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.pageSize = pageSize;
+    }
+
+    public void forEachUser(String afterUsername, UserAuthority authority, long limit, Consumer<UserSummary> action) {
+        String[] lastUsername = { afterUsername };
+        long remaining = limit;
+        while (remaining > 0) {
+            int requested = (int) Math.min(pageSize, remaining);
+            int count = readOnlyTransaction.execute(status ->
+                    repository.forEachUser(lastUsername[0], authority, requested, user -> {
+                        lastUsername[0] = user.getUsername();
+                        action.accept(user);
+                    }));
+            if (count < requested) {
+                return;
+            }
+            remaining -= count;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package rcs.auth.services;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rcs.auth.repositories.UserCredentialsRepository;
+import rcs.auth.utils.CountingBloomFilter;
+
+import javax.annotation.PreDestroy;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Knows every username that might exist, so that logins for names that certainly don't can skip the database.
+ *
+ * Built from the primary at startup and rebuilt periodically, which also picks up users registered on other nodes,
+ * and kept current with the changes made on this node in between. Until the first build completes, every username
+ * might exist. Usernames are compared case-insensitively, as MySQL does.
+ */
+@Component
+public class UsernameFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(UsernameFilter.class);
+
+    private final UserCredentialsRepository repository;
+    private final boolean enabled;
+    private final long expectedUsernames;
+    private final double falsePositiveRate;
+    private final int pageSize;
+    private final long rebuildIntervalSeconds;
+
+    private final LongAdder definiteNegatives = new LongAdder();
+
+    // replaced as a whole by each build; guarded by this while a build is running
+    private volatile CountingBloomFilter current;
+    private CountingBloomFilter building;
+    private long buildsStarted;
+
+    private ScheduledExecutorService rebuilder;
+
+    public UsernameFilter(
+            UserCredentialsRepository repository,
+            MeterRegistry meterRegistry,
+            @Value("${auth.username-filter.enabled:true}") boolean enabled,
+            @Value("${auth.username-filter.expected-usernames:1000000}") long expectedUsernames,
+            @Value("${auth.username-filter.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${auth.username-filter.page-size:10000}") int pageSize,
+            @Value("${auth.username-filter.rebuild-interval-seconds:300}") long rebuildIntervalSeconds) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.expectedUsernames = expectedUsernames;
+        this.falsePositiveRate = falsePositiveRate;
+        this.pageSize = pageSize;
+        this.rebuildIntervalSeconds = rebuildIntervalSeconds;
+
+        // not a MeterBinder: binders are bound while the registry is created, before the data source that the
+        // repository needs, which is itself instrumented
+        FunctionCounter.builder("auth.username-filter.definite-negatives", definiteNegatives, LongAdder::sum)
+                .description("Lookups of usernames that certainly don't exist, answered without the database")
+                .register(meterRegistry);
+        Gauge.builder("auth.username-filter.size", this, filter -> filter.current == null
+                        ? 0
+                        : filter.current.getSizeInBytes())
+                .description("Memory used by the username filter")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    // before the warm-up and before the application reports ready
+    @EventListener(ApplicationStartedEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        build();
+        if (rebuildIntervalSeconds > 0) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("username-filter-");
+            threadFactory.setDaemon(true);
+            rebuilder = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            rebuilder.scheduleWithFixedDelay(
+                    this::rebuild, rebuildIntervalSeconds, rebuildIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (rebuilder != null) {
+            rebuilder.shutdownNow();
+        }
+    }
+
+    public boolean mightExist(String username) {
+        CountingBloomFilter filter = current;
+        if (filter == null || filter.mightContain(key(username))) {
+            return true;
+        }
+        definiteNegatives.increment();
+        return false;
+    }
+
+    @EventListener
+    public void onUserCredentialsChanged(UserCredentialsChangedEvent event) {
+        String key = key(event.getUsername());
+        if (event.getChange() == UserCredentialsChangedEvent.Change.CREATED) {
+            added(key);
+        } else if (event.getChange() == UserCredentialsChangedEvent.Change.DELETED && !event.isRemote()) {
+            // a build may have seen another node's deletion before it was applied here, so there is no telling
+            // whether the filter counted the username; it stays a false positive until the next build
+            deleted(key);
+        }
+    }
+
+    // added before the commit, so that the user can log in as soon as the row is visible, and again after it,
+    // for a build that started in between and did not see the row yet; counting it twice is only a false positive
+    private void added(String key) {
+        add(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(key);
+                }
+            });
+        }
+    }
+
+    // a username must only be removed from a filter that counted it; a build that overlaps the commit may or may
+    // not have seen the row, so the removal is skipped then, leaving only a false positive until the next build
+    private void deleted(String key) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remove(key, buildsStarted());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long buildsStartedBeforeCommit;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                buildsStartedBeforeCommit = buildsStarted();
+            }
+
+            @Override
+            public void afterCommit() {
+                remove(key, buildsStartedBeforeCommit);
+            }
+        });
+    }
+
+    private synchronized void add(String key) {
+        if (current != null) {
+            current.add(key);
+        }
+        if (building != null) {
+            building.add(key);
+        }
+    }
+
+    private synchronized void remove(String key, long buildsStartedBefore) {
+        if (current != null && building == null && buildsStarted == buildsStartedBefore) {
+            current.remove(key);
+        }
+    }
+
+    private synchronized long buildsStarted() {
+        return buildsStarted;
+    }
+
+    // public for callers that insert users directly through the repository, bypassing UserCredentialsService
+    public void rebuild() {
+        try {
+            build();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to rebuild the username filter, keeping the previous one", e);
+        }
+    }
+
+    void build() {
+        long start = System.nanoTime();
+        CountingBloomFilter filter = new CountingBloomFilter(expectedUsernames, falsePositiveRate);
+        synchronized (this) {
+            building = filter;
+            buildsStarted++;
+        }
+        long count = 0;
+        try {
+            // outside of a read-only transaction, so that the rows are read from the primary rather than a replica
+            String[] lastUsername = { null };
+            int pageCount;
+            do {
+                pageCount = repository.forEachUser(lastUsername[0], null, pageSize, user -> {
+                    lastUsername[0] = user.getUsername();
+                    filter.add(key(user.getUsername()));
+                });
+                count += pageCount;
+            } while (pageCount == pageSize);
+        } finally {
+            synchronized (this) {
+                if (building == filter) {
+                    building = null;
+                }
+            }
+        }
+
+        synchronized (this) {
+            current = filter;
+        }
+        if (count > expectedUsernames) {
+            logger.warn("{} usernames exceed auth.username-filter.expected-usernames={}, " +
+                    "so that more logins for unknown usernames go to the database", count, expectedUsernames);
+        }
+        logger.info("Built username filter of {} usernames, {} KiB, in {} ms",
+                count,
+                filter.getSizeInBytes() / 1024,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,431 @@
+package rcs.auth.sessions;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import rcs.auth.security.Roles;
+import rcs.auth.security.UserPrincipal;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A journal of session creations, accesses and invalidations in a memory mapped file, from which a {@link
+ * SessionStore} restores its sessions at startup. Records have a fixed size, so that appending one is a few writes to
+ * memory: the operating system writes the pages back, so a process that crashes loses nothing, and a machine that
+ * crashes loses the records appended since the last flush, which runs every flush interval rather than per request.
+ * An access is only journaled when it is the first in a touch interval, so a restored session may expire up to a touch
+ * interval early.
+ *
+ * Once the journal holds several times more records than there are sessions, or fills half of its file, it is
+ * replaced by a snapshot of the live sessions, so that restoring it takes time proportional to the live sessions.
+ * The records appended while the snapshot is written are copied after it.
+ */
+public class SessionJournal implements MeterBinder, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionJournal.class);
+
+    private static final Set<PosixFilePermission> ownerOnly = PosixFilePermissions.fromString("rw-------");
+
+    private static final int magic = 0x534a524e;
+    private static final int version = 1;
+
+    // the magic, version, record size and role names, padded so that records are aligned
+    private static final int headerSize = 1024;
+    private static final int recordSize = 128;
+
+    private static final int createType = 1;
+    private static final int touchType = 2;
+    private static final int invalidateType = 3;
+    // all of a user's sessions created up to the second in the created field
+    private static final int invalidateUserType = 4;
+
+    // the type, in the low byte, and the length of the username; zero where no record was completely written
+    private static final int typeOffset = 0;
+    private static final int lastAccessedOffset = 4;
+    private static final int idHighOffset = 8;
+    private static final int idLowOffset = 16;
+    private static final int rolesOffset = 24;
+    private static final int createdOffset = 32;
+    private static final int usernameOffset = 36;
+    private static final int maxUsernameLength = recordSize - usernameOffset;
+
+    private static final int minRecordsToCompact = 4096;
+    private static final int recordsPerSessionToCompact = 4;
+
+    // so that a record's type, which marks it complete, is written after its other fields
+    private static final VarHandle types = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private static final byte[] noUsername = new byte[0];
+
+    private final Path path;
+    private final Path snapshotPath;
+    private final int minCapacity;
+    private final Duration flushInterval;
+    private final int touchIntervalSeconds;
+    private final LongAdder dropped = new LongAdder();
+
+    private SessionStore store;
+    private ScheduledExecutorService flusher;
+
+    // only written by the flusher
+    private int flushedPosition;
+
+    // guarded by this; no buffer until the journal has been restored, and after it is closed
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int position;
+    private boolean compactionRequested;
+
+    public SessionJournal(Path path, long size, Duration flushInterval, Duration touchInterval) {
+        this.path = path;
+        this.snapshotPath = path.resolveSibling(path.getFileName() + ".snapshot");
+        this.minCapacity = capacityOf(size);
+        this.flushInterval = flushInterval;
+        this.touchIntervalSeconds = (int) Math.max(1, touchInterval.toSeconds());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.sessions.journal.size", this, SessionJournal::getSizeInBytes)
+                .description("Bytes of the session journal in use")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("auth.sessions.journal.dropped", dropped, LongAdder::sum)
+                .description("Session records that did not fit in the session journal")
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+            try {
+                flusher.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        MappedByteBuffer closed;
+        synchronized (this) {
+            closed = buffer;
+            buffer = null;
+        }
+        if (closed != null) {
+            closed.force();
+        }
+    }
+
+    public synchronized long getSizeInBytes() {
+        return position;
+    }
+
+    int getTouchIntervalSeconds() {
+        return touchIntervalSeconds;
+    }
+
+    // restores the store's sessions from the journal, if any, and starts journaling them
+    void open(SessionStore store) {
+        this.store = store;
+        long start = System.nanoTime();
+        boolean restoring = Files.exists(path);
+        if (restoring) {
+            try {
+                restore();
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Failed to restore all sessions from {}, keeping those restored so far", path, e);
+            }
+            store.removeExpired();
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("session-journal-");
+        threadFactory.setDaemon(true);
+        flusher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        try {
+            int sessions = compact();
+            if (restoring) {
+                logger.info("Restored {} sessions from {} in {} ms",
+                        sessions, path, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to open the session journal {}, sessions will not survive a restart", path, e);
+            flusher.shutdown();
+            return;
+        }
+        long intervalMillis = Math.max(1, flushInterval.toMillis());
+        flusher.scheduleWithFixedDelay(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void created(SessionRecord record, long epochSecond) {
+        byte[] username = record.principal.getUsername().getBytes(StandardCharsets.UTF_8);
+        // longer than the credentials table allows; the session just won't survive a restart
+        if (username.length > maxUsernameLength) {
+            return;
+        }
+        append(createType, record.idHigh, record.idLow, record.principal.getRoles(), username, epochSecond, epochSecond);
+    }
+
+    void touched(SessionRecord record, long epochSecond) {
+        append(touchType, record.idHigh, record.idLow, 0, noUsername, 0, epochSecond);
+    }
+
+    void invalidated(long idHigh, long idLow) {
+        append(invalidateType, idHigh, idLow, 0, noUsername, 0, 0);
+    }
+
+    void invalidatedUser(String username, long createdBeforeEpochSecond) {
+        byte[] bytes = username.getBytes(StandardCharsets.UTF_8);
+        // none of the user's sessions were journaled either
+        if (bytes.length > maxUsernameLength) {
+            return;
+        }
+        append(invalidateUserType, 0, 0, 0, bytes, createdBeforeEpochSecond, 0);
+    }
+
+    private synchronized void append(
+            int type,
+            long idHigh,
+            long idLow,
+            long roles,
+            byte[] username,
+            long createdEpochSecond,
+            long lastAccessedEpochSecond) {
+
+        if (buffer == null) {
+            return;
+        }
+        if (position + recordSize > capacity) {
+            dropped.increment();
+            return;
+        }
+        write(buffer, position, type, idHigh, idLow, roles, username, createdEpochSecond, lastAccessedEpochSecond);
+        position += recordSize;
+        // rather than waiting for the next flush, in case the sessions are being created faster than it comes
+        if (position > capacity / 2 && !compactionRequested) {
+            compactionRequested = true;
+            flusher.execute(this::flush);
+        }
+    }
+
+    // also compacts the journal when it has grown enough
+    void flush() {
+        try {
+            if (shouldCompact()) {
+                compact();
+                return;
+            }
+            MappedByteBuffer flushed;
+            int flushTo;
+            synchronized (this) {
+                flushed = buffer;
+                flushTo = position;
+            }
+            if (flushed != null && flushTo > flushedPosition) {
+                flushed.force(flushedPosition, flushTo - flushedPosition);
+                flushedPosition = flushTo;
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to flush the session journal {}", path, e);
+        }
+    }
+
+    private synchronized boolean shouldCompact() {
+        int records = (position - headerSize) / recordSize;
+        return buffer != null
+                && (position > capacity / 2
+                        || records > Math.max(minRecordsToCompact, (long) recordsPerSessionToCompact * store.size()));
+    }
+
+    // writes the live sessions to a new file, then copies the records appended meanwhile and moves it into place;
+    // returns the number of sessions written
+    private int compact() throws IOException {
+        int mark;
+        synchronized (this) {
+            mark = position;
+        }
+        int snapshotCapacity = Math.max(minCapacity,
+                capacityOf(headerSize + (long) recordsPerSessionToCompact * recordSize * store.size()));
+        MappedByteBuffer snapshot = create(snapshotPath, snapshotCapacity);
+        int[] end = { headerSize };
+        store.forEachRecord(record -> {
+            byte[] username = record.principal.getUsername().getBytes(StandardCharsets.UTF_8);
+            if (username.length > maxUsernameLength) {
+                return;
+            }
+            if (end[0] + recordSize > snapshotCapacity / 2) {
+                dropped.increment();
+                return;
+            }
+            write(snapshot,
+                    end[0],
+                    createType,
+                    record.idHigh,
+                    record.idLow,
+                    record.principal.getRoles(),
+                    username,
+                    store.toEpochSecond(record.createdSecond),
+                    store.toEpochSecond(record.lastAccessedSecond));
+            end[0] += recordSize;
+        });
+        int snapshotEnd = end[0];
+        snapshot.force(0, snapshotEnd);
+
+        synchronized (this) {
+            if (buffer != null) {
+                int appended = position - mark;
+                snapshot.put(end[0], buffer, mark, appended);
+                end[0] += appended;
+            }
+            Files.move(snapshotPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // the previous file is unmapped once its buffer is collected
+            buffer = snapshot;
+            capacity = snapshotCapacity;
+            position = end[0];
+            compactionRequested = false;
+        }
+        flushedPosition = snapshotEnd;
+        return (snapshotEnd - headerSize) / recordSize;
+    }
+
+    private void restore() throws IOException {
+        ByteBuffer journal;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            journal = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (journal.limit() < headerSize
+                || journal.getInt(0) != magic
+                || journal.getInt(4) != version
+                || journal.getInt(8) != recordSize) {
+            throw new IOException("Not a session journal of this version");
+        }
+        byte[] names = new byte[journal.getInt(12)];
+        journal.get(16, names);
+        List<String> roleNames = Arrays.asList(new String(names, StandardCharsets.UTF_8).split(","));
+
+        for (int offset = headerSize; offset + recordSize <= journal.limit(); offset += recordSize) {
+            int type = journal.getInt(offset + typeOffset);
+            long idHigh = journal.getLong(offset + idHighOffset);
+            long idLow = journal.getLong(offset + idLowOffset);
+            long lastAccessed = Integer.toUnsignedLong(journal.getInt(offset + lastAccessedOffset));
+            switch (type & 0xff) {
+                case createType -> {
+                    UserPrincipal principal = new UserPrincipal(
+                            usernameOf(journal, offset, type),
+                            "",
+                            authoritiesOf(journal.getLong(offset + rolesOffset), roleNames));
+                    long created = Integer.toUnsignedLong(journal.getInt(offset + createdOffset));
+                    store.restore(idHigh, idLow, principal, created, lastAccessed);
+                }
+                case touchType -> store.restoreAccess(idHigh, idLow, lastAccessed);
+                case invalidateType -> store.restoreInvalidation(idHigh, idLow);
+                case invalidateUserType -> store.restoreUserInvalidation(
+                        usernameOf(journal, offset, type),
+                        Integer.toUnsignedLong(journal.getInt(offset + createdOffset)));
+                // the end of the journal, or a record that was being written when the process stopped
+                default -> {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static String usernameOf(ByteBuffer journal, int offset, int type) {
+        byte[] username = new byte[(type >>> 8) & 0xff];
+        journal.get(offset + usernameOffset, username);
+        return new String(username, StandardCharsets.UTF_8);
+    }
+
+    // by name, since the bits of roles may differ between the version that wrote the journal and this one
+    private static List<GrantedAuthority> authoritiesOf(long roles, List<String> roleNames) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        for (int bit = 0; bit < roleNames.size(); bit++) {
+            if ((roles & (1L << bit)) != 0) {
+                authorities.add(new SimpleGrantedAuthority(roleNames.get(bit)));
+            }
+        }
+        return authorities;
+    }
+
+    // session ids are as good as passwords, so only the service's own user may read the file; the permissions are
+    // set on creation, so that no one can open it in between, and again for a file left by an earlier version
+    private static MappedByteBuffer create(Path file, int capacity) throws IOException {
+        boolean posix = file.getFileSystem().supportedFileAttributeViews().contains("posix");
+        FileAttribute<?>[] attributes = posix
+                ? new FileAttribute<?>[] { PosixFilePermissions.asFileAttribute(ownerOnly) }
+                : new FileAttribute<?>[0];
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(
+                file,
+                Set.of(StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE),
+                attributes)) {
+            if (posix) {
+                Files.setPosixFilePermissions(file, ownerOnly);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        byte[] names = String.join(",", Roles.names()).getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(0, magic);
+        buffer.putInt(4, version);
+        buffer.putInt(8, recordSize);
+        buffer.putInt(12, names.length);
+        buffer.put(16, names);
+        return buffer;
+    }
+
+    private static void write(
+            ByteBuffer buffer,
+            int offset,
+            int type,
+            long idHigh,
+            long idLow,
+            long roles,
+            byte[] username,
+            long createdEpochSecond,
+            long lastAccessedEpochSecond) {
+
+        buffer.putInt(offset + lastAccessedOffset, (int) lastAccessedEpochSecond);
+        buffer.putLong(offset + idHighOffset, idHigh);
+        buffer.putLong(offset + idLowOffset, idLow);
+        buffer.putLong(offset + rolesOffset, roles);
+        buffer.putInt(offset + createdOffset, (int) createdEpochSecond);
+        buffer.put(offset + usernameOffset, username);
+        types.setRelease(buffer, offset + typeOffset, type | username.length << 8);
+    }
+
+    // whole records, within what a single mapping can address
+    private static int capacityOf(long size) {
+        long bounded = Math.min(Math.max(size, headerSize + recordSize), Integer.MAX_VALUE);
+        return (int) (bounded - (bounded - headerSize) % recordSize);
+    }
+}
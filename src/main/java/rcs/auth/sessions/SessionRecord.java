@@ -0,0 +1,30 @@
+package rcs.auth.sessions;
+
+import rcs.auth.security.UserPrincipal;
+
+/**
+ * One logged in session: its 128 bit id, the principal that it shares with the user's other sessions, and its
+ * times in seconds since the store's epoch. About 56 bytes with compressed references.
+ */
+final class SessionRecord {
+
+    final long idHigh;
+    final long idLow;
+    final UserPrincipal principal;
+    final int createdSecond;
+    volatile int lastAccessedSecond;
+
+    // owned by the stripe's timing wheel, under the stripe's write lock
+    int wheelDeadline;
+    int wheelSlot = -1;
+    SessionRecord wheelNext;
+    SessionRecord wheelPrevious;
+
+    SessionRecord(long idHigh, long idLow, UserPrincipal principal, int createdSecond, int lastAccessedSecond) {
+        this.idHigh = idHigh;
+        this.idLow = idLow;
+        this.principal = principal;
+        this.createdSecond = createdSecond;
+        this.lastAccessedSecond = lastAccessedSecond;
+    }
+}
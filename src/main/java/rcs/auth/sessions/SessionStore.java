@@ -0,0 +1,601 @@
+package rcs.auth.sessions;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rcs.auth.security.UserPrincipal;
+import rcs.auth.services.UserCredentialsChangedEvent;
+import rcs.auth.services.UserCredentialsChangedEvent.Change;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Logged in sessions, in place of the servlet container's. A session is a compact record of its id, its user's
+ * principal and its times; the principal, which carries the username and authority bits, is shared by all of a
+ * user's sessions and holds no password. Records are kept in striped open addressing tables, read without locking,
+ * and expire through a timing wheel per stripe: a session is scheduled to expire a timeout after it is created,
+ * and when that comes due, rescheduled a timeout after it was last accessed if it has been accessed since, so that
+ * accessing a session only writes its last accessed time.
+ *
+ * Invalidating all of a user's sessions only records the time before which the user's sessions were created
+ * invalid; they are no longer found from then on, and removed when next looked up or when they time out, without
+ * scanning the stripes.
+ *
+ * Session ids are 128 random bits, as 32 hex digits. With a {@link SessionJournal}, sessions are restored from it
+ * when the store starts, and survive a restart.
+ */
+public class SessionStore implements MeterBinder, AutoCloseable {
+
+    private static final int idLength = 32;
+
+    // with compressed references: the record, and the table slot that it occupies at the highest load factor
+    private static final int recordSizeInBytes = 56;
+    private static final int referenceSizeInBytes = 4;
+    private static final int arrayHeaderSizeInBytes = 16;
+    private static final int initialTableSize = 16;
+
+    private final SecureRandom random = new SecureRandom();
+    private final LongSupplier currentTimeMillis;
+    private final long epochMillis;
+    private final int timeoutSeconds;
+    private final Stripe[] stripes;
+    private final SessionJournal journal;
+    private final LongAdder expired = new LongAdder();
+
+    // by username; an entry is kept until every session that it invalidates has timed out
+    private final ConcurrentHashMap<String, UserInvalidation> invalidatedUsers = new ConcurrentHashMap<>();
+
+    // so that sessions of the same user share one principal and its rendered responses
+    private final Cache<String, UserPrincipal> principals = Caffeine.newBuilder()
+            .weakValues()
+            .build();
+
+    private ScheduledExecutorService expiry;
+
+    public SessionStore(Duration timeout, int stripes, LongSupplier currentTimeMillis) {
+        this(timeout, stripes, currentTimeMillis, null);
+    }
+
+    // a null journal keeps sessions in memory only
+    public SessionStore(Duration timeout, int stripes, LongSupplier currentTimeMillis, SessionJournal journal) {
+        if (Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("The number of stripes must be a power of two");
+        }
+        this.currentTimeMillis = currentTimeMillis;
+        this.epochMillis = currentTimeMillis.getAsLong();
+        this.timeoutSeconds = (int) Math.max(1, timeout.toSeconds());
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.journal = journal;
+    }
+
+    public void start() {
+        if (journal != null) {
+            journal.open(this);
+        }
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("session-expiry-");
+        threadFactory.setDaemon(true);
+        expiry = Executors.newSingleThreadScheduledExecutor(threadFactory);
+        expiry.scheduleWithFixedDelay(this::expire, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void close() {
+        if (expiry != null) {
+            expiry.shutdownNow();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("auth.sessions.active", this, SessionStore::size)
+                .description("Logged in sessions")
+                .register(registry);
+        Gauge.builder("auth.sessions.size", this, SessionStore::getSizeInBytes)
+                .description("Memory used by the session store, without the principals that sessions share")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("auth.sessions.expired", expired, LongAdder::sum)
+                .description("Sessions removed after their timeout")
+                .register(registry);
+        if (journal != null) {
+            journal.bindTo(registry);
+        }
+    }
+
+    public String create(User user) {
+        UserPrincipal principal = intern(user);
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        long idHigh = toLong(bytes, 0);
+        long idLow = toLong(bytes, 8);
+        int now = now();
+        SessionRecord record = new SessionRecord(idHigh, idLow, principal, now, now);
+        stripeOf(idHigh).add(record, now + timeoutSeconds);
+        if (journal != null) {
+            journal.created(record, toEpochSecond(now));
+        }
+        return toId(idHigh, idLow);
+    }
+
+    // counts as an access, which extends the session
+    public Optional<UserPrincipal> access(String id) {
+        int now = now();
+        SessionRecord record = get(id, now);
+        if (record == null) {
+            return Optional.empty();
+        }
+        int lastAccessed = record.lastAccessedSecond;
+        if (lastAccessed != now) {
+            record.lastAccessedSecond = now;
+            if (journal != null && isFirstAccessInTouchInterval(lastAccessed, now)) {
+                journal.touched(record, toEpochSecond(now));
+            }
+        }
+        return Optional.of(record.principal);
+    }
+
+    public Optional<UserPrincipal> find(String id) {
+        SessionRecord record = get(id, now());
+        return record == null ? Optional.empty() : Optional.of(record.principal);
+    }
+
+    public boolean invalidate(String id) {
+        if (!isWellFormed(id)) {
+            return false;
+        }
+        long idHigh = parseLong(id, 0);
+        long idLow = parseLong(id, 16);
+        boolean removed = stripeOf(idHigh).remove(idHigh, idLow);
+        if (removed && journal != null) {
+            journal.invalidated(idHigh, idLow);
+        }
+        return removed;
+    }
+
+    // e.g. once their authority changed, so that they log in again; sessions created in the same second are included
+    public void invalidateUser(String username, Instant createdBefore) {
+        invalidateSessionsOf(username, toSecond(createdBefore.getEpochSecond()));
+        if (journal != null) {
+            journal.invalidatedUser(username, createdBefore.getEpochSecond());
+        }
+    }
+
+    // made on this node or, through the change log, on another; after the commit, so that no session created in
+    // between carries the previous authority
+    @EventListener
+    public void onUserCredentialsChanged(UserCredentialsChangedEvent event) {
+        if (event.getChange() != Change.AUTHORITY_UPDATED && event.getChange() != Change.DELETED) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateUser(event.getUsername(), Instant.ofEpochMilli(currentTimeMillis.getAsLong()));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateUser(event.getUsername(), Instant.ofEpochMilli(currentTimeMillis.getAsLong()));
+            }
+        });
+    }
+
+    // removes the sessions whose timeout has passed; also runs every second once started
+    public int expire() {
+        int now = now();
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            count += stripe.expire(now, timeoutSeconds);
+        }
+        expired.add(count);
+        // after the stripes, which have just removed the last of the sessions that these invalidated
+        invalidatedUsers.values().removeIf(invalidation -> now - invalidation.untilSecond >= 0);
+        return count;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    public long getSizeInBytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            bytes += stripe.getSizeInBytes();
+        }
+        return bytes;
+    }
+
+    SessionJournal getJournal() {
+        return journal;
+    }
+
+    // the sessions that have not expired, a stripe at a time, for the journal's snapshots
+    void forEachRecord(Consumer<SessionRecord> action) {
+        int now = now();
+        for (Stripe stripe : stripes) {
+            stripe.forEach(record -> {
+                if (now - record.lastAccessedSecond < timeoutSeconds && !isInvalidated(record)) {
+                    action.accept(record);
+                }
+            });
+        }
+    }
+
+    // replays a journal record; unlike create, access and invalidate, these are not journaled themselves. Sessions
+    // are restored even if they have expired, since a later record may show an access, and removed once all are
+    void restore(long idHigh, long idLow, UserPrincipal principal, long createdEpochSecond, long lastAccessedEpochSecond) {
+        int lastAccessed = toSecond(lastAccessedEpochSecond);
+        Stripe stripe = stripeOf(idHigh);
+        SessionRecord record = stripe.get(idHigh, idLow);
+        if (record == null) {
+            record = new SessionRecord(idHigh, idLow, intern(principal), toSecond(createdEpochSecond), lastAccessed);
+            stripe.add(record, lastAccessed + timeoutSeconds);
+        } else if (lastAccessed - record.lastAccessedSecond > 0) {
+            record.lastAccessedSecond = lastAccessed;
+        }
+    }
+
+    // after restoring, so that sessions that expired while the service was down don't linger until the next expiry
+    void removeExpired() {
+        int now = now();
+        for (Stripe stripe : stripes) {
+            stripe.removeIf(record -> now - record.lastAccessedSecond >= timeoutSeconds || isInvalidated(record));
+        }
+    }
+
+    void restoreAccess(long idHigh, long idLow, long epochSecond) {
+        SessionRecord record = stripeOf(idHigh).get(idHigh, idLow);
+        int lastAccessed = toSecond(epochSecond);
+        if (record != null && lastAccessed - record.lastAccessedSecond > 0) {
+            record.lastAccessedSecond = lastAccessed;
+        }
+    }
+
+    void restoreInvalidation(long idHigh, long idLow) {
+        stripeOf(idHigh).remove(idHigh, idLow);
+    }
+
+    void restoreUserInvalidation(String username, long createdBeforeEpochSecond) {
+        invalidateSessionsOf(username, toSecond(createdBeforeEpochSecond));
+    }
+
+    long toEpochSecond(int second) {
+        return Math.floorDiv(epochMillis, 1000) + second;
+    }
+
+    private int toSecond(long epochSecond) {
+        return (int) (epochSecond - Math.floorDiv(epochMillis, 1000));
+    }
+
+    // the sessions invalidated were last accessed by now at the latest, and are not accessed again
+    private void invalidateSessionsOf(String username, int createdBeforeSecond) {
+        invalidatedUsers.merge(
+                username,
+                new UserInvalidation(createdBeforeSecond, now() + timeoutSeconds),
+                UserInvalidation::latest);
+    }
+
+    private boolean isInvalidated(SessionRecord record) {
+        if (invalidatedUsers.isEmpty()) {
+            return false;
+        }
+        UserInvalidation invalidation = invalidatedUsers.get(record.principal.getUsername());
+        return invalidation != null && record.createdSecond - invalidation.createdBeforeSecond <= 0;
+    }
+
+    private boolean isFirstAccessInTouchInterval(int lastAccessed, int now) {
+        int touchInterval = journal.getTouchIntervalSeconds();
+        return Math.floorDiv(lastAccessed, touchInterval) != Math.floorDiv(now, touchInterval);
+    }
+
+    private SessionRecord get(String id, int now) {
+        if (!isWellFormed(id)) {
+            return null;
+        }
+        long idHigh = parseLong(id, 0);
+        long idLow = parseLong(id, 16);
+        SessionRecord record = stripeOf(idHigh).get(idHigh, idLow);
+        // expired, but not removed yet
+        if (record == null || now - record.lastAccessedSecond >= timeoutSeconds) {
+            return null;
+        }
+        if (isInvalidated(record)) {
+            stripeOf(idHigh).remove(idHigh, idLow);
+            return null;
+        }
+        return record;
+    }
+
+    private UserPrincipal intern(User user) {
+        return principals.asMap().compute(user.getUsername(), (username, principal) ->
+                principal != null && principal.getAuthorities().equals(user.getAuthorities())
+                        ? principal
+                        : UserPrincipal.withPassword(user, ""));
+    }
+
+    private Stripe stripeOf(long idHigh) {
+        return stripes[(int) (idHigh >>> 32) & (stripes.length - 1)];
+    }
+
+    private int now() {
+        return (int) ((currentTimeMillis.getAsLong() - epochMillis) / 1000);
+    }
+
+    private static boolean isWellFormed(String id) {
+        if (id == null || id.length() != idLength) {
+            return false;
+        }
+        for (int i = 0; i < idLength; i++) {
+            if (hexDigit(id.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // only the digits that ids are written with, so that each session has exactly one id
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    private static long parseLong(String id, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 16; i++) {
+            value = (value << 4) | hexDigit(id.charAt(i));
+        }
+        return value;
+    }
+
+    private static long toLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xff);
+        }
+        return value;
+    }
+
+    private static String toId(long idHigh, long idLow) {
+        char[] chars = new char[idLength];
+        for (int i = 15; i >= 0; i--) {
+            chars[i] = Character.forDigit((int) (idHigh & 0xf), 16);
+            idHigh >>>= 4;
+            chars[16 + i] = Character.forDigit((int) (idLow & 0xf), 16);
+            idLow >>>= 4;
+        }
+        return new String(chars);
+    }
+
+    private record UserInvalidation(int createdBeforeSecond, int untilSecond) {
+
+        UserInvalidation latest(UserInvalidation other) {
+            return new UserInvalidation(
+                    createdBeforeSecond - other.createdBeforeSecond >= 0 ? createdBeforeSecond : other.createdBeforeSecond,
+                    untilSecond - other.untilSecond >= 0 ? untilSecond : other.untilSecond);
+        }
+    }
+
+    /**
+     * An open addressing table with linear probing, at most half full, and the timing wheel of its records. Reads
+     * are optimistic and retried under the read lock if a write intervened; writes take the write lock.
+     */
+    private static final class Stripe {
+
+        private final StampedLock lock = new StampedLock();
+        private final TimingWheel wheel = new TimingWheel(0);
+        private SessionRecord[] table = new SessionRecord[initialTableSize];
+        private volatile int size;
+
+        SessionRecord get(long idHigh, long idLow) {
+            long stamp = lock.tryOptimisticRead();
+            SessionRecord record = probe(table, idHigh, idLow);
+            if (!lock.validate(stamp)) {
+                stamp = lock.readLock();
+                try {
+                    record = probe(table, idHigh, idLow);
+                } finally {
+                    lock.unlockRead(stamp);
+                }
+            }
+            return record;
+        }
+
+        void add(SessionRecord record, int deadline) {
+            long stamp = lock.writeLock();
+            try {
+                if ((size + 1) * 2 > table.length) {
+                    resize(table.length * 2);
+                }
+                insert(table, record);
+                size++;
+                wheel.schedule(record, deadline);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        boolean remove(long idHigh, long idLow) {
+            long stamp = lock.writeLock();
+            try {
+                int index = indexOf(idHigh, idLow);
+                if (index < 0) {
+                    return false;
+                }
+                SessionRecord record = table[index];
+                delete(index);
+                wheel.cancel(record);
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int expire(int now, int timeoutSeconds) {
+            long stamp = lock.writeLock();
+            try {
+                int sizeBefore = size;
+                wheel.advance(now, record -> {
+                    int due = record.lastAccessedSecond + timeoutSeconds;
+                    if (due - now > 0) {
+                        wheel.schedule(record, due);
+                    } else {
+                        delete(indexOf(record.idHigh, record.idLow));
+                    }
+                });
+                return sizeBefore - size;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        List<SessionRecord> removeIf(Predicate<SessionRecord> predicate) {
+            long stamp = lock.writeLock();
+            try {
+                List<SessionRecord> removed = new ArrayList<>();
+                for (SessionRecord record : table) {
+                    if (record != null && predicate.test(record)) {
+                        removed.add(record);
+                    }
+                }
+                // after the scan, since deleting shifts records back
+                for (SessionRecord record : removed) {
+                    delete(indexOf(record.idHigh, record.idLow));
+                    wheel.cancel(record);
+                }
+                return removed;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void forEach(Consumer<SessionRecord> action) {
+            long stamp = lock.readLock();
+            try {
+                for (SessionRecord record : table) {
+                    if (record != null) {
+                        action.accept(record);
+                    }
+                }
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        long getSizeInBytes() {
+            // a racy read of the table length is close enough for a gauge
+            return arrayHeaderSizeInBytes
+                    + (long) table.length * referenceSizeInBytes
+                    + (long) size * recordSizeInBytes
+                    + TimingWheel.sizeInBytes;
+        }
+
+        // reads the table once, so that a concurrent resize cannot send the probe out of bounds
+        private static SessionRecord probe(SessionRecord[] table, long idHigh, long idLow) {
+            int mask = table.length - 1;
+            int index = hash(idLow) & mask;
+            for (int probes = 0; probes <= mask; probes++) {
+                SessionRecord record = table[index];
+                if (record == null) {
+                    return null;
+                }
+                if (record.idLow == idLow && record.idHigh == idHigh) {
+                    return record;
+                }
+                index = (index + 1) & mask;
+            }
+            return null;
+        }
+
+        private int indexOf(long idHigh, long idLow) {
+            int mask = table.length - 1;
+            int index = hash(idLow) & mask;
+            while (table[index] != null) {
+                if (table[index].idLow == idLow && table[index].idHigh == idHigh) {
+                    return index;
+                }
+                index = (index + 1) & mask;
+            }
+            return -1;
+        }
+
+        // shifts the records that follow back into the gap, so that probes never need tombstones
+        private void delete(int index) {
+            int mask = table.length - 1;
+            table[index] = null;
+            size--;
+            int next = (index + 1) & mask;
+            while (table[next] != null) {
+                int home = hash(table[next].idLow) & mask;
+                if (((next - home) & mask) >= ((next - index) & mask)) {
+                    table[index] = table[next];
+                    table[next] = null;
+                    index = next;
+                }
+                next = (next + 1) & mask;
+            }
+            if (table.length > initialTableSize && size * 8 < table.length) {
+                resize(table.length / 2);
+            }
+        }
+
+        private void resize(int length) {
+            SessionRecord[] resized = new SessionRecord[length];
+            for (SessionRecord record : table) {
+                if (record != null) {
+                    insert(resized, record);
+                }
+            }
+            table = resized;
+        }
+
+        private static void insert(SessionRecord[] table, SessionRecord record) {
+            int mask = table.length - 1;
+            int index = hash(record.idLow) & mask;
+            while (table[index] != null) {
+                index = (index + 1) & mask;
+            }
+            table[index] = record;
+        }
+
+        // the ids are random, so their bits are hash enough
+        private static int hash(long idLow) {
+            return (int) idLow;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package rcs.auth.sessions;
+
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel of one second ticks: four levels of 64 slots, where each slot of a level spans all
+ * the slots of the level below. A record is placed in the lowest level whose span covers its deadline, and moves
+ * down a level each time the wheel reaches its slot, so that scheduling, cancelling and each tick cost the same
+ * however many records are scheduled. Deadlines beyond the top level, about 194 days, are brought forward to it.
+ *
+ * Records are linked into their slot's list, so the wheel allocates nothing per record. Not thread safe.
+ */
+final class TimingWheel {
+
+    private static final int bitsPerLevel = 6;
+    private static final int slotsPerLevel = 1 << bitsPerLevel;
+    private static final int slotMask = slotsPerLevel - 1;
+    private static final int levels = 4;
+    private static final int maxDelta = (1 << (bitsPerLevel * levels)) - 1;
+
+    static final int sizeInBytes = 16 + levels * slotsPerLevel * 4;
+
+    private final SessionRecord[] heads = new SessionRecord[levels * slotsPerLevel];
+
+    // the last second whose slot has been processed
+    private int tick;
+
+    TimingWheel(int tick) {
+        this.tick = tick;
+    }
+
+    int getTick() {
+        return tick;
+    }
+
+    // deadlines that have passed are due on the next tick
+    void schedule(SessionRecord record, int deadline) {
+        place(record, Math.max(deadline, tick + 1), tick);
+    }
+
+    void cancel(SessionRecord record) {
+        if (record.wheelSlot < 0) {
+            return;
+        }
+        if (record.wheelPrevious == null) {
+            heads[record.wheelSlot] = record.wheelNext;
+        } else {
+            record.wheelPrevious.wheelNext = record.wheelNext;
+        }
+        if (record.wheelNext != null) {
+            record.wheelNext.wheelPrevious = record.wheelPrevious;
+        }
+        record.wheelNext = null;
+        record.wheelPrevious = null;
+        record.wheelSlot = -1;
+    }
+
+    // hands each record whose deadline is up to now to the consumer, which may schedule it again
+    void advance(int now, Consumer<SessionRecord> due) {
+        while (tick - now < 0) {
+            int next = tick + 1;
+            for (int level = levels - 1; level > 0; level--) {
+                if ((next & ((1 << (bitsPerLevel * level)) - 1)) == 0) {
+                    cascade(level, next);
+                }
+            }
+            SessionRecord record = detach(next & slotMask);
+            tick = next;
+            while (record != null) {
+                SessionRecord following = record.wheelNext;
+                record.wheelNext = null;
+                record.wheelPrevious = null;
+                record.wheelSlot = -1;
+                due.accept(record);
+                record = following;
+            }
+        }
+    }
+
+    // the records of the level's current slot are all due within the level below's span, counting from now
+    private void cascade(int level, int now) {
+        SessionRecord record = detach(level * slotsPerLevel + ((now >>> (bitsPerLevel * level)) & slotMask));
+        while (record != null) {
+            SessionRecord following = record.wheelNext;
+            record.wheelNext = null;
+            record.wheelPrevious = null;
+            record.wheelSlot = -1;
+            place(record, record.wheelDeadline, now);
+            record = following;
+        }
+    }
+
+    private void place(SessionRecord record, int deadline, int now) {
+        int delta = Math.min(deadline - now, maxDelta);
+        deadline = now + delta;
+
+        int level = 0;
+        while (level < levels - 1 && delta >= 1 << (bitsPerLevel * (level + 1))) {
+            level++;
+        }
+        int slot = level * slotsPerLevel + ((deadline >>> (bitsPerLevel * level)) & slotMask);
+
+        record.wheelDeadline = deadline;
+        record.wheelSlot = slot;
+        record.wheelPrevious = null;
+        record.wheelNext = heads[slot];
+        if (heads[slot] != null) {
+            heads[slot].wheelPrevious = record;
+        }
+        heads[slot] = record;
+    }
+
+    private SessionRecord detach(int slot) {
+        SessionRecord head = heads[slot];
+        heads[slot] = null;
+        return head;
+    }
+}
@@ -0,0 +1,35 @@
+package rcs.auth.tokens;
+
+import javax.crypto.Mac;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+
+public class AccessTokenIssuer {
+
+    private final String keyId;
+    private final Mac mac;
+    private final Duration timeToLive;
+    private final Clock clock;
+
+    public AccessTokenIssuer(String keyId, byte[] key, Duration timeToLive, Clock clock) {
+        this.keyId = keyId;
+        this.mac = AccessTokenVerifier.newMac(key);
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+    }
+
+    public String issue(String username, Set<String> roles) {
+        long now = clock.millis();
+        return AccessTokenVerifier.encode(
+                mac,
+                keyId,
+                new VerifiedAccessToken(
+                        UUID.randomUUID().toString(),
+                        username,
+                        roles,
+                        now,
+                        now + timeToLive.toMillis()));
+    }
+}
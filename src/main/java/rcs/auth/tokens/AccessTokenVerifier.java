@@ -0,0 +1,118 @@
+package rcs.auth.tokens;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/*
+ * Self-contained (JDK only) so that downstream services can embed it and validate tokens without calling us.
+ *
+ * Token layout: <keyId>.<base64url(tokenId|issuedAtMillis|expiresAtMillis|role,role|username)>.<base64url(hmac)>
+ * where the HMAC-SHA256 covers "<keyId>.<payload>".
+ */
+public class AccessTokenVerifier {
+
+    static final String algorithm = "HmacSHA256";
+
+    private static final Base64.Encoder base64Encoder = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder base64Decoder = Base64.getUrlDecoder();
+
+    private final Map<String, Mac> macsByKeyId;
+    private final Clock clock;
+    private final Predicate<VerifiedAccessToken> isRevoked;
+
+    // every key listed here is accepted, which allows rotating the signing key without invalidating live tokens
+    public AccessTokenVerifier(Map<String, byte[]> keysById, Clock clock, Predicate<VerifiedAccessToken> isRevoked) {
+        this.macsByKeyId = new HashMap<>();
+        keysById.forEach((keyId, key) -> macsByKeyId.put(keyId, newMac(key)));
+        this.clock = clock;
+        this.isRevoked = isRevoked;
+    }
+
+    public Optional<VerifiedAccessToken> verify(String token) {
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot <= 0 || lastDot == firstDot) {
+            return Optional.empty();
+        }
+
+        Mac prototype = macsByKeyId.get(token.substring(0, firstDot));
+        if (prototype == null) {
+            return Optional.empty();
+        }
+
+        byte[] expectedSignature = sign(prototype, token.substring(0, lastDot));
+        byte[] actualSignature;
+        String payload;
+        try {
+            actualSignature = base64Decoder.decode(token.substring(lastDot + 1));
+            payload = new String(base64Decoder.decode(token.substring(firstDot + 1, lastDot)), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (!MessageDigest.isEqual(expectedSignature, actualSignature)) {
+            return Optional.empty();
+        }
+
+        return parsePayload(payload)
+                .filter(verified -> verified.expiresAtMillis() > clock.millis())
+                .filter(verified -> !isRevoked.test(verified));
+    }
+
+    static String encode(Mac prototype, String keyId, VerifiedAccessToken token) {
+        String payload = token.tokenId() + '|' +
+                token.issuedAtMillis() + '|' +
+                token.expiresAtMillis() + '|' +
+                String.join(",", token.roles()) + '|' +
+                token.username();
+        String signed = keyId + '.' + base64Encoder.encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+        return signed + '.' + base64Encoder.encodeToString(sign(prototype, signed));
+    }
+
+    static Mac newMac(byte[] key) {
+        try {
+            Mac mac = Mac.getInstance(algorithm);
+            mac.init(new SecretKeySpec(key, algorithm));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Invalid access token key", e);
+        }
+    }
+
+    // Mac instances are not thread safe; cloning an initialized one is cheaper than Mac.getInstance
+    private static byte[] sign(Mac prototype, String value) {
+        Mac mac;
+        try {
+            mac = (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+        return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Optional<VerifiedAccessToken> parsePayload(String payload) {
+        String[] fields = payload.split("\\|", 5);
+        if (fields.length != 5) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new VerifiedAccessToken(
+                    fields[0],
+                    fields[4],
+                    fields[3].isEmpty() ? Set.of() : Set.of(fields[3].split(",")),
+                    Long.parseLong(fields[1]),
+                    Long.parseLong(fields[2])));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package rcs.auth.tokens;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.function.Predicate;
+
+// entries only need to outlive the tokens they revoke, so they expire after the token time-to-live
+public class TokenRevocationList implements Predicate<VerifiedAccessToken> {
+
+    private final Cache<String, Boolean> revokedTokenIds;
+    private final Cache<String, Long> usersRevokedAtMillis;
+    private final long tokenTimeToLiveMillis;
+    private final Clock clock;
+
+    public TokenRevocationList(Duration tokenTimeToLive, Clock clock) {
+        this.revokedTokenIds = Caffeine.newBuilder()
+                .expireAfterWrite(tokenTimeToLive)
+                .build();
+        this.usersRevokedAtMillis = Caffeine.newBuilder()
+                .expireAfterWrite(tokenTimeToLive)
+                .build();
+        this.tokenTimeToLiveMillis = tokenTimeToLive.toMillis();
+        this.clock = clock;
+    }
+
+    public void revokeToken(String tokenId) {
+        revokedTokenIds.put(tokenId, true);
+    }
+
+    // e.g. when the token was revoked on another node
+    public void revokeToken(String tokenId, long revokedAtMillis) {
+        if (revokedAtMillis + tokenTimeToLiveMillis <= clock.millis()) {
+            return; // the token has expired
+        }
+        revokeToken(tokenId);
+    }
+
+    // revokes every token issued to the user so far
+    public void revokeUser(String username) {
+        revokeUser(username, clock.millis());
+    }
+
+    // revokes the tokens issued to the user up to the given time, e.g. when it changed while this node was down
+    public void revokeUser(String username, long revokedAtMillis) {
+        if (revokedAtMillis + tokenTimeToLiveMillis <= clock.millis()) {
+            return; // every token that this would revoke has expired
+        }
+        usersRevokedAtMillis.asMap().merge(username, revokedAtMillis, Math::max);
+    }
+
+    @Override
+    public boolean test(VerifiedAccessToken token) {
+        if (revokedTokenIds.getIfPresent(token.tokenId()) != null) {
+            return true;
+        }
+        Long revokedAt = usersRevokedAtMillis.getIfPresent(token.username());
+        return revokedAt != null && token.issuedAtMillis() <= revokedAt;
+    }
+}
@@ -0,0 +1,11 @@
+package rcs.auth.tokens;
+
+import java.util.Set;
+
+public record VerifiedAccessToken(
+        String tokenId,
+        String username,
+        Set<String> roles,
+        long issuedAtMillis,
+        long expiresAtMillis) {
+}
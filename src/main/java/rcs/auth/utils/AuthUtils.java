@@ -1,13 +1,13 @@
 package rcs.auth.utils;
 
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.stereotype.Service;
+import rcs.auth.security.Roles;
+import rcs.auth.security.UserPrincipal;
 import rcs.auth.services.UserCredentialsService;
 
-import java.util.Collection;
 import java.util.Optional;
 
 @Service
@@ -33,17 +33,10 @@ public class AuthUtils {
     }
 
     public boolean isAdmin(String username) {
-        return isAdmin(userCredentialsService.loadUserByUsername(username).getAuthorities());
+        return Roles.isAdmin(UserPrincipal.rolesOf(userCredentialsService.loadUserByUsername(username)));
     }
 
     public boolean isAdmin(User user) {
-        return isAdmin(user.getAuthorities());
-    }
-
-    private boolean isAdmin(Collection<? extends GrantedAuthority> authorities) {
-        return authorities.stream()
-                .map(GrantedAuthority::getAuthority)
-                .map(Object::toString)
-                .anyMatch(role -> role.equals("ADMIN"));
+        return Roles.isAdmin(UserPrincipal.rolesOf(user));
     }
 }
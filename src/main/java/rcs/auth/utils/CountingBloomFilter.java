@@ -0,0 +1,115 @@
+package rcs.auth.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter whose cells are 4-bit counters rather than bits, so that elements can be removed again. Sixteen
+ * counters are packed into each long and updated with compare-and-set. A counter that reaches 15 is never
+ * decremented, since it may have overflowed; an element must only be removed if it was added.
+ */
+public class CountingBloomFilter {
+
+    private static final int bitsPerCounter = 4;
+    private static final int countersPerLong = Long.SIZE / bitsPerCounter;
+    private static final long maxCount = (1L << bitsPerCounter) - 1;
+
+    private final AtomicLongArray cells;
+    private final long counters;
+    private final int hashFunctions;
+
+    public CountingBloomFilter(long expectedElements, double falsePositiveRate) {
+        long optimalCounters = (long) Math.ceil(
+                -expectedElements * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int longs = (int) Math.max(1, (optimalCounters + countersPerLong - 1) / countersPerLong);
+        this.cells = new AtomicLongArray(longs);
+        this.counters = (long) longs * countersPerLong;
+        this.hashFunctions = (int) Math.max(1, Math.round((double) counters / expectedElements * Math.log(2)));
+    }
+
+    public void add(String element) {
+        long hash = hash(element);
+        for (int i = 0; i < hashFunctions; i++) {
+            increment(counter(hash, i));
+        }
+    }
+
+    public void remove(String element) {
+        long hash = hash(element);
+        for (int i = 0; i < hashFunctions; i++) {
+            decrement(counter(hash, i));
+        }
+    }
+
+    // false means the element was definitely not added, or has been removed
+    public boolean mightContain(String element) {
+        long hash = hash(element);
+        for (int i = 0; i < hashFunctions; i++) {
+            long counter = counter(hash, i);
+            if (count(cells.get(index(counter)), counter) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getSizeInBytes() {
+        return (long) cells.length() * Long.BYTES;
+    }
+
+    private void increment(long counter) {
+        int index = index(counter);
+        while (true) {
+            long cell = cells.get(index);
+            long count = count(cell, counter);
+            if (count == maxCount || cells.compareAndSet(index, cell, cell + unit(counter))) {
+                return;
+            }
+        }
+    }
+
+    private void decrement(long counter) {
+        int index = index(counter);
+        while (true) {
+            long cell = cells.get(index);
+            long count = count(cell, counter);
+            if (count == 0 || count == maxCount || cells.compareAndSet(index, cell, cell - unit(counter))) {
+                return;
+            }
+        }
+    }
+
+    // double hashing: the i-th hash function is h1 + i * h2
+    private long counter(long hash, int i) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        return Integer.toUnsignedLong(h1 + i * h2) % counters;
+    }
+
+    private static int index(long counter) {
+        return (int) (counter / countersPerLong);
+    }
+
+    private static long count(long cell, long counter) {
+        return (cell >>> shift(counter)) & maxCount;
+    }
+
+    private static long unit(long counter) {
+        return 1L << shift(counter);
+    }
+
+    private static int shift(long counter) {
+        return (int) (counter % countersPerLong) * bitsPerCounter;
+    }
+
+    // 64-bit FNV-1a over the UTF-8 bytes, followed by a finalizer that spreads every input bit over the output
+    private static long hash(String element) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : element.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+}
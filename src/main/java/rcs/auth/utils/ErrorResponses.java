@@ -0,0 +1,48 @@
+package rcs.auth.utils;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Error responses with a fixed body per status, encoded once. Unlike {@link HttpServletResponse#sendError}, writing
+ * them does not dispatch the request again through the filter chain to the error controller. The body has the
+ * status and error fields of Spring Boot's error response, without the timestamp and path.
+ */
+public final class ErrorResponses {
+
+    private static final Map<HttpStatus, byte[]> bodies = new EnumMap<>(HttpStatus.class);
+
+    static {
+        for (HttpStatus status : HttpStatus.values()) {
+            bodies.put(status, ("{\"status\":" + status.value() + ",\"error\":\"" + status.getReasonPhrase() + "\"}")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private ErrorResponses() { }
+
+    public static void write(HttpServletResponse response, HttpStatus status) throws IOException {
+        if (response.isCommitted()) {
+            return;
+        }
+        byte[] body = bodies.get(status);
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+        response.flushBuffer();
+    }
+
+    public static ResponseEntity<byte[]> of(HttpStatus status) {
+        return ResponseEntity.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(bodies.get(status));
+    }
+}
@@ -2,4 +2,14 @@ CREATE TABLE user_credentials (
   username    VARCHAR(32) PRIMARY KEY,
   password    VARCHAR(128) NOT NULL,
   authority   INTEGER NOT NULL
+);
+
+CREATE TABLE user_credentials_changes (
+  id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+  username    VARCHAR(32) NOT NULL,
+  change_type VARCHAR(32) NOT NULL,
+  node        VARCHAR(36) NOT NULL,
+  changed_at  TIMESTAMP NOT NULL,
+  token_id    VARCHAR(36),
+  INDEX changed_at_index (changed_at)
 );
\ No newline at end of file
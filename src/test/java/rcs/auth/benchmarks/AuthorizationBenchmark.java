@@ -0,0 +1,178 @@
+package rcs.auth.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.access.expression.ExpressionUtils;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.web.FilterInvocation;
+import org.springframework.security.web.access.expression.DefaultWebSecurityExpressionHandler;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.test.util.ReflectionTestUtils;
+import rcs.auth.api.models.AuthenticatedUser;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.controllers.AuthController;
+import rcs.auth.security.EndpointSecurity;
+import rcs.auth.security.UserPrincipal;
+import rcs.auth.utils.AuthUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-request work that does not touch the database: authorization checks, the GET /authenticate response
+ * mapping and its JSON serialization.
+ *
+ * The *Expression benchmarks evaluate the access expressions that the routes used before, the way WebExpressionVoter
+ * does on every request; the *Rule benchmarks check the same routes with the AuthorizationManager rules that replaced
+ * them. Both include matching the path variables.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuthorizationBenchmark {
+
+    private AuthUtils authUtils;
+    private EndpointSecurity endpointSecurity;
+    private DefaultWebSecurityExpressionHandler expressionHandler;
+    private Expression adminExpression;
+    private Expression updatePasswordExpression;
+    private AuthorizationManager<RequestAuthorizationContext> adminRule;
+    private AuthorizationManager<RequestAuthorizationContext> updatePasswordRule;
+    private AntPathRequestMatcher updatePasswordMatcher;
+    private MockHttpServletRequest updatePasswordRequest;
+    private FilterInvocation updatePasswordInvocation;
+    private AuthController authController;
+    private ObjectMapper objectMapper;
+
+    private User admin;
+    private Authentication adminAuthentication;
+    private Authentication userAuthentication;
+    private AuthenticatedUser authenticatedUser;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        authUtils = new AuthUtils(null);
+        endpointSecurity = new EndpointSecurity();
+        authController = new AuthController();
+        ReflectionTestUtils.setField(authController, "authUtils", authUtils);
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        admin = user("admin", UserAuthority.ADMIN);
+        User user = user("user", UserAuthority.USER);
+        userAuthentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+        authenticatedUser = new AuthenticatedUser(user.getUsername(), UserAuthority.USER.getRoles());
+        adminAuthentication = new UsernamePasswordAuthenticationToken(admin, null, admin.getAuthorities());
+
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBean("endpointSecurity", EndpointSecurity.class, () -> endpointSecurity);
+        context.refresh();
+        expressionHandler = new DefaultWebSecurityExpressionHandler();
+        expressionHandler.setApplicationContext(context);
+        adminExpression = expressionHandler.getExpressionParser()
+                .parseExpression("hasAuthority('ADMIN')");
+        updatePasswordExpression = expressionHandler.getExpressionParser()
+                .parseExpression("@endpointSecurity.canUpdatePassword(authentication, #username)");
+        adminRule = endpointSecurity.admin();
+        updatePasswordRule = endpointSecurity.adminOrSelf("username");
+
+        updatePasswordMatcher = new AntPathRequestMatcher("/users/{username}/password", "PUT");
+        updatePasswordRequest = new MockHttpServletRequest("PUT", "/users/user/password");
+        updatePasswordRequest.setServletPath("/users/user/password");
+        updatePasswordInvocation = new FilterInvocation(
+                updatePasswordRequest, new MockHttpServletResponse(), new MockFilterChain());
+
+        // thread scoped state, so this runs on the benchmark thread
+        SecurityContextHolder.getContext().setAuthentication(userAuthentication);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public boolean isAdmin() {
+        return authUtils.isAdmin(admin);
+    }
+
+    @Benchmark
+    public boolean canUpdateOwnPassword() {
+        return endpointSecurity.canUpdatePassword(userAuthentication, "user");
+    }
+
+    @Benchmark
+    public boolean canUpdateOtherPassword() {
+        return endpointSecurity.canUpdatePassword(userAuthentication, "admin");
+    }
+
+    @Benchmark
+    public boolean adminExpression() {
+        EvaluationContext context = expressionHandler.createEvaluationContext(
+                adminAuthentication, updatePasswordInvocation);
+        return ExpressionUtils.evaluateAsBoolean(adminExpression, context);
+    }
+
+    @Benchmark
+    public boolean adminRule() {
+        return adminRule.check(() -> adminAuthentication, new RequestAuthorizationContext(updatePasswordRequest))
+                .isGranted();
+    }
+
+    @Benchmark
+    public boolean updatePasswordExpression() {
+        EvaluationContext context = expressionHandler.createEvaluationContext(
+                userAuthentication, updatePasswordInvocation);
+        updatePasswordMatcher.matcher(updatePasswordRequest).getVariables().forEach(context::setVariable);
+        return ExpressionUtils.evaluateAsBoolean(updatePasswordExpression, context);
+    }
+
+    @Benchmark
+    public boolean updatePasswordRule() {
+        RequestAuthorizationContext context = new RequestAuthorizationContext(
+                updatePasswordRequest,
+                updatePasswordMatcher.matcher(updatePasswordRequest).getVariables());
+        return updatePasswordRule.check(() -> userAuthentication, context)
+                .isGranted();
+    }
+
+    @Benchmark
+    public ResponseEntity<AuthenticatedUser> getLoggedInUser() {
+        return authController.getLoggedInUser();
+    }
+
+    @Benchmark
+    public byte[] serializeAuthenticatedUser() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(authenticatedUser);
+    }
+
+    private static User user(String username, UserAuthority authority) {
+        return new UserPrincipal(username, "", authority);
+    }
+}
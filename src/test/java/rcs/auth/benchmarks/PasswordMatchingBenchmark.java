@@ -0,0 +1,51 @@
+package rcs.auth.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import rcs.auth.security.CostAwareBCryptPasswordEncoder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PasswordEncoder#matches} as configured in AuthConfig, at a range of BCrypt costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class PasswordMatchingBenchmark {
+
+    private static final String password = "p455w0rd";
+
+    @Param({ "4", "8", "10", "12" })
+    private int cost;
+
+    private PasswordEncoder encoder;
+    private String encodedPassword;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        encoder = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", new CostAwareBCryptPasswordEncoder(cost)));
+        encodedPassword = encoder.encode(password);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return encoder.matches(password, encodedPassword);
+    }
+}
@@ -0,0 +1,144 @@
+package rcs.auth.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.web.FilterChainProxy;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.security.SessionStoreSecurityContextRepository;
+import rcs.auth.security.UserPrincipal;
+import rcs.auth.sessions.SessionStore;
+import rcs.auth.testutils.EmbeddedAuthApplication;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.Cookie;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * One request through the security filter chains, without the MVC handler behind them, per route group. At the end
+ * of the trial, prints the number of filters that the request passes and the bytes it allocates, excluding the mock
+ * request and response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecurityFilterChainBenchmark {
+
+    private static final FilterChain handler = (request, response) -> { };
+
+    @Param({ "register", "authenticate", "preflight" })
+    private String route;
+
+    private EmbeddedAuthApplication application;
+    private FilterChainProxy filterChainProxy;
+    private Cookie sessionCookie;
+    private Supplier<MockHttpServletRequest> requests;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        application = EmbeddedAuthApplication.start(Map.of());
+        filterChainProxy = application.getBean(FilterChainProxy.class);
+
+        sessionCookie = new Cookie(
+                SessionStoreSecurityContextRepository.cookieName,
+                application.getBean(SessionStore.class).create(new UserPrincipal("user", "", UserAuthority.USER)));
+
+        switch (route) {
+            case "register":
+                requests = () -> {
+                    MockHttpServletRequest request = request("POST", "/register");
+                    request.setParameter("username", "user");
+                    request.setParameter("password", "password");
+                    return request;
+                };
+                break;
+            case "authenticate":
+                requests = () -> {
+                    MockHttpServletRequest request = request("GET", "/authenticate");
+                    request.setCookies(sessionCookie);
+                    return request;
+                };
+                break;
+            case "preflight":
+                requests = () -> {
+                    MockHttpServletRequest request = request("OPTIONS", "/register");
+                    request.addHeader(HttpHeaders.ORIGIN, "https://example.com");
+                    request.addHeader(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, "POST");
+                    return request;
+                };
+                break;
+            default:
+                throw new IllegalArgumentException(route);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws ServletException, IOException {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int requestCount = 10_000;
+
+        long start = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < requestCount; i++) {
+            requests.get();
+            new MockHttpServletResponse();
+        }
+        long mocks = threads.getThreadAllocatedBytes(threadId) - start;
+
+        start = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < requestCount; i++) {
+            filter();
+        }
+        long total = threads.getThreadAllocatedBytes(threadId) - start;
+
+        System.out.printf("%n%s: %d filters, %d bytes allocated per request%n",
+                route,
+                filterCount(requests.get()),
+                (total - mocks) / requestCount);
+
+        application.close();
+    }
+
+    @Benchmark
+    public MockHttpServletResponse filter() throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filterChainProxy.doFilter(requests.get(), response, handler);
+        return response;
+    }
+
+    private int filterCount(MockHttpServletRequest request) {
+        return filterChainProxy.getFilterChains().stream()
+                .filter(chain -> chain.matches(request))
+                .findFirst()
+                .map(chain -> chain.getFilters().size())
+                .orElse(0);
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        return request;
+    }
+}
@@ -0,0 +1,122 @@
+package rcs.auth.benchmarks;
+
+import org.apache.catalina.Session;
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.session.StandardManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.session.SessionInformation;
+import org.springframework.security.core.session.SessionRegistry;
+import org.springframework.security.core.session.SessionRegistryImpl;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.security.UserPrincipal;
+import rcs.auth.sessions.SessionStore;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looking up and touching a logged in session, as every session authenticated request does, among a given number
+ * of sessions: in the servlet container's sessions, with the security context and session registry entry that
+ * Spring Security kept per session, or in the {@link SessionStore}. At the end of the trial, prints the heap that
+ * each session retains, not counting its id, which the benchmark keeps to look it up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class SessionStoreBenchmark {
+
+    @Param({ "container", "store" })
+    private String sessions;
+
+    @Param("200000")
+    private int sessionCount;
+
+    @Param("10000")
+    private int users;
+
+    private StandardManager manager;
+    private SessionRegistry sessionRegistry;
+    private SessionStore sessionStore;
+    private String[] sessionIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        manager = new StandardManager();
+        manager.setContext(new StandardContext());
+        sessionRegistry = new SessionRegistryImpl();
+        sessionStore = new SessionStore(Duration.ofMinutes(30), 16, System::currentTimeMillis);
+        sessionIds = new String[sessionCount];
+
+        for (int i = 0; i < sessionCount; i++) {
+            // as loaded on login, after spring security erased its password
+            UserPrincipal user = new UserPrincipal("user" + (i % users), "", UserAuthority.USER);
+            user.eraseCredentials();
+            sessionIds[i] = sessions.equals("container") ? createContainerSession(user) : sessionStore.create(user);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        long withSessions = usedHeap();
+        manager = null;
+        sessionRegistry = null;
+        sessionStore = null;
+        long withoutSessions = usedHeap();
+        System.out.printf("%n%s: %d bytes per session%n", sessions, (withSessions - withoutSessions) / sessionCount);
+    }
+
+    @Benchmark
+    public Object access() throws IOException {
+        next = (next + 1) % sessionCount;
+        String sessionId = sessionIds[next];
+        if (sessions.equals("container")) {
+            Session session = manager.findSession(sessionId);
+            session.access();
+            SessionInformation information = sessionRegistry.getSessionInformation(sessionId);
+            information.refreshLastRequest();
+            session.endAccess();
+            return session.getSession().getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        }
+        return sessionStore.access(sessionId).orElseThrow();
+    }
+
+    private String createContainerSession(UserPrincipal user) {
+        String sessionId = UUID.randomUUID().toString().replace("-", "").toUpperCase();
+        Session session = manager.createSession(sessionId);
+        SecurityContext context = new SecurityContextImpl(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        session.getSession().setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, context);
+        sessionRegistry.registerNewSession(sessionId, user);
+        return sessionId;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,110 @@
+package rcs.auth.benchmarks;
+
+import ch.qos.logback.classic.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import rcs.auth.repositories.UserCredentialsRepositoryImpl;
+import rcs.auth.repositories.models.UserCredentials;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old string-built UPDATE, which H2 has to parse on every call because each
+ * statement text is unique, with the parameterized statements of {@link UserCredentialsRepositoryImpl}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserCredentialsUpdateBenchmark {
+
+    @Param("1000")
+    private int users;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate template;
+    private UserCredentialsRepositoryImpl repository;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        // without a logback configuration on the test classpath every statement is logged at debug
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(ch.qos.logback.classic.Level.WARN);
+
+        dataSource = new SingleConnectionDataSource("jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1", true);
+        // commits are batched per iteration so that statement preparation, not the store, dominates
+        dataSource.setAutoCommit(false);
+        template = new JdbcTemplate(dataSource);
+        template.execute("create table " + UserCredentials.tableName +
+                " (" + UserCredentials.Fields.username + " varchar primary key, " +
+                UserCredentials.Fields.password + " varchar, " +
+                UserCredentials.Fields.authority + " int)");
+        for (int i = 0; i < users; i++) {
+            template.update(
+                    "insert into " + UserCredentials.tableName + " values (?, ?, 0)",
+                    username(i),
+                    "password");
+        }
+        commit();
+        repository = new UserCredentialsRepositoryImpl(template, 0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void commit() throws SQLException {
+        dataSource.getConnection().commit();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        template.execute("drop table " + UserCredentials.tableName);
+        dataSource.destroy();
+    }
+
+    @Benchmark
+    public int stringBuiltUpdate() {
+        int i = nextUser();
+        return template.update(legacyUpdateQuery(username(i), UserCredentials.Fields.password, "password" + i));
+    }
+
+    @Benchmark
+    public boolean parameterizedUpdate() {
+        int i = nextUser();
+        return repository.updatePassword(username(i), "password" + i);
+    }
+
+    private int nextUser() {
+        next = (next + 1) % users;
+        return next;
+    }
+
+    private static String username(int i) {
+        return "user" + i;
+    }
+
+    // the statement UserCredentialsRepositoryImpl used to build before it switched to bind parameters
+    private static String legacyUpdateQuery(String username, String field, Object newValue) {
+        return "update ${table} c set c.${fieldToUpdate} = '${newValue}' where c.${fieldToMatch} = '${valueToMatch}'"
+                .replace("${table}", UserCredentials.tableName)
+                .replace("${fieldToUpdate}", field)
+                .replace("${newValue}", newValue.toString())
+                .replace("${fieldToMatch}", UserCredentials.Fields.username)
+                .replace("${valueToMatch}", username);
+    }
+}
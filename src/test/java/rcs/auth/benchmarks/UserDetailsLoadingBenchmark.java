@@ -0,0 +1,79 @@
+package rcs.auth.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.User;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.repositories.UserCredentialsRepository;
+import rcs.auth.repositories.models.UserCredentials;
+import rcs.auth.services.UserCredentialsService;
+import rcs.auth.services.UsernameFilter;
+import rcs.auth.testutils.EmbeddedAuthApplication;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * {@link UserCredentialsService#loadUserByUsername}, the lookup behind every login, through the full Spring context
+ * against H2, with and without the user details cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDetailsLoadingBenchmark {
+
+    @Param({ "true", "false" })
+    private boolean cached;
+
+    @Param("1000")
+    private int users;
+
+    private EmbeddedAuthApplication application;
+    private UserCredentialsService userCredentialsService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        application = EmbeddedAuthApplication.start(Map.of(
+                "auth.user-details-cache.maximum-size", cached ? "10000" : "0"));
+        userCredentialsService = application.getBean(UserCredentialsService.class);
+
+        List<UserCredentials> credentials = IntStream.range(0, users)
+                .mapToObj(i -> new UserCredentials(username(i), "{bcrypt}not-a-real-hash", UserAuthority.USER))
+                .collect(Collectors.toList());
+        application.getBean(UserCredentialsRepository.class).insertAll(credentials);
+        application.getBean(UsernameFilter.class).rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public User loadUserByUsername() {
+        next = (next + 1) % users;
+        return userCredentialsService.loadUserByUsername(username(next));
+    }
+
+    private static String username(int i) {
+        return "user" + i;
+    }
+}
@@ -1,26 +1,52 @@
 package rcs.auth.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import rcs.auth.api.models.AuthenticatedUser;
 import rcs.auth.api.models.LoginCredentials;
 import rcs.auth.api.models.UpdatePasswordRequest;
 import rcs.auth.api.models.UserAuthority;
+import rcs.auth.exceptions.PasswordHashingRejectedException;
+import rcs.auth.repositories.models.UserSummary;
+import rcs.auth.services.SessionIntrospectionService;
 import rcs.auth.services.UserCredentialsService;
+import rcs.auth.services.UserImportResult;
+import rcs.auth.services.UserImportService;
+import rcs.auth.services.UserListingService;
 import rcs.auth.utils.AuthUtils;
 
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -32,9 +58,26 @@ public class AuthControllerTest {
     @Mock
     private UserCredentialsService userCredentialsService;
 
+    @Mock
+    private UserImportService userImportService;
+
+    @Mock
+    private UserListingService userListingService;
+
+    @Mock
+    private SessionIntrospectionService sessionIntrospectionService;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private AuthController target;
 
+    @Before
+    public void setup() {
+        ReflectionTestUtils.setField(target, "maxBatchSize", 2);
+    }
+
     @Test
     public void testGetLoggedInUser() {
         // Arrange
@@ -72,13 +115,58 @@ public class AuthControllerTest {
         assertThat(actual.getStatusCodeValue()).isEqualTo(401);
     }
 
+    @Test
+    public void testGetLoggedInUsers() throws IOException {
+        // Arrange
+        User user = new User("username", "", List.of(new SimpleGrantedAuthority("USER")));
+        when(sessionIntrospectionService.tryGetUser("valid"))
+                .thenReturn(Optional.of(user));
+        when(sessionIntrospectionService.tryGetUser("invalid"))
+                .thenReturn(Optional.empty());
+
+        // Act
+        ResponseEntity<StreamingResponseBody> actual = target.getLoggedInUsers(List.of("valid", "invalid"));
+
+        // Assert
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        actual.getBody().writeTo(body);
+        assertThat(actual.getStatusCodeValue()).isEqualTo(200);
+        assertThat(body.toString(StandardCharsets.UTF_8))
+                .isEqualTo("[{\"username\":\"username\",\"roles\":[\"USER\"]},null]");
+    }
+
+    @Test
+    public void testGetLoggedInUsersTooMany() {
+        // Arrange
+
+        // Act
+        ResponseEntity<StreamingResponseBody> actual = target.getLoggedInUsers(List.of("a", "b", "c"));
+
+        // Assert
+        assertThat(actual.getStatusCodeValue()).isEqualTo(400);
+    }
+
+    @Test
+    public void testGetLoggedInUsersWithNull() {
+        // Arrange
+
+        // Act
+        ResponseEntity<StreamingResponseBody> actual = target.getLoggedInUsers(Arrays.asList("valid", null));
+
+        // Assert
+        assertThat(actual.getStatusCodeValue()).isEqualTo(400);
+        verifyNoInteractions(sessionIntrospectionService);
+    }
+
     @Test
     public void testCreateUser() {
         // Arrange
         LoginCredentials request = new LoginCredentials("username", "password");
+        when(userCredentialsService.save(request))
+                .thenReturn(CompletableFuture.completedFuture(null));
 
         // Act
-        ResponseEntity<Void> actual = target.createUser(request);
+        ResponseEntity<Void> actual = target.createUser(request).join();
 
         // Assert
         assertThat(actual.getStatusCodeValue()).isEqualTo(200);
@@ -90,15 +178,70 @@ public class AuthControllerTest {
         // Arrange
         String username = "username";
         UpdatePasswordRequest request = new UpdatePasswordRequest("newPassword");
+        when(userCredentialsService.updatePassword(username, request.getPassword()))
+                .thenReturn(CompletableFuture.completedFuture(null));
 
         // Act
-        ResponseEntity<Void> actual = target.updatePassword(username, request);
+        ResponseEntity<Void> actual = target.updatePassword(username, request).join();
 
         // Assert
         assertThat(actual.getStatusCodeValue()).isEqualTo(200);
         verify(userCredentialsService).updatePassword(username, request.getPassword());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGetUsers() throws IOException {
+        // Arrange
+        doAnswer(invocation -> {
+            Consumer<UserSummary> action = invocation.getArgument(3);
+            action.accept(new UserSummary("user1", UserAuthority.ADMIN));
+            action.accept(new UserSummary("user2", UserAuthority.USER));
+            return null;
+        }).when(userListingService).forEachUser(eq("user0"), eq(null), eq(Long.MAX_VALUE), any(Consumer.class));
+
+        // Act
+        ResponseEntity<StreamingResponseBody> actual = target.getUsers("user0", null, null);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        actual.getBody().writeTo(outputStream);
+
+        // Assert
+        assertThat(actual.getStatusCodeValue()).isEqualTo(200);
+        assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "{\"username\":\"user1\",\"authority\":\"ADMIN\"}\n" +
+                "{\"username\":\"user2\",\"authority\":\"USER\"}\n");
+    }
+
+    @Test
+    public void testImportUsers() throws IOException {
+        // Arrange
+        UserImportResult result = new UserImportResult();
+        when(userImportService.importUsers(any(BufferedReader.class), eq(UserImportService.Format.CSV)))
+                .thenReturn(result);
+
+        // Act
+        ResponseEntity<UserImportResult> actual = target.importUsers(
+                MediaType.parseMediaType("text/csv"),
+                new ByteArrayInputStream("user,password".getBytes(StandardCharsets.UTF_8)));
+
+        // Assert
+        assertThat(actual.getStatusCodeValue()).isEqualTo(200);
+        assertThat(actual.getBody()).isSameAs(result);
+    }
+
+    @Test
+    public void testHandlePasswordHashingRejected() {
+        // Arrange
+        PasswordHashingRejectedException exception = new PasswordHashingRejectedException(3);
+
+        // Act
+        ResponseEntity<Void> actual = target.handlePasswordHashingRejected(exception);
+
+        // Assert
+        assertThat(actual.getStatusCodeValue()).isEqualTo(503);
+        assertThat(actual.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+    }
+
     @Test
     public void testDeleteUser() {
         // Arrange
@@ -0,0 +1,164 @@
+package rcs.auth.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.repositories.UserCredentialsRepository;
+import rcs.auth.repositories.models.UserCredentials;
+import rcs.auth.services.UsernameFilter;
+import rcs.auth.sessions.SessionStore;
+import rcs.auth.testutils.DelayingDataSource;
+import rcs.auth.testutils.EmbeddedAuthApplication;
+import rcs.auth.utils.VirtualThreads;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+/**
+ * Boots the application against in-memory H2, seeds users and drives a weighted mix of operations from concurrent
+ * clients over HTTP. Prints heap and session samples while running, then throughput and latency percentiles per
+ * operation. Configured with system properties, see the loadtest profile in pom.xml.
+ *
+ * To compare request execution modes, run once with and once without loadtest.virtual-threads, with many clients and
+ * a loadtest.db-latency-millis that makes requests wait on the database.
+ */
+public class AuthLoadTest {
+
+    private static final String adminUsername = "loadTestAdmin";
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("loadtest.users", 1000);
+        int clients = Integer.getInteger("loadtest.clients", 32);
+        long warmupSeconds = Long.getLong("loadtest.warmup-seconds", 10);
+        long durationSeconds = Long.getLong("loadtest.duration-seconds", 60);
+        long sampleSeconds = Long.getLong("loadtest.sample-seconds", 10);
+        String bcryptCost = System.getProperty("loadtest.bcrypt-cost", "10");
+        String virtualThreads = System.getProperty("loadtest.virtual-threads", "false");
+        long dbLatencyMillis = Long.getLong("loadtest.db-latency-millis", 0);
+        Operation[] operations = weightedOperations(Operation.parseMix(System.getProperty(
+                "loadtest.mix",
+                "login:20,authenticate:70,register:5,update-password:3,delete:2")));
+
+        UnaryOperator<DataSource> dataSourceDecorator = dbLatencyMillis > 0
+                ? dataSource -> new DelayingDataSource(dataSource, Duration.ofMillis(dbLatencyMillis))
+                : UnaryOperator.identity();
+        try (EmbeddedAuthApplication application = EmbeddedAuthApplication.start(
+                Map.of(
+                        "auth.hashing.bcrypt.cost", bcryptCost,
+                        "auth.virtual-threads.enabled", virtualThreads,
+                        // one connection per client, beyond Tomcat's default limit of 8192
+                        "server.tomcat.max-connections", String.valueOf(Math.max(8192, clients + 100))),
+                dataSourceDecorator)) {
+            seed(application, users);
+
+            String baseUrl = "http://localhost:" + application.getPort();
+            long warmupEndNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+            long endNanos = warmupEndNanos + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+            SessionStore sessionStore = application.getBean(SessionStore.class);
+            ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+            long startMillis = System.currentTimeMillis();
+            System.out.printf("%8s %12s %10s %14s%n", "seconds", "heap MB", "sessions", "bytes/session");
+            sampler.scheduleAtFixedRate(
+                    () -> System.out.printf("%8d %12d %10d %14d%n",
+                            (System.currentTimeMillis() - startMillis) / 1000,
+                            ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / (1024 * 1024),
+                            sessionStore.size(),
+                            sessionStore.getSizeInBytes() / Math.max(1, sessionStore.size())),
+                    0,
+                    sampleSeconds,
+                    TimeUnit.SECONDS);
+
+            HttpClient httpClient = LoadTestClient.newClient();
+            ThreadFactory threadFactory = clientThreadFactory();
+            List<LoadTestClient> loadTestClients = new ArrayList<>();
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                LoadTestClient client = new LoadTestClient(
+                        i, httpClient, baseUrl, users, adminUsername, operations, warmupEndNanos, endNanos);
+                Thread thread = threadFactory.newThread(client);
+                loadTestClients.add(client);
+                threads.add(thread);
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            sampler.shutdownNow();
+
+            report(loadTestClients, durationSeconds);
+        }
+    }
+
+    // thousands of blocking clients are cheap on virtual threads, where available
+    private static ThreadFactory clientThreadFactory() {
+        if (VirtualThreads.isSupported()) {
+            return VirtualThreads.newThreadFactory("load-test-client-");
+        }
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> new Thread(runnable, "load-test-client-" + count.getAndIncrement());
+    }
+
+    private static void seed(EmbeddedAuthApplication application, int users) {
+        // every seeded user has the same password, so it only needs to be hashed once
+        String encodedPassword = application.getBean(PasswordEncoder.class).encode(LoadTestClient.password);
+        UserCredentialsRepository repository = application.getBean(UserCredentialsRepository.class);
+        repository.insert(new UserCredentials(adminUsername, encodedPassword, UserAuthority.ADMIN));
+
+        List<UserCredentials> chunk = new ArrayList<>();
+        for (int i = 0; i < users; i++) {
+            chunk.add(new UserCredentials("user" + i, encodedPassword, UserAuthority.USER));
+            if (chunk.size() == 1000 || i == users - 1) {
+                repository.insertAll(chunk);
+                chunk.clear();
+            }
+        }
+        application.getBean(UsernameFilter.class).rebuild();
+    }
+
+    private static Operation[] weightedOperations(Map<Operation, Integer> weights) {
+        List<Operation> operations = new ArrayList<>();
+        weights.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                operations.add(operation);
+            }
+        });
+        return operations.toArray(Operation[]::new);
+    }
+
+    private static void report(List<LoadTestClient> clients, long durationSeconds) {
+        Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+        Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+        for (LoadTestClient client : clients) {
+            client.getLatencies().forEach((operation, histogram) -> latencies
+                    .computeIfAbsent(operation, ignored -> new Histogram(histogram.getHighestTrackableValue(), 3))
+                    .add(histogram));
+            client.getErrors().forEach((operation, count) -> errors.merge(operation, count, Long::sum));
+        }
+
+        System.out.printf("%n%-16s %10s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "count", "errors", "ops/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        latencies.forEach((operation, histogram) -> System.out.printf(
+                "%-16s %10d %8d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+                operation.getKey(),
+                histogram.getTotalCount(),
+                errors.get(operation),
+                (double) histogram.getTotalCount() / durationSeconds,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0));
+    }
+}
@@ -0,0 +1,181 @@
+package rcs.auth.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One simulated client: a user session for most operations and an admin session for deletes. Records the latency
+ * of every operation completed after the warm-up, in microseconds. All clients share one HTTP client, which keeps
+ * a connection per concurrent request, and keep their own cookies.
+ */
+class LoadTestClient implements Runnable {
+
+    static final String password = "password";
+
+    private final int id;
+    private final String baseUrl;
+    private final int seededUsers;
+    private final String adminUsername;
+    private final Operation[] operations;
+    private final long warmupEndNanos;
+    private final long endNanos;
+
+    private final HttpClient client;
+    private final CookieManager userCookies = new CookieManager();
+    private final CookieManager adminCookies = new CookieManager();
+    private final Deque<String> registeredUsers = new ArrayDeque<>();
+    private final Map<Operation, Histogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, Long> errors = new EnumMap<>(Operation.class);
+
+    private String username;
+    private boolean loggedIn;
+    private long registrations;
+
+    LoadTestClient(
+            int id,
+            HttpClient client,
+            String baseUrl,
+            int seededUsers,
+            String adminUsername,
+            Operation[] operations,
+            long warmupEndNanos,
+            long endNanos) {
+        this.id = id;
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.seededUsers = seededUsers;
+        this.adminUsername = adminUsername;
+        this.operations = operations;
+        this.warmupEndNanos = warmupEndNanos;
+        this.endNanos = endNanos;
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new Histogram(TimeUnit.MINUTES.toMicros(1), 3));
+            errors.put(operation, 0L);
+        }
+    }
+
+    Map<Operation, Histogram> getLatencies() {
+        return latencies;
+    }
+
+    Map<Operation, Long> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public void run() {
+        try {
+            login(adminCookies, adminUsername);
+            while (System.nanoTime() < endNanos) {
+                Operation operation = operations[ThreadLocalRandom.current().nextInt(operations.length)];
+                long start = System.nanoTime();
+                boolean succeeded = execute(operation);
+                long end = System.nanoTime();
+                if (start >= warmupEndNanos) {
+                    latencies.get(operation).recordValue(Math.min(
+                            TimeUnit.NANOSECONDS.toMicros(end - start),
+                            latencies.get(operation).getHighestTrackableValue()));
+                    if (!succeeded) {
+                        errors.merge(operation, 1L, Long::sum);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean execute(Operation operation) throws IOException, InterruptedException {
+        switch (operation) {
+            case LOGIN:
+                username = "user" + ThreadLocalRandom.current().nextInt(seededUsers);
+                loggedIn = login(userCookies, username);
+                return loggedIn;
+            case AUTHENTICATE:
+                ensureLoggedIn();
+                return send(userCookies, HttpRequest.newBuilder(uri("/authenticate")).GET()) == 200;
+            case REGISTER:
+                String newUsername = "lt" + id + "-" + registrations++;
+                boolean registered = send(userCookies, HttpRequest.newBuilder(uri("/register"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(form(newUsername))) == 200;
+                if (registered) {
+                    registeredUsers.add(newUsername);
+                }
+                return registered;
+            case UPDATE_PASSWORD:
+                ensureLoggedIn();
+                // keeps the same password so that later logins of this user still succeed
+                return send(userCookies, HttpRequest.newBuilder(uri("/users/" + username + "/password"))
+                        .header("Content-Type", "application/json")
+                        .PUT(HttpRequest.BodyPublishers.ofString("{\"password\":\"" + password + "\"}"))) == 200;
+            case DELETE:
+                String deletedUsername = registeredUsers.poll();
+                if (deletedUsername == null) {
+                    deletedUsername = "lt" + id + "-missing";
+                }
+                int status = send(adminCookies, HttpRequest.newBuilder(uri("/users/" + deletedUsername)).DELETE());
+                return status == 200 || (status == 404 && deletedUsername.endsWith("-missing"));
+            case UNAUTHENTICATED:
+                // a probe without a session, as sent by a misconfigured or hostile client
+                return send(new CookieManager(), HttpRequest.newBuilder(uri("/authenticate")).GET()) == 401;
+            default:
+                throw new IllegalArgumentException(operation.name());
+        }
+    }
+
+    private void ensureLoggedIn() throws IOException, InterruptedException {
+        if (!loggedIn) {
+            execute(Operation.LOGIN);
+        }
+    }
+
+    private boolean login(CookieManager cookies, String username) throws IOException, InterruptedException {
+        return send(cookies, HttpRequest.newBuilder(uri("/login"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(form(username))) == 200;
+    }
+
+    private int send(CookieManager cookies, HttpRequest.Builder request) throws IOException, InterruptedException {
+        URI baseUri = uri("/");
+        cookies.get(baseUri, Map.of()).forEach((name, values) -> values.forEach(value -> request.header(name, value)));
+        HttpResponse<Void> response = client.send(
+                request.timeout(Duration.ofSeconds(30)).build(),
+                HttpResponse.BodyHandlers.discarding());
+        cookies.put(baseUri, response.headers().map());
+        return response.statusCode();
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private static HttpRequest.BodyPublisher form(String username) {
+        return HttpRequest.BodyPublishers.ofString(
+                "username=" + URLEncoder.encode(username, StandardCharsets.UTF_8) +
+                        "&password=" + URLEncoder.encode(password, StandardCharsets.UTF_8));
+    }
+
+    static HttpClient newClient() {
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+}
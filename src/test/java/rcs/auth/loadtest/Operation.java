@@ -0,0 +1,43 @@
+package rcs.auth.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+enum Operation {
+
+    LOGIN("login"),
+    AUTHENTICATE("authenticate"),
+    REGISTER("register"),
+    UPDATE_PASSWORD("update-password"),
+    DELETE("delete"),
+    UNAUTHENTICATED("unauthenticated");
+
+    private final String key;
+
+    Operation(String key) {
+        this.key = key;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    // e.g. "login:20,authenticate:70,register:5,update-password:3,delete:2"
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] keyAndWeight = entry.strip().split(":");
+            weights.put(fromKey(keyAndWeight[0].strip()), Integer.parseInt(keyAndWeight[1].strip()));
+        }
+        return weights;
+    }
+
+    private static Operation fromKey(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation " + key);
+    }
+}
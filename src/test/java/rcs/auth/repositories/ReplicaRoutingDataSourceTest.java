@@ -0,0 +1,154 @@
+package rcs.auth.repositories;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private static final String lagQuery = "select seconds from replica_lag";
+
+    private DataSource primary;
+    private DataSource replica;
+    private ReplicaRoutingDataSource routingDataSource;
+    private JdbcTemplate template;
+    private TransactionTemplate readWriteTransaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @Before
+    public void setup() {
+        primary = h2("primary");
+        replica = h2("replica");
+        new JdbcTemplate(primary).execute("create table origin as select 'primary' as name");
+        new JdbcTemplate(replica).execute("create table origin as select 'replica' as name");
+        new JdbcTemplate(replica).execute("create table replica_lag as select 0 as seconds");
+
+        routingDataSource = new ReplicaRoutingDataSource(primary, List.of(replica), lagQuery, Duration.ofSeconds(5));
+        routingDataSource.checkReplicas();
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        template = new JdbcTemplate(dataSource);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @After
+    public void teardown() {
+        new JdbcTemplate(primary).execute("drop all objects");
+        new JdbcTemplate(replica).execute("drop all objects");
+        routingDataSource.close();
+    }
+
+    private DataSource h2(String name) {
+        return DataSourceBuilder.create()
+                .username("username")
+                .password("password")
+                .driverClassName("org.h2.Driver")
+                .url("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE")
+                .build();
+    }
+
+    private String origin(TransactionTemplate transaction) {
+        return transaction.execute(status -> template.queryForObject("select name from origin", String.class));
+    }
+
+    @Test
+    public void testReadOnlyTransactionGoesToReplica() {
+        // Arrange
+
+        // Act
+        String actual = origin(readOnlyTransaction);
+
+        // Assert
+        assertThat(actual).isEqualTo("replica");
+    }
+
+    @Test
+    public void testReadFromPrimaryInReadOnlyTransactionGoesToPrimary() {
+        // Arrange
+
+        // Act
+        String actual = ReplicaRoutingDataSource.readFromPrimary(() -> origin(readOnlyTransaction));
+        String after = origin(readOnlyTransaction);
+
+        // Assert
+        assertThat(actual).isEqualTo("primary");
+        assertThat(after).isEqualTo("replica");
+    }
+
+    @Test
+    public void testReadWriteTransactionGoesToPrimary() {
+        // Arrange
+
+        // Act
+        String actual = origin(readWriteTransaction);
+
+        // Assert
+        assertThat(actual).isEqualTo("primary");
+    }
+
+    @Test
+    public void testStatementOutsideTransactionGoesToPrimary() {
+        // Arrange
+
+        // Act
+        String actual = template.queryForObject("select name from origin", String.class);
+
+        // Assert
+        assertThat(actual).isEqualTo("primary");
+    }
+
+    @Test
+    public void testLaggingReplicaFallsBackToPrimary() {
+        // Arrange
+        new JdbcTemplate(replica).update("update replica_lag set seconds = 6");
+        routingDataSource.checkReplicas();
+
+        // Act
+        String actual = origin(readOnlyTransaction);
+
+        // Assert
+        assertThat(actual).isEqualTo("primary");
+    }
+
+    @Test
+    public void testFailingHealthCheckFallsBackToPrimary() {
+        // Arrange
+        new JdbcTemplate(replica).execute("drop table replica_lag");
+        routingDataSource.checkReplicas();
+
+        // Act
+        String actual = origin(readOnlyTransaction);
+
+        // Assert
+        assertThat(actual).isEqualTo("primary");
+    }
+
+    @Test
+    public void testReplicaIsUsedAgainOnceCaughtUp() {
+        // Arrange
+        new JdbcTemplate(replica).update("update replica_lag set seconds = 6");
+        routingDataSource.checkReplicas();
+        new JdbcTemplate(replica).update("update replica_lag set seconds = 1");
+        routingDataSource.checkReplicas();
+
+        // Act
+        String actual = origin(readOnlyTransaction);
+
+        // Assert
+        assertThat(actual).isEqualTo("replica");
+    }
+}
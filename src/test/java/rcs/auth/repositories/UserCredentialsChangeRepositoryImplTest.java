@@ -0,0 +1,102 @@
+package rcs.auth.repositories;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import rcs.auth.repositories.models.UserCredentialsChange;
+import rcs.auth.testutils.InMemoryDataSourceTestBase;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+public class UserCredentialsChangeRepositoryImplTest extends InMemoryDataSourceTestBase {
+
+    private final Instant now = Instant.parse("2022-01-01T00:00:00Z");
+
+    private UserCredentialsChangeRepositoryImpl target;
+
+    @Before
+    public void setup() {
+        target = new UserCredentialsChangeRepositoryImpl(template);
+    }
+
+    @Before
+    public void createTable() {
+        template.execute("create table " + UserCredentialsChange.tableName +
+                " (" + UserCredentialsChange.Fields.id + " bigint auto_increment primary key, " +
+                UserCredentialsChange.Fields.username + " varchar, " +
+                UserCredentialsChange.Fields.changeType + " varchar, " +
+                UserCredentialsChange.Fields.node + " varchar, " +
+                UserCredentialsChange.Fields.changedAt + " timestamp, " +
+                UserCredentialsChange.Fields.tokenId + " varchar)");
+    }
+
+    @After
+    public void dropTable() {
+        template.execute("drop table " + UserCredentialsChange.tableName);
+    }
+
+    @Test
+    public void testInsertAll() {
+        // Arrange
+        List<UserCredentialsChange> changes = List.of(
+                new UserCredentialsChange(null, "user1", "CREATED", "node", now),
+                new UserCredentialsChange(null, "user2", "DELETED", "node", now.plusSeconds(1)),
+                new UserCredentialsChange(null, "user3", "TOKEN_REVOKED", "node", now.plusSeconds(2), "tokenId"));
+        dataSource.reset();
+
+        // Act
+        target.insertAll(changes);
+
+        // Assert
+        assertThat(dataSource.getExecutions()).isEqualTo(1);
+        assertThat(listAfter(0, 10)).containsExactly(
+                new UserCredentialsChange(1L, "user1", "CREATED", "node", now),
+                new UserCredentialsChange(2L, "user2", "DELETED", "node", now.plusSeconds(1)),
+                new UserCredentialsChange(3L, "user3", "TOKEN_REVOKED", "node", now.plusSeconds(2), "tokenId"));
+    }
+
+    @Test
+    public void testForEachChangeAfter() {
+        // Arrange
+        List<UserCredentialsChange> changes = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            changes.add(new UserCredentialsChange(null, "user" + i, "CREATED", "node", now));
+        }
+        target.insertAll(changes);
+
+        // Act
+        List<UserCredentialsChange> actual = listAfter(2, 2);
+
+        // Assert
+        assertThat(actual).extracting(UserCredentialsChange::getId).containsExactly(3L, 4L);
+        assertThat(actual).extracting(UserCredentialsChange::getUsername).containsExactly("user2", "user3");
+    }
+
+    @Test
+    public void testDeleteChangedBefore() {
+        // Arrange
+        target.insertAll(List.of(
+                new UserCredentialsChange(null, "old", "CREATED", "node", now.minusSeconds(60)),
+                new UserCredentialsChange(null, "new", "CREATED", "node", now)));
+
+        // Act
+        int actual = target.deleteChangedBefore(now);
+
+        // Assert
+        assertThat(actual).isEqualTo(1);
+        assertThat(listAfter(0, 10)).extracting(UserCredentialsChange::getUsername).containsExactly("new");
+    }
+
+    private List<UserCredentialsChange> listAfter(long afterId, int limit) {
+        List<UserCredentialsChange> changes = new ArrayList<>();
+        target.forEachChangeAfter(afterId, limit, changes::add);
+        return changes;
+    }
+}
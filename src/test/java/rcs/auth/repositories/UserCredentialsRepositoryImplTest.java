@@ -7,8 +7,13 @@ import org.junit.runner.RunWith;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 import rcs.auth.api.models.UserAuthority;
 import rcs.auth.repositories.models.UserCredentials;
+import rcs.auth.repositories.models.UserSummary;
 import rcs.auth.testutils.InMemoryDataSourceTestBase;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @RunWith(SpringJUnit4ClassRunner.class)
@@ -18,13 +23,13 @@ public class UserCredentialsRepositoryImplTest extends InMemoryDataSourceTestBas
 
     @Before
     public void setup() {
-        target = new UserCredentialsRepositoryImpl(template);
+        target = new UserCredentialsRepositoryImpl(template, 10);
     }
 
     @Before
     public void createTable() {
         template.execute("create table " + UserCredentials.tableName +
-                " (" + UserCredentials.Fields.username + " varchar, " +
+                " (" + UserCredentials.Fields.username + " varchar primary key, " +
                 UserCredentials.Fields.password + " varchar, " +
                 UserCredentials.Fields.authority + " int)");
     }
@@ -75,6 +80,32 @@ public class UserCredentialsRepositoryImplTest extends InMemoryDataSourceTestBas
         assertThat(actual).isFalse();
     }
 
+    @Test
+    public void testUpdatePasswordDoesNotInterpretUsernameAsSql() {
+        // Arrange
+        String username = "username";
+        String password = "p455w0rd";
+        template.update(
+                "INSERT INTO " + UserCredentials.tableName +
+                        " (" + UserCredentials.Fields.username + ", " + UserCredentials.Fields.password + ")" +
+                        " VALUES (?, ?)",
+                username,
+                password);
+
+        // Act
+        boolean actual = target.updatePassword("nobody' or '1' = '1", "n3wP455w0rd");
+
+        // Assert
+        assertThat(actual).isFalse();
+
+        String savedPassword = template.queryForObject(
+                "select " + UserCredentials.Fields.password + " from " + UserCredentials.tableName +
+                        " where " + UserCredentials.Fields.username + " = '" + username + "'",
+                String.class);
+
+        assertThat(savedPassword).isEqualTo(password);
+    }
+
     public void testUpdateAuthority() {
         // Arrange
         String username = "username";
@@ -114,4 +145,141 @@ public class UserCredentialsRepositoryImplTest extends InMemoryDataSourceTestBas
         // Assert
         assertThat(actual).isFalse();
     }
+
+    @Test
+    public void testFindExistingUsernames() {
+        // Arrange
+        target.insert(new UserCredentials("user1", "password", UserAuthority.USER));
+        target.insert(new UserCredentials("user2", "password", UserAuthority.USER));
+
+        // Act
+        Set<String> actual = target.findExistingUsernames(List.of("user1", "user3"));
+
+        // Assert
+        assertThat(actual).containsExactly("user1");
+    }
+
+    @Test
+    public void testInsertAll() {
+        // Arrange
+        List<UserCredentials> credentials = List.of(
+                new UserCredentials("user1", "password1", UserAuthority.USER),
+                new UserCredentials("user2", "password2", UserAuthority.ADMIN));
+
+        // Act
+        target.insertAll(credentials);
+
+        // Assert
+        List<String> savedPasswords = template.queryForList(
+                "select " + UserCredentials.Fields.password + " from " + UserCredentials.tableName +
+                        " order by " + UserCredentials.Fields.username,
+                String.class);
+
+        assertThat(savedPasswords).containsExactly("password1", "password2");
+    }
+
+    @Test
+    public void testInsertUserAlreadyExists() {
+        // Arrange
+        UserCredentials credentials = new UserCredentials("username", "password", UserAuthority.USER);
+        target.insert(credentials);
+
+        // Act
+        boolean actual = target.insert(credentials);
+
+        // Assert
+        assertThat(actual).isFalse();
+    }
+
+    @Test
+    public void testForEachUser() {
+        // Arrange
+        target.insertAll(List.of(
+                new UserCredentials("user3", "password", UserAuthority.USER),
+                new UserCredentials("user1", "password", UserAuthority.ADMIN),
+                new UserCredentials("user2", "password", UserAuthority.USER),
+                new UserCredentials("user4", "password", UserAuthority.USER)));
+
+        List<UserSummary> actual = new ArrayList<>();
+
+        // Act
+        int count = target.forEachUser("user1", null, 2, actual::add);
+
+        // Assert
+        assertThat(count).isEqualTo(2);
+        assertThat(actual).containsExactly(
+                new UserSummary("user2", UserAuthority.USER),
+                new UserSummary("user3", UserAuthority.USER));
+    }
+
+    @Test
+    public void testForEachUserWithAuthority() {
+        // Arrange
+        target.insertAll(List.of(
+                new UserCredentials("user1", "password", UserAuthority.ADMIN),
+                new UserCredentials("user2", "password", UserAuthority.USER),
+                new UserCredentials("user3", "password", UserAuthority.ADMIN)));
+
+        List<UserSummary> actual = new ArrayList<>();
+
+        // Act
+        int count = target.forEachUser(null, UserAuthority.ADMIN, 10, actual::add);
+
+        // Assert
+        assertThat(count).isEqualTo(2);
+        assertThat(actual).containsExactly(
+                new UserSummary("user1", UserAuthority.ADMIN),
+                new UserSummary("user3", UserAuthority.ADMIN));
+    }
+
+    @Test
+    public void testDeleteUser() {
+        // Arrange
+        target.insert(new UserCredentials("username", "password", UserAuthority.USER));
+        dataSource.reset();
+
+        // Act
+        boolean actual = target.deleteUser("username");
+
+        // Assert
+        assertThat(actual).isTrue();
+        assertThat(dataSource.getExecutions()).isEqualTo(1);
+        assertThat(target.findExistingUsernames(List.of("username"))).isEmpty();
+    }
+
+    @Test
+    public void testDeleteUserDoesNotExist() {
+        // Act
+        boolean actual = target.deleteUser("username");
+
+        // Assert
+        assertThat(actual).isFalse();
+    }
+
+    @Test
+    public void testWritesTakeOneRoundTrip() {
+        // Arrange
+        UserCredentials credentials = new UserCredentials("username", "password", UserAuthority.USER);
+
+        // Act & assert
+        dataSource.reset();
+        assertThat(target.insert(credentials)).isTrue();
+        assertThat(dataSource.getExecutions()).isEqualTo(1);
+
+        dataSource.reset();
+        assertThat(target.insert(credentials)).isFalse();
+        assertThat(dataSource.getExecutions()).isEqualTo(1);
+
+        dataSource.reset();
+        assertThat(target.updateAuthority("username", UserAuthority.ADMIN)).isTrue();
+        assertThat(dataSource.getExecutions()).isEqualTo(1);
+
+        dataSource.reset();
+        assertThat(target.updatePassword("username", "newPassword")).isTrue();
+        assertThat(dataSource.getExecutions()).isEqualTo(1);
+
+        dataSource.reset();
+        assertThat(target.deleteUser("username")).isTrue();
+        assertThat(dataSource.getExecutions()).isEqualTo(1);
+    }
 }
@@ -0,0 +1,71 @@
+package rcs.auth.security;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import rcs.auth.tokens.AccessTokenVerifier;
+import rcs.auth.tokens.VerifiedAccessToken;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AccessTokenAuthenticationFilterTest {
+
+    private AccessTokenVerifier verifier;
+    private AccessTokenAuthenticationFilter target;
+
+    @Before
+    public void setup() {
+        verifier = mock(AccessTokenVerifier.class);
+        target = new AccessTokenAuthenticationFilter(verifier);
+    }
+
+    @After
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testDoFilterValidToken() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer token");
+        when(verifier.verify("token"))
+                .thenReturn(Optional.of(new VerifiedAccessToken("id", "username", Set.of("USER"), 0, 1)));
+
+        // Act
+        target.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Assert
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.isAuthenticated()).isTrue();
+        assertThat(((User) authentication.getPrincipal()).getUsername()).isEqualTo("username");
+        assertThat(request.getSession(false)).isNull();
+    }
+
+    @Test
+    public void testDoFilterInvalidToken() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer token");
+        when(verifier.verify("token"))
+                .thenReturn(Optional.empty());
+
+        // Act
+        target.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        // Assert
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+}
@@ -0,0 +1,157 @@
+package rcs.auth.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.web.servlet.HandlerMapping;
+import rcs.auth.api.models.UserAuthority;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AuthenticatedUserFilterTest {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private AuthenticatedUserFilter target;
+
+    @Before
+    public void setup() {
+        target = new AuthenticatedUserFilter(objectMapper);
+    }
+
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static void authenticate(User user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private static MockHttpServletRequest request(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        return request;
+    }
+
+    @Test
+    public void testDoFilterWritesAuthenticatedUser() throws Exception {
+        // Arrange
+        UserPrincipal user = new UserPrincipal("username", "", UserAuthority.ADMIN);
+        authenticate(user);
+        MockHttpServletRequest request = request("GET", "/authenticate");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        target.doFilter(request, response, chain);
+
+        // Assert
+        assertThat(chain.getRequest()).isNull();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(response.getContentAsString())
+                .isEqualTo("{\"username\":\"username\",\"roles\":[\"ADMIN\",\"USER\"]}");
+        assertThat(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE))
+                .isEqualTo("/authenticate");
+    }
+
+    @Test
+    public void testDoFilterRendersOncePerPrincipal() throws Exception {
+        // Arrange
+        UserPrincipal user = new UserPrincipal("username", "", UserAuthority.USER);
+        authenticate(user);
+        target.doFilter(request("GET", "/authenticate"), new MockHttpServletResponse(), new MockFilterChain());
+        byte[] rendered = user.getAuthenticatedUserJson();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        target.doFilter(request("GET", "/authenticate"), response, new MockFilterChain());
+
+        // Assert
+        assertThat(rendered).isNotNull();
+        assertThat(user.getAuthenticatedUserJson()).isSameAs(rendered);
+        assertThat(response.getContentAsByteArray()).isEqualTo(rendered);
+    }
+
+    @Test
+    public void testDoFilterWritesPlainUser() throws Exception {
+        // Arrange
+        authenticate(new User("username", "", List.of(new SimpleGrantedAuthority("USER"))));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        target.doFilter(request("GET", "/authenticate"), response, new MockFilterChain());
+
+        // Assert
+        assertThat(response.getContentAsString()).isEqualTo("{\"username\":\"username\",\"roles\":[\"USER\"]}");
+    }
+
+    @Test
+    public void testDoFilterLeavesUnauthenticatedRequestsToController() throws Exception {
+        // Arrange
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        target.doFilter(request("GET", "/authenticate"), new MockHttpServletResponse(), chain);
+
+        // Assert
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    public void testDoFilterLeavesRequestsNotAcceptingJsonToController() throws Exception {
+        // Arrange
+        authenticate(new UserPrincipal("username", "", UserAuthority.USER));
+        MockHttpServletRequest request = request("GET", "/authenticate");
+        request.addHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_XML_VALUE);
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        target.doFilter(request, new MockHttpServletResponse(), chain);
+
+        // Assert
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    public void testDoFilterLeavesRequestsWithMalformedAcceptToController() throws Exception {
+        // Arrange
+        authenticate(new UserPrincipal("username", "", UserAuthority.USER));
+        MockHttpServletRequest request = request("GET", "/authenticate");
+        request.addHeader(HttpHeaders.ACCEPT, "garbage");
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        target.doFilter(request, new MockHttpServletResponse(), chain);
+
+        // Assert
+        assertThat(chain.getRequest()).isNotNull();
+    }
+
+    @Test
+    public void testDoFilterIgnoresOtherRequests() throws Exception {
+        // Arrange
+        authenticate(new UserPrincipal("username", "", UserAuthority.USER));
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        target.doFilter(request("GET", "/users"), new MockHttpServletResponse(), chain);
+
+        // Assert
+        assertThat(chain.getRequest()).isNotNull();
+    }
+}
@@ -0,0 +1,34 @@
+package rcs.auth.security;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BCryptCostCalibratorTest {
+
+    @Test
+    public void testCalibrateStaysAtMinimumForTinyTarget() {
+        // Arrange
+        BCryptCostCalibrator target = new BCryptCostCalibrator(Duration.ofNanos(1), 4, 6, 3);
+
+        // Act
+        int actual = target.calibrate();
+
+        // Assert
+        assertThat(actual).isEqualTo(4);
+    }
+
+    @Test
+    public void testCalibrateStopsAtMaximumForHugeTarget() {
+        // Arrange
+        BCryptCostCalibrator target = new BCryptCostCalibrator(Duration.ofMinutes(1), 4, 6, 3);
+
+        // Act
+        int actual = target.calibrate();
+
+        // Assert
+        assertThat(actual).isEqualTo(6);
+    }
+}
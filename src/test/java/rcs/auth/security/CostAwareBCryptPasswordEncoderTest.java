@@ -0,0 +1,43 @@
+package rcs.auth.security;
+
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(JUnitParamsRunner.class)
+public class CostAwareBCryptPasswordEncoderTest {
+
+    private final CostAwareBCryptPasswordEncoder target = new CostAwareBCryptPasswordEncoder(5);
+
+    @Test
+    @Parameters({
+            "4 | true",
+            "5 | false",
+            "6 | false"
+    })
+    public void testUpgradeEncoding(int storedCost, boolean expected) {
+        // Arrange
+        String encodedPassword = BCrypt.hashpw("password", BCrypt.gensalt(storedCost));
+
+        // Act
+        boolean actual = target.upgradeEncoding(encodedPassword);
+
+        // Assert
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    public void testUpgradeEncodingNotBCrypt() {
+        // Arrange
+
+        // Act
+        boolean actual = target.upgradeEncoding("plaintext");
+
+        // Assert
+        assertThat(actual).isFalse();
+    }
+}
@@ -5,11 +5,18 @@ import junitparams.Parameters;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
-import rcs.auth.utils.AuthUtils;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import rcs.auth.api.models.UserAuthority;
 
-import java.util.Optional;
+import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -18,43 +25,121 @@ import static org.mockito.Mockito.when;
 @RunWith(JUnitParamsRunner.class)
 public class EndpointSecurityTest {
 
-    private AuthUtils authUtils;
     private EndpointSecurity target;
 
     @Before
     public void setup() {
-        authUtils = mock(AuthUtils.class);
-        target = new EndpointSecurity(authUtils);
+        target = new EndpointSecurity();
     }
 
     @Test
     @Parameters({
-            "true | other | true",
-            "false | username | true",
-            "false | other | false"
+            "ADMIN | other | true",
+            "USER | username | true",
+            "USER | other | false"
     })
     public void testCanUpdatePassword(
-            boolean requesterIsAdmin,
+            UserAuthority requesterAuthority,
             String requesterUsername,
             boolean expected) {
         // Arrange
-        Authentication authentication = mock(Authentication.class);
-        String username = "username";
+        Authentication authentication = authentication(
+                new UserPrincipal(requesterUsername, "", requesterAuthority));
 
-        User requester = mock(User.class);
-        when(authUtils.tryGetLoggedInUser(authentication))
-                .thenReturn(Optional.of(requester));
+        // Act
+        boolean actual = target.canUpdatePassword(authentication, "username");
 
-        when(authUtils.isAdmin(requester))
-                .thenReturn(requesterIsAdmin);
+        // Assert
+        assertThat(actual).isEqualTo(expected);
+    }
 
-        when(requester.getUsername())
-                .thenReturn(requesterUsername);
+    @Test
+    @Parameters({
+            "ADMIN | true",
+            "USER | false"
+    })
+    public void testCanUpdatePasswordOfPlainUser(String requesterRole, boolean expected) {
+        // Arrange
+        Authentication authentication = authentication(
+                new User("other", "", List.of(new SimpleGrantedAuthority(requesterRole))));
 
         // Act
-        boolean actual = target.canUpdatePassword(authentication, username);
+        boolean actual = target.canUpdatePassword(authentication, "username");
 
         // Assert
         assertThat(actual).isEqualTo(expected);
     }
+
+    @Test
+    public void testCanUpdatePasswordAnonymous() {
+        // Arrange
+        Authentication authentication = mock(Authentication.class);
+        when(authentication.getPrincipal())
+                .thenReturn("anonymousUser");
+
+        // Act
+        boolean actual = target.canUpdatePassword(authentication, "anonymousUser");
+
+        // Assert
+        assertThat(actual).isFalse();
+    }
+
+    @Test
+    @Parameters({
+            "ADMIN | true",
+            "USER | false"
+    })
+    public void testAdmin(UserAuthority requesterAuthority, boolean expected) {
+        // Arrange
+        Authentication authentication = authentication(new UserPrincipal("username", "", requesterAuthority));
+
+        // Act
+        AuthorizationDecision actual = target.admin().check(() -> authentication, context(Map.of()));
+
+        // Assert
+        assertThat(actual.isGranted()).isEqualTo(expected);
+    }
+
+    @Test
+    public void testAdminAnonymous() {
+        // Arrange
+        Authentication authentication = new AnonymousAuthenticationToken(
+                "key", "anonymousUser", List.of(new SimpleGrantedAuthority("ROLE_ANONYMOUS")));
+
+        // Act
+        AuthorizationDecision actual = target.admin().check(() -> authentication, context(Map.of()));
+
+        // Assert
+        assertThat(actual.isGranted()).isFalse();
+    }
+
+    @Test
+    @Parameters({
+            "ADMIN | other | true",
+            "USER | username | true",
+            "USER | other | false"
+    })
+    public void testAdminOrSelf(
+            UserAuthority requesterAuthority,
+            String requesterUsername,
+            boolean expected) {
+        // Arrange
+        Authentication authentication = authentication(
+                new UserPrincipal(requesterUsername, "", requesterAuthority));
+
+        // Act
+        AuthorizationDecision actual = target.adminOrSelf("username")
+                .check(() -> authentication, context(Map.of("username", "username")));
+
+        // Assert
+        assertThat(actual.isGranted()).isEqualTo(expected);
+    }
+
+    private static Authentication authentication(User user) {
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+
+    private static RequestAuthorizationContext context(Map<String, String> variables) {
+        return new RequestAuthorizationContext(new MockHttpServletRequest(), variables);
+    }
 }
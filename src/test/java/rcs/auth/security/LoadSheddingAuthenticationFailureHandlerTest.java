@@ -0,0 +1,49 @@
+package rcs.auth.security;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InternalAuthenticationServiceException;
+import rcs.auth.exceptions.PasswordHashingRejectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoadSheddingAuthenticationFailureHandlerTest {
+
+    private final LoadSheddingAuthenticationFailureHandler target = new LoadSheddingAuthenticationFailureHandler();
+
+    @Test
+    public void testOnAuthenticationFailureShed() throws Exception {
+        // Arrange
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        InternalAuthenticationServiceException exception = new InternalAuthenticationServiceException(
+                "rejected", new PasswordHashingRejectedException(2));
+
+        // Act
+        target.onAuthenticationFailure(new MockHttpServletRequest(), response, exception);
+
+        // Assert
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE.value());
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(response.getErrorMessage()).isNull();
+        assertThat(response.getContentAsString()).isEqualTo("{\"status\":503,\"error\":\"Service Unavailable\"}");
+    }
+
+    @Test
+    public void testOnAuthenticationFailureBadCredentials() throws Exception {
+        // Arrange
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        target.onAuthenticationFailure(
+                new MockHttpServletRequest(), response, new BadCredentialsException("Bad credentials"));
+
+        // Assert
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.UNAUTHORIZED.value());
+        assertThat(response.getErrorMessage()).isNull();
+        assertThat(response.getContentAsString()).isEqualTo("{\"status\":401,\"error\":\"Unauthorized\"}");
+    }
+}
@@ -0,0 +1,80 @@
+package rcs.auth.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class LoginMetricsFilterTest {
+
+    private MeterRegistry registry;
+    private LoginMetricsFilter target;
+
+    @Before
+    public void setup() {
+        registry = new SimpleMeterRegistry();
+        target = new LoginMetricsFilter(registry);
+    }
+
+    @Test
+    public void testDoFilterTimesLoginByOutcome() throws Exception {
+        // Act
+        login(HttpServletResponse.SC_OK);
+        login(HttpServletResponse.SC_UNAUTHORIZED);
+        login(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        login(HttpStatus.TOO_MANY_REQUESTS.value());
+
+        // Assert
+        assertThat(registry.get("auth.login").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(registry.get("auth.login").tag("outcome", "failure").timer().count()).isEqualTo(1);
+        assertThat(registry.get("auth.login").tag("outcome", "shed").timer().count()).isEqualTo(1);
+        assertThat(registry.get("auth.login").tag("outcome", "throttled").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDoFilterTimesLoginThatThrowsAsError() {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setServletPath("/login");
+
+        // Act
+        assertThrows(ServletException.class, () -> target.doFilter(request, new MockHttpServletResponse(),
+                (req, res) -> {
+                    throw new ServletException("failed");
+                }));
+
+        // Assert
+        assertThat(registry.get("auth.login").tag("outcome", "error").timer().count()).isEqualTo(1);
+        assertThat(registry.find("auth.login").tag("outcome", "success").timer()).isNull();
+    }
+
+    @Test
+    public void testDoFilterIgnoresOtherRequests() throws Exception {
+        // Act
+        target.doFilter(
+                new MockHttpServletRequest("GET", "/authenticate"),
+                new MockHttpServletResponse(),
+                new MockFilterChain());
+
+        // Assert
+        assertThat(registry.find("auth.login").timer()).isNull();
+    }
+
+    private void login(int status) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setServletPath("/login");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setStatus(status);
+        target.doFilter(request, response, new MockFilterChain());
+    }
+}
@@ -0,0 +1,139 @@
+package rcs.auth.security;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoginThrottleTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private LoginThrottle target;
+
+    @Before
+    public void setup() {
+        // 3 attempts at once per username, then one per second; 5 at once per address, then one every 100 ms
+        target = new LoginThrottle(3, 60, 5, 600, 1000, now::get);
+        target.activate();
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    public void testAllowsUpToCapacity() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            assertThat(target.tryAcquire("username", "address")).isEmpty();
+        }
+
+        // Act
+        Optional<Duration> actual = target.tryAcquire("username", "address");
+
+        // Assert
+        assertThat(actual).contains(Duration.ofSeconds(1));
+    }
+
+    @Test
+    public void testRefillsOverTime() {
+        // Arrange
+        for (int i = 0; i < 3; i++) {
+            target.tryAcquire("username", "address");
+        }
+        advance(Duration.ofSeconds(1));
+
+        // Act
+        Optional<Duration> actual = target.tryAcquire("username", "address");
+
+        // Assert
+        assertThat(actual).isEmpty();
+        assertThat(target.tryAcquire("username", "address")).isPresent();
+    }
+
+    @Test
+    public void testUsernameLimitAppliesAcrossAddressesAndCase() {
+        // Arrange
+        target.tryAcquire("username", "a");
+        target.tryAcquire("USERNAME", "b");
+        target.tryAcquire("UserName", "c");
+
+        // Act
+        Optional<Duration> actual = target.tryAcquire("username", "d");
+
+        // Assert
+        assertThat(actual).isPresent();
+        assertThat(target.tryAcquire("other", "d")).isEmpty();
+    }
+
+    @Test
+    public void testAddressLimitAppliesAcrossUsernames() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            target.tryAcquire("username" + i, "address");
+        }
+
+        // Act
+        Optional<Duration> actual = target.tryAcquire("other", "address");
+
+        // Assert
+        assertThat(actual).contains(Duration.ofMillis(100));
+        assertThat(target.tryAcquire("other", "other address")).isEmpty();
+    }
+
+    @Test
+    public void testDoesNotThrottleBeforeReady() {
+        // Arrange
+        LoginThrottle target = new LoginThrottle(1, 1, 1, 1, 1000, now::get);
+        target.tryAcquire("username", "address");
+
+        // Act
+        Optional<Duration> actual = target.tryAcquire("username", "address");
+
+        // Assert
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    public void testConcurrentAttemptsNeverExceedCapacity() throws Exception {
+        // Arrange
+        LoginThrottle target = new LoginThrottle(100, 1, 1000, 1, 1000, now::get);
+        target.activate();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Boolean>> attempts = IntStream.range(0, 1000)
+                .<Callable<Boolean>>mapToObj(i -> () -> target.tryAcquire("username", "address").isEmpty())
+                .collect(Collectors.toList());
+
+        // Act
+        long allowed;
+        try {
+            allowed = executor.invokeAll(attempts).stream()
+                    .filter(future -> getUnchecked(future))
+                    .count();
+        } finally {
+            executor.shutdown();
+        }
+
+        // Assert
+        assertThat(allowed).isEqualTo(100);
+    }
+
+    private static boolean getUnchecked(Future<Boolean> future) {
+        try {
+            return future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package rcs.auth.security;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoginThrottlingFilterTest {
+
+    private LoginThrottlingFilter target;
+
+    @Before
+    public void setup() {
+        // one attempt, then one every 30 seconds
+        LoginThrottle throttle = new LoginThrottle(1, 2, 10, 60, 1000, () -> 0L);
+        throttle.activate();
+        target = new LoginThrottlingFilter(throttle);
+    }
+
+    private MockFilterChain login(MockHttpServletResponse response) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/login");
+        request.setServletPath("/login");
+        request.setParameter("username", "username");
+        request.setParameter("password", "password");
+        MockFilterChain chain = new MockFilterChain();
+        target.doFilter(request, response, chain);
+        return chain;
+    }
+
+    @Test
+    public void testDoFilterPassesLoginWithinLimit() throws Exception {
+        // Arrange
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        MockFilterChain chain = login(response);
+
+        // Assert
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+    }
+
+    @Test
+    public void testDoFilterRejectsLoginOverLimitBeforeAuthentication() throws Exception {
+        // Arrange
+        login(new MockHttpServletResponse());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        MockFilterChain chain = login(response);
+
+        // Assert
+        assertThat(chain.getRequest()).isNull();
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS.value());
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("30");
+        assertThat(response.getErrorMessage()).isNull();
+        assertThat(response.getContentAsString()).isEqualTo("{\"status\":429,\"error\":\"Too Many Requests\"}");
+    }
+
+    @Test
+    public void testDoFilterIgnoresOtherRequests() throws Exception {
+        // Arrange
+        login(new MockHttpServletResponse());
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/authenticate");
+        request.setServletPath("/authenticate");
+        MockFilterChain chain = new MockFilterChain();
+
+        // Act
+        target.doFilter(request, new MockHttpServletResponse(), chain);
+
+        // Assert
+        assertThat(chain.getRequest()).isNotNull();
+    }
+}
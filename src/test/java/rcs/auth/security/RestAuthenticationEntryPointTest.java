@@ -4,13 +4,15 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
-import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
 @RunWith(SpringJUnit4ClassRunner.class)
@@ -26,8 +28,8 @@ public class RestAuthenticationEntryPointTest {
     @Test
     public void testCommence() throws IOException {
         // Arrange
-        HttpServletRequest request = mock(HttpServletRequest.class);
-        HttpServletResponse response = mock(HttpServletResponse.class);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
         AuthenticationException exception = mock(AuthenticationException.class);
         when(exception.getMessage())
                 .thenReturn("fail");
@@ -36,6 +38,10 @@ public class RestAuthenticationEntryPointTest {
         target.commence(request, response, exception);
 
         // Assert
-        verify(response).sendError(HttpStatus.UNAUTHORIZED.value(), "fail");
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.UNAUTHORIZED.value());
+        assertThat(response.getErrorMessage()).isNull();
+        assertThat(response.isCommitted()).isTrue();
+        assertThat(response.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+        assertThat(response.getContentAsString()).isEqualTo("{\"status\":401,\"error\":\"Unauthorized\"}");
     }
 }
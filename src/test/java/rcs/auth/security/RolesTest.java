@@ -0,0 +1,82 @@
+package rcs.auth.security;
+
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import rcs.auth.api.models.UserAuthority;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(JUnitParamsRunner.class)
+public class RolesTest {
+
+    @Test
+    @Parameters({
+            "ADMIN | true",
+            "USER | false"
+    })
+    public void testOfUserAuthority(UserAuthority authority, boolean expectedAdmin) {
+        // Act
+        long actual = Roles.of(authority);
+
+        // Assert
+        assertThat(Roles.isAdmin(actual)).isEqualTo(expectedAdmin);
+        assertThat(actual).isEqualTo(Roles.of(Roles.authoritiesOf(authority)));
+    }
+
+    @Test
+    public void testAuthoritiesOf() {
+        for (UserAuthority authority : UserAuthority.values()) {
+            // Act
+            List<GrantedAuthority> actual = Roles.authoritiesOf(authority);
+
+            // Assert
+            assertThat(actual.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet()))
+                    .isEqualTo(authority.getRoles());
+            assertThat(actual).isSameAs(Roles.authoritiesOf(authority));
+        }
+    }
+
+    @Test
+    public void testOfUnknownAuthority() {
+        // Act
+        long actual = Roles.of(List.of(new SimpleGrantedAuthority("OTHER")));
+
+        // Assert
+        assertThat(actual).isZero();
+    }
+
+    @Test
+    public void testRolesOfPlainUser() {
+        // Arrange
+        User user = new User("username", "", Roles.authoritiesOf(UserAuthority.ADMIN));
+
+        // Act
+        long actual = UserPrincipal.rolesOf(user);
+
+        // Assert
+        assertThat(actual).isEqualTo(Roles.of(UserAuthority.ADMIN));
+    }
+
+    @Test
+    public void testWithPassword() {
+        // Arrange
+        UserPrincipal user = new UserPrincipal("username", "password", UserAuthority.ADMIN);
+
+        // Act
+        UserPrincipal actual = UserPrincipal.withPassword(user, "newPassword");
+
+        // Assert
+        assertThat(actual.getUsername()).isEqualTo("username");
+        assertThat(actual.getPassword()).isEqualTo("newPassword");
+        assertThat(actual.getAuthorities()).isEqualTo(user.getAuthorities());
+        assertThat(actual.getRoles()).isEqualTo(user.getRoles());
+    }
+}
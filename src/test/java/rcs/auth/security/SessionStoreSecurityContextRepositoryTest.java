@@ -0,0 +1,214 @@
+package rcs.auth.security;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.context.HttpRequestResponseHolder;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.sessions.SessionStore;
+import rcs.auth.tokens.VerifiedAccessToken;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SessionStoreSecurityContextRepositoryTest {
+
+    private SessionStore sessionStore;
+    private SessionStoreSecurityContextRepository target;
+
+    @Before
+    public void setup() {
+        sessionStore = new SessionStore(Duration.ofMinutes(30), 4, System::currentTimeMillis);
+        target = new SessionStoreSecurityContextRepository(sessionStore, true);
+    }
+
+    private static SecurityContext loggedIn(UserPrincipal user) {
+        return new SecurityContextImpl(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private static String sessionIdOf(MockHttpServletResponse response) {
+        Cookie cookie = response.getCookie(SessionStoreSecurityContextRepository.cookieName);
+        return cookie == null ? null : cookie.getValue();
+    }
+
+    @Test
+    public void testLoadContextOfSession() {
+        // Arrange
+        String sessionId = sessionStore.create(new UserPrincipal("username", "", UserAuthority.ADMIN));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(SessionStoreSecurityContextRepository.cookieName, sessionId));
+
+        // Act
+        SecurityContext actual = target.loadContext(
+                new HttpRequestResponseHolder(request, new MockHttpServletResponse()));
+
+        // Assert
+        assertThat(actual.getAuthentication().isAuthenticated()).isTrue();
+        assertThat(actual.getAuthentication().getPrincipal()).isSameAs(sessionStore.find(sessionId).get());
+        assertThat(((UserPrincipal) actual.getAuthentication().getPrincipal()).getRoles())
+                .isEqualTo(Roles.of(UserAuthority.ADMIN));
+        assertThat(target.containsContext(request)).isTrue();
+    }
+
+    @Test
+    public void testLoadContextWithoutSession() {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(SessionStoreSecurityContextRepository.cookieName, "unknown"));
+
+        // Act
+        SecurityContext actual = target.loadContext(
+                new HttpRequestResponseHolder(request, new MockHttpServletResponse()));
+
+        // Assert
+        assertThat(actual.getAuthentication()).isNull();
+        assertThat(target.containsContext(request)).isFalse();
+    }
+
+    @Test
+    public void testSaveContextCreatesSessionOnLogin() {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, response);
+        target.loadContext(holder);
+
+        // Act
+        target.saveContext(
+                loggedIn(new UserPrincipal("username", "", UserAuthority.USER)),
+                holder.getRequest(),
+                holder.getResponse());
+
+        // Assert
+        String sessionId = sessionIdOf(response);
+        assertThat(sessionStore.find(sessionId).get().getUsername()).isEqualTo("username");
+        assertThat(response.getHeader(HttpHeaders.SET_COOKIE)).isEqualTo(
+                SessionStoreSecurityContextRepository.cookieName + "=" + sessionId + "; Path=/; HttpOnly");
+        assertThat(request.getSession(false)).isNull();
+    }
+
+    @Test
+    public void testSaveContextCreatesSessionBeforeResponseIsCommitted() throws IOException {
+        // Arrange
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HttpRequestResponseHolder holder = new HttpRequestResponseHolder(new MockHttpServletRequest(), response);
+        target.loadContext(holder);
+        SecurityContextHolder.setContext(loggedIn(new UserPrincipal("username", "", UserAuthority.USER)));
+
+        try {
+            // Act
+            holder.getResponse().flushBuffer();
+            target.saveContext(SecurityContextHolder.getContext(), holder.getRequest(), holder.getResponse());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        // Assert
+        assertThat(response.getHeaders(HttpHeaders.SET_COOKIE)).hasSize(1);
+        assertThat(sessionStore.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSaveContextReplacesSessionOnLogin() {
+        // Arrange
+        String previousSessionId = sessionStore.create(new UserPrincipal("username", "", UserAuthority.USER));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(SessionStoreSecurityContextRepository.cookieName, previousSessionId));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, response);
+        target.loadContext(holder);
+
+        // Act
+        target.saveContext(
+                loggedIn(new UserPrincipal("other", "", UserAuthority.USER)),
+                holder.getRequest(),
+                holder.getResponse());
+
+        // Assert
+        assertThat(sessionStore.find(previousSessionId)).isEmpty();
+        assertThat(sessionStore.find(sessionIdOf(response)).get().getUsername()).isEqualTo("other");
+    }
+
+    @Test
+    public void testSaveContextOfLoadedSession() {
+        // Arrange
+        String sessionId = sessionStore.create(new UserPrincipal("username", "", UserAuthority.USER));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(SessionStoreSecurityContextRepository.cookieName, sessionId));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HttpRequestResponseHolder holder = new HttpRequestResponseHolder(request, response);
+        SecurityContext context = target.loadContext(holder);
+
+        // Act
+        target.saveContext(context, holder.getRequest(), holder.getResponse());
+
+        // Assert
+        assertThat(response.getHeader(HttpHeaders.SET_COOKIE)).isNull();
+        assertThat(sessionStore.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSaveContextOfTokenAuthentication() {
+        // Arrange
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HttpRequestResponseHolder holder = new HttpRequestResponseHolder(new MockHttpServletRequest(), response);
+        target.loadContext(holder);
+        VerifiedAccessToken token = new VerifiedAccessToken("id", "username", Set.of("USER"), 0, 1);
+
+        // Act
+        target.saveContext(
+                new SecurityContextImpl(AccessTokenAuthentication.of(token)),
+                holder.getRequest(),
+                holder.getResponse());
+
+        // Assert
+        assertThat(response.getHeader(HttpHeaders.SET_COOKIE)).isNull();
+        assertThat(sessionStore.size()).isZero();
+    }
+
+    @Test
+    public void testSaveContextWithoutSessionCreation() {
+        // Arrange
+        target = new SessionStoreSecurityContextRepository(sessionStore, false);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        HttpRequestResponseHolder holder = new HttpRequestResponseHolder(new MockHttpServletRequest(), response);
+        target.loadContext(holder);
+
+        // Act
+        target.saveContext(
+                loggedIn(new UserPrincipal("username", "", UserAuthority.USER)),
+                holder.getRequest(),
+                holder.getResponse());
+
+        // Assert
+        assertThat(holder.getResponse()).isSameAs(response);
+        assertThat(response.getHeader(HttpHeaders.SET_COOKIE)).isNull();
+        assertThat(sessionStore.size()).isZero();
+    }
+
+    @Test
+    public void testLogout() {
+        // Arrange
+        String sessionId = sessionStore.create(new UserPrincipal("username", "", UserAuthority.USER));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(SessionStoreSecurityContextRepository.cookieName, sessionId));
+        HttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        target.logout(request, response, null);
+
+        // Assert
+        assertThat(sessionStore.find(sessionId)).isEmpty();
+    }
+}
@@ -0,0 +1,66 @@
+package rcs.auth.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TimedPasswordEncoderTest {
+
+    private PasswordEncoder delegate;
+    private MeterRegistry registry;
+    private TimedPasswordEncoder target;
+
+    @Before
+    public void setup() {
+        delegate = mock(PasswordEncoder.class);
+        registry = new SimpleMeterRegistry();
+        target = new TimedPasswordEncoder(delegate, registry);
+    }
+
+    @Test
+    public void testEncode() {
+        // Arrange
+        when(delegate.encode("password"))
+                .thenReturn("hash");
+
+        // Act
+        String actual = target.encode("password");
+
+        // Assert
+        assertThat(actual).isEqualTo("hash");
+        assertThat(registry.get("auth.password.encode").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testMatches() {
+        // Arrange
+        when(delegate.matches("password", "hash"))
+                .thenReturn(true);
+
+        // Act
+        boolean matches = target.matches("password", "hash");
+        boolean mismatches = target.matches("wrong", "hash");
+
+        // Assert
+        assertThat(matches).isTrue();
+        assertThat(mismatches).isFalse();
+        assertThat(registry.get("auth.password.matches").tag("result", "match").timer().count()).isEqualTo(1);
+        assertThat(registry.get("auth.password.matches").tag("result", "mismatch").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testUpgradeEncodingDelegates() {
+        // Arrange
+        when(delegate.upgradeEncoding("hash"))
+                .thenReturn(true);
+
+        // Act & assert
+        assertThat(target.upgradeEncoding("hash")).isTrue();
+    }
+}
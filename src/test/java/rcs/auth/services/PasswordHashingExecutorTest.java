@@ -0,0 +1,84 @@
+package rcs.auth.services;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import rcs.auth.exceptions.PasswordHashingRejectedException;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PasswordHashingExecutorTest {
+
+    private PasswordHashingExecutor target;
+
+    @Before
+    public void setup() {
+        target = new PasswordHashingExecutor(1, 1, 5);
+    }
+
+    @After
+    public void teardown() {
+        target.shutdown();
+    }
+
+    @Test
+    public void testRun() {
+        // Arrange
+
+        // Act
+        String actual = target.run(() -> "hash");
+
+        // Assert
+        assertThat(actual).isEqualTo("hash");
+        assertThat(target.getCompletedCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSubmitRejectsWhenQueueIsFull() throws InterruptedException {
+        // Arrange
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        target.submit(() -> { started.countDown(); await(release); return "running"; });
+        started.await();
+        target.submit(() -> "queued");
+
+        // Act
+        PasswordHashingRejectedException actual = assertThrows(
+                PasswordHashingRejectedException.class,
+                () -> target.submit(() -> "rejected"));
+
+        // Assert
+        assertThat(actual.getRetryAfterSeconds()).isEqualTo(5);
+        assertThat(target.getRejectedCount()).isEqualTo(1);
+        assertThat(target.getQueueDepth()).isEqualTo(1);
+        release.countDown();
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    public void testBindTo() {
+        // Arrange
+        MeterRegistry registry = new SimpleMeterRegistry();
+        target.bindTo(registry);
+
+        // Act
+        target.run(() -> "hash");
+
+        // Assert
+        assertThat(registry.get("auth.hashing.queue.wait").functionTimer().count()).isEqualTo(1);
+        assertThat(registry.get("auth.hashing.rejected").functionCounter().count()).isEqualTo(0);
+        assertThat(registry.find("executor.queued").tag("name", "passwordHashing").gauge()).isNotNull();
+    }
+}
@@ -0,0 +1,115 @@
+package rcs.auth.services;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import rcs.auth.sessions.SessionStore;
+import rcs.auth.tokens.AccessTokenVerifier;
+import rcs.auth.tokens.VerifiedAccessToken;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SessionIntrospectionServiceTest {
+
+    private final AtomicLong currentTimeMillis = new AtomicLong();
+    private SessionStore sessionStore;
+    private AccessTokenVerifier verifier;
+    private SessionIntrospectionService target;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        sessionStore = new SessionStore(Duration.ofMinutes(30), 4, currentTimeMillis::get);
+        verifier = mock(AccessTokenVerifier.class);
+        ObjectProvider<AccessTokenVerifier> verifierProvider = mock(ObjectProvider.class);
+        when(verifierProvider.getIfAvailable())
+                .thenReturn(verifier);
+        target = new SessionIntrospectionService(sessionStore, verifierProvider);
+    }
+
+    @Test
+    public void testTryGetUserFromSession() {
+        // Arrange
+        User user = new User("username", "password", List.of(new SimpleGrantedAuthority("USER")));
+        String sessionId = sessionStore.create(user);
+        when(verifier.verify(sessionId))
+                .thenReturn(Optional.empty());
+
+        // Act
+        Optional<User> actual = target.tryGetUser(sessionId);
+
+        // Assert
+        assertThat(actual.get().getUsername()).isEqualTo("username");
+        assertThat(actual.get().getAuthorities()).isEqualTo(user.getAuthorities());
+    }
+
+    @Test
+    public void testTryGetUserFromExpiredSession() {
+        // Arrange
+        User user = new User("username", "password", List.of(new SimpleGrantedAuthority("USER")));
+        String sessionId = sessionStore.create(user);
+        currentTimeMillis.addAndGet(Duration.ofMinutes(30).toMillis());
+        when(verifier.verify(sessionId))
+                .thenReturn(Optional.empty());
+
+        // Act
+        Optional<User> actual = target.tryGetUser(sessionId);
+
+        // Assert
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    public void testTryGetUserExtendsSession() {
+        // Arrange
+        User user = new User("username", "password", List.of(new SimpleGrantedAuthority("USER")));
+        String sessionId = sessionStore.create(user);
+        when(verifier.verify(sessionId))
+                .thenReturn(Optional.empty());
+        currentTimeMillis.addAndGet(Duration.ofMinutes(20).toMillis());
+        target.tryGetUser(sessionId);
+        currentTimeMillis.addAndGet(Duration.ofMinutes(20).toMillis());
+
+        // Act
+        Optional<User> actual = target.tryGetUser(sessionId);
+
+        // Assert
+        assertThat(actual).isPresent();
+    }
+
+    @Test
+    public void testTryGetUserFromToken() {
+        // Arrange
+        when(verifier.verify("token"))
+                .thenReturn(Optional.of(new VerifiedAccessToken("id", "username", Set.of("USER"), 0, 1)));
+
+        // Act
+        Optional<User> actual = target.tryGetUser("token");
+
+        // Assert
+        assertThat(actual.get().getUsername()).isEqualTo("username");
+    }
+
+    @Test
+    public void testTryGetUserUnknown() {
+        // Arrange
+        when(verifier.verify("unknown"))
+                .thenReturn(Optional.empty());
+
+        // Act
+        Optional<User> actual = target.tryGetUser("unknown");
+
+        // Assert
+        assertThat(actual).isEmpty();
+    }
+}
@@ -0,0 +1,135 @@
+package rcs.auth.services;
+
+import com.sun.net.httpserver.HttpServer;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.context.ApplicationContext;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StartupWarmUpTest {
+
+    @Mock
+    private ApplicationContext context;
+
+    @Mock
+    private UserCredentialsService userCredentialsService;
+
+    private HikariDataSource dataSource;
+    private UserDetailsCache cache;
+    private Path activeUsersFile;
+
+    @Before
+    public void setup() throws IOException {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:warmup;DB_CLOSE_DELAY=-1");
+        dataSource.setMinimumIdle(3);
+        dataSource.setMaximumPoolSize(5);
+        cache = new UserDetailsCache(100, 60, 10);
+        activeUsersFile = Files.createTempFile("active-users-", ".txt");
+        Files.delete(activeUsersFile);
+    }
+
+    @After
+    public void teardown() throws IOException {
+        dataSource.close();
+        Files.deleteIfExists(activeUsersFile);
+    }
+
+    private StartupWarmUp target(int requestsPerRound) {
+        return new StartupWarmUp(
+                context,
+                dataSource,
+                userCredentialsService,
+                cache,
+                10,
+                requestsPerRound,
+                activeUsersFile.toString(),
+                100);
+    }
+
+    @Test
+    public void testOpenConnections() throws SQLException {
+        // Arrange
+        StartupWarmUp target = target(1);
+
+        // Act
+        target.openConnections();
+
+        // Assert
+        assertThat(dataSource.getHikariPoolMXBean().getTotalConnections()).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    public void testPreloadsUsersSavedAtShutdown() throws IOException {
+        // Arrange
+        cache.put(new User("username", "password", List.of(new SimpleGrantedAuthority("USER"))));
+        target(1).saveActiveUsers();
+
+        // Act
+        target(1).preloadActiveUsers();
+
+        // Assert
+        verify(userCredentialsService).preload(List.of("username"));
+    }
+
+    @Test
+    public void testPreloadWithoutSavedUsers() throws IOException {
+        // Arrange
+        StartupWarmUp target = target(1);
+
+        // Act
+        target.preloadActiveUsers();
+
+        // Assert
+        verify(userCredentialsService, never()).preload(any());
+    }
+
+    @Test
+    public void testSendRequests() throws IOException {
+        // Arrange
+        Map<String, AtomicInteger> requestsByPath = new ConcurrentHashMap<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requestsByPath.computeIfAbsent(exchange.getRequestURI().getPath(), path -> new AtomicInteger())
+                    .incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(401, -1);
+            exchange.close();
+        });
+        server.start();
+
+        // Act
+        try {
+            target(40).sendRequests(server.getAddress().getPort());
+        } finally {
+            server.stop(0);
+        }
+
+        // Assert
+        int logins = requestsByPath.get("/login").get();
+        int authentications = requestsByPath.get("/authenticate").get();
+        assertThat(logins + authentications).isGreaterThanOrEqualTo(3 * 40).isEqualTo(logins * 20);
+    }
+}
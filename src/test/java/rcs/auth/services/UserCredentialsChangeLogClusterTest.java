@@ -0,0 +1,70 @@
+package rcs.auth.services;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.core.userdetails.User;
+import rcs.auth.api.models.LoginCredentials;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.exceptions.UsernameNotFoundException;
+import rcs.auth.sessions.SessionStore;
+import rcs.auth.testutils.EmbeddedAuthApplication;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Two nodes sharing one database; each polls only when the test says so.
+ */
+public class UserCredentialsChangeLogClusterTest {
+
+    private EmbeddedAuthApplication node1;
+    private EmbeddedAuthApplication node2;
+
+    @Before
+    public void setup() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        properties.put("auth.credentials-changes.poll-interval-millis", "3600000");
+        node1 = EmbeddedAuthApplication.start(properties);
+        // the first node created the schema
+        properties.put("spring.sql.init.mode", "never");
+        node2 = EmbeddedAuthApplication.start(properties);
+    }
+
+    @After
+    public void teardown() {
+        node1.close();
+        node2.close();
+    }
+
+    @Test
+    public void testAppliesChangesMadeOnOtherNode() {
+        // Arrange
+        UserCredentialsService users1 = node1.getBean(UserCredentialsService.class);
+        UserCredentialsService users2 = node2.getBean(UserCredentialsService.class);
+        SessionStore sessions2 = node2.getBean(SessionStore.class);
+        UserCredentialsChangeLog changeLog2 = node2.getBean(UserCredentialsChangeLog.class);
+
+        users1.save(new LoginCredentials("username", "password")).join();
+        changeLog2.poll();
+        User before = users2.loadUserByUsername("username");
+        String session = sessions2.create(before);
+
+        // Act
+        users1.updateAuthority("username", UserAuthority.ADMIN);
+        changeLog2.poll();
+
+        // Assert
+        assertThat(sessions2.find(session)).isEmpty();
+        assertThat(users2.loadUserByUsername("username").getAuthorities()).isNotEqualTo(before.getAuthorities());
+
+        users1.delete("username");
+        changeLog2.poll();
+        assertThrows(UsernameNotFoundException.class, () -> users2.loadUserByUsername("username"));
+    }
+}
@@ -0,0 +1,327 @@
+package rcs.auth.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.repositories.UserCredentialsChangeRepository;
+import rcs.auth.repositories.models.UserCredentialsChange;
+import rcs.auth.security.UserPrincipal;
+import rcs.auth.services.UserCredentialsChangedEvent.Change;
+import rcs.auth.sessions.SessionStore;
+import rcs.auth.tokens.TokenRevocationList;
+import rcs.auth.tokens.VerifiedAccessToken;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserCredentialsChangeLogTest {
+
+    @Mock
+    private UserCredentialsChangeRepository repository;
+
+    @Mock
+    private UserDetailsCache cache;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<UserCredentialsChange> rows = new ArrayList<>();
+    private final AtomicInteger failures = new AtomicInteger();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SessionStore sessionStore = new SessionStore(Duration.ofMinutes(30), 4, System::currentTimeMillis);
+    private final TokenRevocationList tokenRevocationList =
+            new TokenRevocationList(Duration.ofMinutes(15), Clock.systemUTC());
+    private UserCredentialsChangeLog target;
+
+    @Before
+    public void setup() {
+        // a poll interval long enough that only the tests poll
+        target = new UserCredentialsChangeLog(
+                repository, cache, sessionStore, tokenRevocationList, eventPublisher, registry, true, 3_600_000, 2, 3600, 60, now::get);
+
+        // serves the committed rows in pages, like the range scan does, once the given number of reads have failed
+        lenient().when(repository.forEachChangeAfter(anyLong(), anyInt(), any())).then(invocation -> {
+            if (failures.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+                throw new QueryTimeoutException("timeout");
+            }
+            long afterId = invocation.getArgument(0);
+            int limit = invocation.getArgument(1);
+            Consumer<UserCredentialsChange> action = invocation.getArgument(2);
+            List<UserCredentialsChange> page = rows.stream()
+                    .filter(row -> row.getId() > afterId)
+                    .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                    .limit(limit)
+                    .toList();
+            page.forEach(action);
+            return page.size();
+        });
+    }
+
+    @After
+    public void teardown() {
+        target.stop();
+    }
+
+    private void commit(long id, String username, Change change) {
+        rows.add(new UserCredentialsChange(id, username, change.name(), "other", Instant.now()));
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+
+    private double getApplied() {
+        return registry.get("auth.credentials-changes.applied").functionCounter().count();
+    }
+
+    private VerifiedAccessToken token(String username, Instant issuedAt) {
+        return token("id", username, issuedAt);
+    }
+
+    private VerifiedAccessToken token(String tokenId, String username, Instant issuedAt) {
+        return new VerifiedAccessToken(
+                tokenId, username, Set.of("USER"), issuedAt.toEpochMilli(), issuedAt.plusSeconds(900).toEpochMilli());
+    }
+
+    @Test
+    public void testAppliesChangesFromOtherNodes() {
+        // Arrange
+        for (int i = 1; i <= 5; i++) {
+            commit(i, "user" + i, Change.PASSWORD_UPDATED);
+        }
+
+        // Act
+        target.poll();
+
+        // Assert
+        for (int i = 1; i <= 5; i++) {
+            verify(cache).invalidate("user" + i);
+            verify(eventPublisher).publishEvent(
+                    new UserCredentialsChangedEvent("user" + i, Change.PASSWORD_UPDATED, true));
+        }
+        assertThat(getApplied()).isEqualTo(5);
+    }
+
+    @Test
+    public void testAppliesChangesOnce() {
+        // Arrange
+        commit(1, "username", Change.DELETED);
+        target.poll();
+
+        // Act
+        target.poll();
+
+        // Assert
+        verify(eventPublisher).publishEvent(new UserCredentialsChangedEvent("username", Change.DELETED, true));
+        assertThat(getApplied()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSkipsOwnChanges() {
+        // Arrange
+        target.append("username", Change.DELETED);
+        ArgumentCaptor<List<UserCredentialsChange>> appended = ArgumentCaptor.forClass(List.class);
+        verify(repository).insertAll(appended.capture());
+        UserCredentialsChange own = appended.getValue().get(0);
+        rows.add(new UserCredentialsChange(
+                1L, own.getUsername(), own.getChangeType(), own.getNode(), own.getChangedAt()));
+
+        // Act
+        target.poll();
+
+        // Assert
+        verify(cache, never()).invalidate(any());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void testSkipsUnknownChanges() {
+        // Arrange
+        rows.add(new UserCredentialsChange(1L, "username", "RENAMED", "other", Instant.now()));
+
+        // Act
+        target.poll();
+
+        // Assert
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void testAppliesChangeCommittedAfterHigherId() {
+        // Arrange
+        commit(2, "second", Change.DELETED);
+        target.poll();
+        commit(1, "first", Change.DELETED);
+
+        // Act
+        target.poll();
+
+        // Assert
+        verify(eventPublisher).publishEvent(new UserCredentialsChangedEvent("first", Change.DELETED, true));
+        verify(eventPublisher).publishEvent(new UserCredentialsChangedEvent("second", Change.DELETED, true));
+        assertThat(getApplied()).isEqualTo(2);
+    }
+
+    @Test
+    public void testStopsLookingForGapAfterTimeout() {
+        // Arrange
+        commit(2, "second", Change.DELETED);
+        target.poll();
+        advance(Duration.ofSeconds(61));
+        target.poll();
+        commit(1, "first", Change.DELETED);
+
+        // Act
+        target.poll();
+
+        // Assert
+        verify(eventPublisher, never()).publishEvent(new UserCredentialsChangedEvent("first", Change.DELETED, true));
+    }
+
+    @Test
+    public void testAppliesTokenRevocationsFromOtherNodes() {
+        // Arrange
+        Instant revokedAt = Instant.now();
+        rows.add(new UserCredentialsChange(
+                1L, "username", UserCredentialsChange.tokenRevoked, "other", revokedAt, "revoked"));
+
+        // Act
+        target.poll();
+
+        // Assert
+        assertThat(tokenRevocationList.test(token("revoked", "username", revokedAt))).isTrue();
+        assertThat(tokenRevocationList.test(token("other", "username", revokedAt))).isFalse();
+        verify(cache, never()).invalidate(any());
+        verify(eventPublisher, never()).publishEvent(any());
+        assertThat(getApplied()).isEqualTo(1);
+    }
+
+    @Test
+    public void testAppendTokenRevocation() {
+        // Arrange
+
+        // Act
+        target.appendTokenRevocation("username", "tokenId");
+
+        // Assert
+        ArgumentCaptor<List<UserCredentialsChange>> appended = ArgumentCaptor.forClass(List.class);
+        verify(repository).insertAll(appended.capture());
+        assertThat(appended.getValue()).singleElement().satisfies(change -> {
+            assertThat(change.getChangeType()).isEqualTo(UserCredentialsChange.tokenRevoked);
+            assertThat(change.getTokenId()).isEqualTo("tokenId");
+        });
+    }
+
+    @Test
+    public void testAppendDisabled() {
+        // Arrange
+        target = new UserCredentialsChangeLog(
+                repository, cache, sessionStore, tokenRevocationList, eventPublisher, new SimpleMeterRegistry(), false, 1000, 2, 3600, 60,
+                now::get);
+
+        // Act
+        target.append("username", Change.CREATED);
+
+        // Assert
+        verify(repository, never()).insertAll(anyList());
+    }
+
+    @Test
+    public void testPrunesOncePerMinute() {
+        // Arrange
+        target.poll();
+        advance(Duration.ofMinutes(1));
+
+        // Act
+        target.poll();
+        target.poll();
+
+        // Assert
+        verify(repository).deleteChangedBefore(any());
+    }
+
+    @Test
+    public void testStartInvalidatesSessionsChangedWhileDown() {
+        // Arrange
+        String deleted = sessionStore.create(new UserPrincipal("deleted", "", UserAuthority.USER));
+        String updated = sessionStore.create(new UserPrincipal("updated", "", UserAuthority.USER));
+        String kept = sessionStore.create(new UserPrincipal("kept", "", UserAuthority.USER));
+        commit(1, "deleted", Change.DELETED);
+        commit(2, "updated", Change.AUTHORITY_UPDATED);
+        commit(3, "kept", Change.PASSWORD_UPDATED);
+
+        // Act
+        target.start();
+        target.poll();
+
+        // Assert
+        assertThat(sessionStore.find(deleted)).isEmpty();
+        assertThat(sessionStore.find(updated)).isEmpty();
+        assertThat(sessionStore.find(kept)).isPresent();
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void testStartRevokesTokensIssuedBeforeChangesWhileDown() {
+        // Arrange
+        Instant changedAt = Instant.now().minusSeconds(60);
+        rows.add(new UserCredentialsChange(1L, "deleted", Change.DELETED.name(), "other", changedAt));
+        rows.add(new UserCredentialsChange(2L, "created", Change.CREATED.name(), "other", changedAt));
+        rows.add(new UserCredentialsChange(
+                3L, "expired", Change.DELETED.name(), "other", changedAt.minus(Duration.ofMinutes(15))));
+
+        // Act
+        target.start();
+
+        // Assert
+        assertThat(tokenRevocationList.test(token("deleted", changedAt.minusSeconds(1)))).isTrue();
+        assertThat(tokenRevocationList.test(token("deleted", changedAt.plusSeconds(1)))).isFalse();
+        assertThat(tokenRevocationList.test(token("created", changedAt.minusSeconds(1)))).isFalse();
+        assertThat(tokenRevocationList.test(token("expired", changedAt.minusSeconds(1)))).isFalse();
+    }
+
+    @Test
+    public void testPollRetriesFailedCatchUp() {
+        // Arrange
+        String updated = sessionStore.create(new UserPrincipal("updated", "", UserAuthority.USER));
+        commit(1, "updated", Change.AUTHORITY_UPDATED);
+        failures.set(1);
+        target.start();
+        assertThat(sessionStore.find(updated)).isPresent();
+
+        // Act
+        target.poll();
+
+        // Assert
+        assertThat(sessionStore.find(updated)).isEmpty();
+        verify(cache, never()).invalidate("updated");
+        verify(eventPublisher, never()).publishEvent(any());
+        assertThat(getApplied()).isZero();
+    }
+}
@@ -0,0 +1,52 @@
+package rcs.auth.services;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.core.userdetails.User;
+import rcs.auth.api.models.LoginCredentials;
+import rcs.auth.testutils.EmbeddedAuthApplication;
+import rcs.auth.testutils.StatementCountingDataSource;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A single database without replicas, whose pool is used without a lazy connection proxy in front of it.
+ */
+public class UserCredentialsServiceConnectionTest {
+
+    private EmbeddedAuthApplication application;
+    private StatementCountingDataSource dataSource;
+
+    @Before
+    public void setup() {
+        application = EmbeddedAuthApplication.start(
+                // nothing polls the database in the background while counting
+                Map.of("auth.credentials-changes.poll-interval-millis", "3600000"),
+                pool -> dataSource = new StatementCountingDataSource(pool));
+    }
+
+    @After
+    public void teardown() {
+        application.close();
+    }
+
+    @Test
+    public void testLoadUserByUsernameCacheHitTakesNoConnection() {
+        // Arrange
+        UserCredentialsService target = application.getBean(UserCredentialsService.class);
+        target.save(new LoginCredentials("username", "password")).join();
+        target.loadUserByUsername("username");
+        dataSource.reset();
+
+        // Act
+        User actual = target.loadUserByUsername("username");
+
+        // Assert
+        assertThat(actual.getUsername()).isEqualTo("username");
+        assertThat(dataSource.getExecutions()).isZero();
+        assertThat(dataSource.getConnections()).isZero();
+    }
+}
@@ -0,0 +1,115 @@
+package rcs.auth.services;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.User;
+import rcs.auth.api.models.LoginCredentials;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.repositories.models.UserCredentials;
+import rcs.auth.repositories.models.UserSummary;
+import rcs.auth.security.UserPrincipal;
+import rcs.auth.testutils.EmbeddedAuthApplication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * A replica that stopped replicating, so that it still holds the rows as they were before a change.
+ */
+public class UserCredentialsServiceReplicaTest {
+
+    private EmbeddedAuthApplication application;
+    private JdbcTemplate replica;
+
+    @Before
+    public void setup() {
+        String replicaUrl = "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1";
+        replica = new JdbcTemplate(DataSourceBuilder.create().username("sa").password("").url(replicaUrl).build());
+        replica.execute("create table " + UserCredentials.tableName +
+                " (" + UserCredentials.Fields.username + " varchar(32) primary key, " +
+                UserCredentials.Fields.password + " varchar(128), " +
+                UserCredentials.Fields.authority + " int)");
+        application = EmbeddedAuthApplication.start(Map.of(
+                "spring.datasource.replica-urls", replicaUrl,
+                "spring.datasource.replica-max-lag-seconds", "1",
+                "spring.datasource.replica-check-interval-seconds", "1"));
+    }
+
+    @After
+    public void teardown() {
+        application.close();
+        replica.execute("drop all objects");
+    }
+
+    @Test
+    public void testLoadUserByUsernameIgnoresLaggingReplica() throws InterruptedException {
+        // Arrange
+        UserCredentialsService target = application.getBean(UserCredentialsService.class);
+        target.save(new LoginCredentials("username", "password")).join();
+        replicate();
+        target.loadUserByUsername("username");
+        target.updateAuthority("username", UserAuthority.ADMIN);
+        assertThat(listFromReplica()).contains(new UserSummary("username", UserAuthority.USER));
+
+        // Act
+        User actual = target.loadUserByUsername("username");
+
+        // Assert
+        assertThat(actual.getAuthorities())
+                .isEqualTo(new UserPrincipal("username", "", UserAuthority.ADMIN).getAuthorities());
+    }
+
+    @Test
+    public void testLoadUserByUsernameReadsSettledUserFromReplica() throws InterruptedException {
+        // Arrange
+        UserCredentialsService target = application.getBean(UserCredentialsService.class);
+        UserDetailsCache cache = application.getBean(UserDetailsCache.class);
+        target.save(new LoginCredentials("username", "password")).join();
+        replicate();
+        // only on the primary, and without invalidating, so that the replica is the only one with a USER
+        application.getBean(JdbcTemplate.class).update(
+                "update " + UserCredentials.tableName + " set " + UserCredentials.Fields.authority + " = ?",
+                UserAuthority.ADMIN.ordinal());
+        assertThat(listFromReplica()).contains(new UserSummary("username", UserAuthority.USER));
+        while (cache.isRecentlyInvalidated("username")) {
+            Thread.sleep(100);
+        }
+
+        // Act
+        User actual = target.loadUserByUsername("username");
+
+        // Assert
+        assertThat(actual.getAuthorities())
+                .isEqualTo(new UserPrincipal("username", "", UserAuthority.USER).getAuthorities());
+    }
+
+    private void replicate() {
+        application.getBean(JdbcTemplate.class).query("select * from " + UserCredentials.tableName, resultSet -> {
+            replica.update(
+                    "insert into " + UserCredentials.tableName + " values (?, ?, ?)",
+                    resultSet.getString(UserCredentials.Fields.username),
+                    resultSet.getString(UserCredentials.Fields.password),
+                    resultSet.getInt(UserCredentials.Fields.authority));
+        });
+    }
+
+    // once the replica's first health check has passed, so that read-only transactions go to it
+    private List<UserSummary> listFromReplica() throws InterruptedException {
+        UserListingService listing = application.getBean(UserListingService.class);
+        for (int attempt = 0; ; attempt++) {
+            List<UserSummary> users = new ArrayList<>();
+            listing.forEachUser("", null, 10, users::add);
+            if (users.contains(new UserSummary("username", UserAuthority.USER)) || attempt == 50) {
+                return users;
+            }
+            Thread.sleep(100);
+        }
+    }
+}
@@ -1,13 +1,23 @@
 package rcs.auth.services;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import rcs.auth.api.models.LoginCredentials;
 import rcs.auth.api.models.UserAuthority;
 import rcs.auth.exceptions.UsernameAlreadyExistsException;
@@ -15,10 +25,20 @@ import rcs.auth.exceptions.UsernameNotFoundException;
 import rcs.auth.repositories.UserCredentialsRepository;
 import rcs.auth.repositories.models.UserCredentials;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -31,6 +51,30 @@ public class UserCredentialsServiceTest {
     @Mock
     private UserCredentialsRepository repository;
 
+    @Mock
+    private UserCredentialsChangeLog changeLog;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Spy
+    private UserDetailsCache cache = new UserDetailsCache(100, 60, 10);
+
+    @Spy
+    private PasswordHashingExecutor hashingExecutor = new PasswordHashingExecutor(1, 10, 1);
+
+    @Spy
+    private Executor writeExecutor = new ConcurrentTaskExecutor(
+            Executors.newSingleThreadExecutor(new CustomizableThreadFactory("write-")));
+
+    // not built, so every username might exist
+    @Spy
+    private UsernameFilter usernameFilter =
+            new UsernameFilter(mock(UserCredentialsRepository.class), new SimpleMeterRegistry(), true, 100, 0.01, 100, 0);
+
     @InjectMocks
     private UserCredentialsService target;
 
@@ -55,6 +99,48 @@ public class UserCredentialsServiceTest {
                 new SimpleGrantedAuthority(userCredentials.getAuthority().name()));
     }
 
+    @Test
+    public void testLoadUserByUsernameIsCached() {
+        // Arrange
+        UserCredentials userCredentials = new UserCredentials(
+                "username",
+                "password",
+                UserAuthority.USER);
+
+        when(repository.findById(userCredentials.getUsername()))
+                .thenReturn(Optional.of(userCredentials));
+
+        // Act
+        target.loadUserByUsername(userCredentials.getUsername());
+        User actual = target.loadUserByUsername(userCredentials.getUsername());
+
+        // Assert
+        assertThat(actual.getPassword()).isEqualTo(userCredentials.getPassword());
+        verify(repository, times(1)).findById(userCredentials.getUsername());
+    }
+
+    @Test
+    public void testUpdateAuthorityInvalidatesCachedUser() {
+        // Arrange
+        String username = "username";
+        when(repository.findById(username))
+                .thenReturn(Optional.of(new UserCredentials(username, "password", UserAuthority.USER)));
+
+        when(repository.updateAuthority(username, UserAuthority.ADMIN))
+                .thenReturn(true);
+
+        target.loadUserByUsername(username);
+
+        // Act
+        target.updateAuthority(username, UserAuthority.ADMIN);
+        target.loadUserByUsername(username);
+
+        // Assert
+        verify(repository, times(2)).findById(username);
+        verify(eventPublisher).publishEvent(
+                new UserCredentialsChangedEvent(username, UserCredentialsChangedEvent.Change.AUTHORITY_UPDATED));
+    }
+
     @Test
     public void testLoadUserByUsernameNotFound() {
         // Arrange
@@ -68,31 +154,75 @@ public class UserCredentialsServiceTest {
                 () -> target.loadUserByUsername(username));
     }
 
+    @Test
+    public void testLoadUserByUsernameDefinitelyNotFoundSkipsRepository() {
+        // Arrange
+        usernameFilter.build();
+
+        // Act
+        assertThrows(
+                UsernameNotFoundException.class,
+                () -> target.loadUserByUsername("username"));
+
+        // Assert
+        verify(repository, never()).findById(any());
+    }
+
+    @Test
+    public void testLoginWithDefinitelyUnknownUsernameStillHashes() {
+        // Arrange
+        usernameFilter.build();
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(target);
+        provider.setPasswordEncoder(encoder);
+
+        // Act
+        assertThrows(
+                BadCredentialsException.class,
+                () -> provider.authenticate(new UsernamePasswordAuthenticationToken("username", "password")));
+
+        // Assert
+        verify(encoder).matches(eq("password"), any());
+        verify(repository, never()).findById(any());
+    }
+
     @Test
     public void testSave() {
         // Arrange
         LoginCredentials request = new LoginCredentials("username", "password");
+        UserCredentials credentials = new UserCredentials(request.getUsername(), "p455w0rd", UserAuthority.USER);
         when(encoder.encode(request.getPassword()))
                 .thenReturn("p455w0rd");
+        List<String> threadNames = new ArrayList<>();
+        when(repository.insert(credentials))
+                .then(invocation -> threadNames.add(Thread.currentThread().getName()));
 
         // Act
-        target.save(request);
+        target.save(request).join();
 
         // Assert
-        verify(repository).save(new UserCredentials(request.getUsername(), "p455w0rd", UserAuthority.USER));
+        verify(repository).insert(credentials);
+        assertThat(threadNames).singleElement().asString().startsWith("write-");
+        verify(repository, never()).existsById(request.getUsername());
+        verify(changeLog).append(request.getUsername(), UserCredentialsChangedEvent.Change.CREATED);
     }
 
     @Test
     public void testSaveAlreadyExists() {
         // Arrange
         LoginCredentials request = new LoginCredentials("username", "password");
-        when(repository.existsById(request.getUsername()))
-                .thenReturn(true);
+        when(encoder.encode(request.getPassword()))
+                .thenReturn("p455w0rd");
+        when(repository.insert(new UserCredentials(request.getUsername(), "p455w0rd", UserAuthority.USER)))
+                .thenReturn(false);
 
         // Act & assert
-        assertThrows(
-                UsernameAlreadyExistsException.class,
-                () -> target.save(request));
+        CompletionException exception = assertThrows(
+                CompletionException.class,
+                () -> target.save(request).join());
+        assertThat(exception.getCause()).isInstanceOf(UsernameAlreadyExistsException.class);
+        verify(eventPublisher, never()).publishEvent(any());
+        verify(changeLog, never()).append(any(), any());
     }
 
     @Test
@@ -109,21 +239,55 @@ public class UserCredentialsServiceTest {
                 .thenReturn(true);
 
         // Act
-        target.updatePassword(username, newPassword);
+        target.updatePassword(username, newPassword).join();
 
         // Assert
         verify(repository).updatePassword(username, encodedPassword);
+        verify(changeLog).append(username, UserCredentialsChangedEvent.Change.PASSWORD_UPDATED);
+    }
+
+    @Test
+    public void testUpdateEncodedPassword() {
+        // Arrange
+        User user = new User("username", "oldHash", List.of(new SimpleGrantedAuthority("USER")));
+
+        // Act
+        User actual = target.updatePassword(user, "newHash");
+
+        // Assert
+        verify(repository).updatePassword(user.getUsername(), "newHash");
+        assertThat(actual.getPassword()).isEqualTo("newHash");
+        assertThat(actual.getAuthorities()).isEqualTo(user.getAuthorities());
     }
 
     @Test
     public void testDelete() {
         // Arrange
         String username = "username";
+        when(repository.deleteUser(username))
+                .thenReturn(true);
 
         // Act
         target.delete(username);
 
         // Assert
-        verify(repository).deleteById(username);
+        verify(repository).deleteUser(username);
+        verify(changeLog).append(username, UserCredentialsChangedEvent.Change.DELETED);
+        verify(eventPublisher).publishEvent(
+                new UserCredentialsChangedEvent(username, UserCredentialsChangedEvent.Change.DELETED));
+    }
+
+    @Test
+    public void testDeleteNotFound() {
+        // Arrange
+        String username = "username";
+        when(repository.deleteUser(username))
+                .thenReturn(false);
+
+        // Act & assert
+        assertThrows(
+                UsernameNotFoundException.class,
+                () -> target.delete(username));
+        verify(eventPublisher, never()).publishEvent(any());
     }
 }
@@ -0,0 +1,94 @@
+package rcs.auth.services;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class UserDetailsCacheTest {
+
+    private UserDetailsCache target;
+
+    @Before
+    public void setup() {
+        target = new UserDetailsCache(100, 60, 10);
+    }
+
+    @Test
+    public void testGetLoadsOnce() {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        target.get("username", username -> { loads.incrementAndGet(); return user(username); });
+        target.get("username", username -> { loads.incrementAndGet(); return user(username); });
+
+        // Assert
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(target.stats().hitCount()).isEqualTo(1);
+        assertThat(target.stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testGetReturnsCopy() {
+        // Arrange
+        User first = target.get("username", this::user);
+
+        // Act
+        first.eraseCredentials();
+        User actual = target.get("username", this::user);
+
+        // Assert
+        assertThat(actual.getPassword()).isEqualTo("password");
+    }
+
+    @Test
+    public void testFailedLoadIsNotCached() {
+        // Arrange
+        RuntimeException failure = new IllegalStateException("failed");
+
+        // Act
+        Throwable actual = catchThrowable(() -> target.get("username", username -> { throw failure; }));
+        User loaded = target.get("username", this::user);
+
+        // Assert
+        assertThat(actual).isSameAs(failure);
+        assertThat(loaded.getUsername()).isEqualTo("username");
+    }
+
+    @Test
+    public void testInvalidate() {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+        target.get("username", username -> { loads.incrementAndGet(); return user(username); });
+
+        // Act
+        target.invalidate("username");
+        target.get("username", username -> { loads.incrementAndGet(); return user(username); });
+
+        // Assert
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testIsRecentlyInvalidated() {
+        // Arrange
+
+        // Act
+        target.invalidate("username");
+
+        // Assert
+        assertThat(target.isRecentlyInvalidated("username")).isTrue();
+        assertThat(target.isRecentlyInvalidated("other")).isFalse();
+    }
+
+    private User user(String username) {
+        return new User(username, "password", List.of(new SimpleGrantedAuthority("USER")));
+    }
+}
@@ -0,0 +1,242 @@
+package rcs.auth.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.repositories.UserCredentialsRepository;
+import rcs.auth.repositories.models.UserCredentials;
+import rcs.auth.services.UserCredentialsChangedEvent.Change;
+import rcs.auth.services.UserImportResult.Conflict;
+import rcs.auth.services.UserImportResult.Reason;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserImportServiceTest {
+
+    @Mock
+    private PasswordEncoder encoder;
+
+    @Mock
+    private UserCredentialsRepository repository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private UserCredentialsChangeLog changeLog;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private UserImportService target;
+
+    @Before
+    public void setup() {
+        target = new UserImportService(
+                encoder,
+                repository,
+                new UserDetailsCache(100, 60, 10),
+                new TransactionTemplate(transactionManager),
+                changeLog,
+                eventPublisher,
+                new ObjectMapper(),
+                2,
+                2,
+                4);
+
+        when(encoder.encode(any())).then(invocation -> "encoded-" + invocation.getArgument(0));
+    }
+
+    @After
+    public void shutdown() {
+        target.shutdown();
+    }
+
+    @Test
+    public void testImportNdjson() throws IOException {
+        // Arrange
+        when(repository.findExistingUsernames(anyCollection()))
+                .thenReturn(Set.of())
+                .thenReturn(Set.of("user1", "existing"));
+
+        String body = "{\"username\":\"user1\",\"password\":\"p1\"}\n" +
+                "not json\n" +
+                "\n" +
+                "{\"username\":\"user2\",\"password\":\"p2\"}\n" +
+                "{\"username\":\"user1\",\"password\":\"p3\"}\n" +
+                "{\"username\":\"existing\",\"password\":\"p4\"}\n" +
+                "{\"username\":\"user3\",\"password\":\"\"}\n";
+
+        // Act
+        UserImportResult actual = target.importUsers(reader(body), UserImportService.Format.NDJSON);
+
+        // Assert
+        assertThat(actual.getImported()).isEqualTo(2);
+        assertThat(actual.getConflicts()).containsExactlyInAnyOrder(
+                new Conflict(2, null, Reason.INVALID),
+                new Conflict(5, "user1", Reason.ALREADY_EXISTS),
+                new Conflict(6, "existing", Reason.ALREADY_EXISTS),
+                new Conflict(7, "user3", Reason.INVALID));
+
+        verify(repository).insertAll(List.of(
+                new UserCredentials("user1", "encoded-p1", UserAuthority.USER),
+                new UserCredentials("user2", "encoded-p2", UserAuthority.USER)));
+        verify(eventPublisher).publishEvent(new UserCredentialsChangedEvent("user1", Change.CREATED));
+        verify(eventPublisher).publishEvent(new UserCredentialsChangedEvent("user2", Change.CREATED));
+        verify(changeLog).appendAll(List.of("user1", "user2"), Change.CREATED);
+    }
+
+    @Test
+    public void testImportCsv() throws IOException {
+        // Arrange
+        when(repository.findExistingUsernames(anyCollection())).thenReturn(Set.of());
+
+        String body = "username,password\n" +
+                "user1,p,1\n" +
+                "user2\n";
+
+        // Act
+        UserImportResult actual = target.importUsers(reader(body), UserImportService.Format.CSV);
+
+        // Assert
+        assertThat(actual.getImported()).isEqualTo(1);
+        assertThat(actual.getConflicts()).containsExactly(new Conflict(3, null, Reason.INVALID));
+        verify(repository).insertAll(List.of(new UserCredentials("user1", "encoded-p,1", UserAuthority.USER)));
+    }
+
+    @Test
+    public void testImportCsvWithQuotedFields() throws IOException {
+        // Arrange
+        when(repository.findExistingUsernames(anyCollection())).thenReturn(Set.of());
+
+        String body = "\"username\",\"password\"\n" +
+                "user1,\"p,\"\"1\"\"\"\n" +
+                "\"user2\",p2\n" +
+                "user3,\"p3\n" +
+                "user4,\"p4\"x\n";
+
+        // Act
+        UserImportResult actual = target.importUsers(reader(body), UserImportService.Format.CSV);
+
+        // Assert
+        assertThat(actual.getImported()).isEqualTo(2);
+        assertThat(actual.getConflicts()).containsExactly(
+                new Conflict(4, null, Reason.INVALID),
+                new Conflict(5, null, Reason.INVALID));
+        verify(repository).insertAll(List.of(
+                new UserCredentials("user1", "encoded-p,\"1\"", UserAuthority.USER),
+                new UserCredentials("user2", "encoded-p2", UserAuthority.USER)));
+    }
+
+    @Test
+    public void testImportDetectsDuplicatesWithinChunk() throws IOException {
+        // Arrange
+        when(repository.findExistingUsernames(anyCollection())).thenReturn(Set.of());
+
+        String body = "user1,p1\n" +
+                "user1,p2\n" +
+                "user2,p3\n";
+
+        // Act
+        UserImportResult actual = target.importUsers(reader(body), UserImportService.Format.CSV);
+
+        // Assert
+        assertThat(actual.getImported()).isEqualTo(2);
+        assertThat(actual.getConflicts()).containsExactly(new Conflict(2, "user1", Reason.DUPLICATE_IN_REQUEST));
+    }
+
+    @Test
+    public void testImportCountsConflictsPastMaximum() throws IOException {
+        // Arrange
+        String body = "a\n" +
+                "b\n" +
+                "c\n" +
+                "d\n" +
+                "e\n" +
+                "f\n";
+
+        // Act
+        UserImportResult actual = target.importUsers(reader(body), UserImportService.Format.CSV);
+
+        // Assert
+        assertThat(actual.getImported()).isZero();
+        assertThat(actual.getConflicts()).containsExactly(
+                new Conflict(1, null, Reason.INVALID),
+                new Conflict(2, null, Reason.INVALID),
+                new Conflict(3, null, Reason.INVALID),
+                new Conflict(4, null, Reason.INVALID));
+        assertThat(actual.getUnreportedConflicts()).isEqualTo(2);
+    }
+
+    @Test
+    public void testImportFallsBackToSingleInsertsOnDuplicateKey() throws IOException {
+        // Arrange
+        when(repository.findExistingUsernames(anyCollection())).thenReturn(Set.of());
+        doThrow(new DuplicateKeyException("duplicate")).when(repository).insertAll(anyList());
+        when(repository.insert(new UserCredentials("user1", "encoded-p1", UserAuthority.USER))).thenReturn(false);
+        when(repository.insert(new UserCredentials("user2", "encoded-p2", UserAuthority.USER))).thenReturn(true);
+
+        String body = "user1,p1\n" +
+                "user2,p2\n";
+
+        // Act
+        UserImportResult actual = target.importUsers(reader(body), UserImportService.Format.CSV);
+
+        // Assert
+        assertThat(actual.getImported()).isEqualTo(1);
+        assertThat(actual.getConflicts()).containsExactly(new Conflict(1, "user1", Reason.ALREADY_EXISTS));
+        verify(eventPublisher, never()).publishEvent(new UserCredentialsChangedEvent("user1", Change.CREATED));
+        verify(eventPublisher).publishEvent(new UserCredentialsChangedEvent("user2", Change.CREATED));
+        verify(changeLog, never()).append("user1", Change.CREATED);
+        verify(changeLog).append("user2", Change.CREATED);
+    }
+
+    @Test
+    public void testImportWritesOneBatchPerChunk() throws IOException {
+        // Arrange
+        when(repository.findExistingUsernames(anyCollection())).thenReturn(Set.of());
+
+        String body = "user1,p1\n" +
+                "user2,p2\n" +
+                "user3,p3\n" +
+                "user4,p4\n" +
+                "user5,p5\n";
+
+        // Act
+        UserImportResult actual = target.importUsers(reader(body), UserImportService.Format.CSV);
+
+        // Assert
+        assertThat(actual.getImported()).isEqualTo(5);
+        verify(repository, times(3)).findExistingUsernames(anyCollection());
+        verify(repository, times(3)).insertAll(anyList());
+    }
+
+    private static BufferedReader reader(String body) {
+        return new BufferedReader(new StringReader(body));
+    }
+}
@@ -0,0 +1,92 @@
+package rcs.auth.services;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.repositories.UserCredentialsRepository;
+import rcs.auth.repositories.models.UserSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UserListingServiceTest {
+
+    @Mock
+    private UserCredentialsRepository repository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private UserListingService target;
+
+    @Before
+    public void setup() {
+        target = new UserListingService(repository, transactionManager, 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testForEachUserPagesAfterLastUsername() {
+        // Arrange
+        List<String> usernames = List.of("user1", "user2", "user3");
+        doAnswer(invocation -> {
+            String after = invocation.getArgument(0);
+            int limit = invocation.getArgument(2);
+            Consumer<UserSummary> action = invocation.getArgument(3);
+            return (int) usernames.stream()
+                    .filter(username -> after == null || username.compareTo(after) > 0)
+                    .limit(limit)
+                    .peek(username -> action.accept(new UserSummary(username, UserAuthority.USER)))
+                    .count();
+        }).when(repository).forEachUser(any(), eq(UserAuthority.USER), anyInt(), any(Consumer.class));
+
+        List<UserSummary> actual = new ArrayList<>();
+
+        // Act
+        target.forEachUser(null, UserAuthority.USER, Long.MAX_VALUE, actual::add);
+
+        // Assert
+        assertThat(actual).extracting(UserSummary::getUsername).containsExactlyElementsOf(usernames);
+        verify(repository).forEachUser(eq(null), eq(UserAuthority.USER), eq(2), any(Consumer.class));
+        verify(repository).forEachUser(eq("user2"), eq(UserAuthority.USER), eq(2), any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testForEachUserStopsAtLimit() {
+        // Arrange
+        doAnswer(invocation -> {
+            int limit = invocation.getArgument(2);
+            Consumer<UserSummary> action = invocation.getArgument(3);
+            for (int i = 0; i < limit; i++) {
+                action.accept(new UserSummary("user" + i, UserAuthority.USER));
+            }
+            return limit;
+        }).when(repository).forEachUser(any(), any(), anyInt(), any(Consumer.class));
+
+        List<UserSummary> actual = new ArrayList<>();
+
+        // Act
+        target.forEachUser("user", null, 3, actual::add);
+
+        // Assert
+        assertThat(actual).hasSize(3);
+        verify(repository).forEachUser(eq("user"), eq(null), eq(2), any(Consumer.class));
+        verify(repository).forEachUser(eq("user1"), eq(null), eq(1), any(Consumer.class));
+        verify(repository, never()).forEachUser(any(), any(), eq(0), any(Consumer.class));
+    }
+}
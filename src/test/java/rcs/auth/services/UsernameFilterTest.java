@@ -0,0 +1,186 @@
+package rcs.auth.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.repositories.UserCredentialsRepository;
+import rcs.auth.repositories.models.UserSummary;
+import rcs.auth.services.UserCredentialsChangedEvent.Change;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class UsernameFilterTest {
+
+    @Mock
+    private UserCredentialsRepository repository;
+
+    private final List<String> usernames = new ArrayList<>();
+    private SimpleMeterRegistry registry;
+    private UsernameFilter target;
+
+    @Before
+    public void setup() {
+        registry = new SimpleMeterRegistry();
+        target = new UsernameFilter(repository, registry, true, 1000, 0.01, 2, 0);
+    }
+
+    @After
+    public void teardown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    // serves the usernames in pages of the filter's page size, like the keyset query does
+    private void givenUsers(String... names) {
+        usernames.addAll(List.of(names));
+        when(repository.forEachUser(any(), isNull(), anyInt(), any())).thenAnswer(invocation -> {
+            String after = invocation.getArgument(0);
+            int limit = invocation.getArgument(2);
+            Consumer<UserSummary> action = invocation.getArgument(3);
+            List<String> page = usernames.stream()
+                    .sorted()
+                    .filter(username -> after == null || username.compareTo(after) > 0)
+                    .limit(limit)
+                    .toList();
+            page.forEach(username -> action.accept(new UserSummary(username, UserAuthority.USER)));
+            return page.size();
+        });
+    }
+
+    private void publish(String username, Change change) {
+        target.onUserCredentialsChanged(new UserCredentialsChangedEvent(username, change));
+    }
+
+    @Test
+    public void testEveryUsernameMightExistBeforeBuild() {
+        // Arrange
+
+        // Act
+        boolean actual = target.mightExist("unknown");
+
+        // Assert
+        assertThat(actual).isTrue();
+    }
+
+    @Test
+    public void testBuildReadsAllPages() {
+        // Arrange
+        givenUsers("a", "b", "c", "d", "e");
+
+        // Act
+        target.build();
+
+        // Assert
+        assertThat(List.of("a", "b", "c", "d", "e")).allMatch(target::mightExist);
+        assertThat(target.mightExist("unknown")).isFalse();
+    }
+
+    @Test
+    public void testUsernamesAreCaseInsensitive() {
+        // Arrange
+        givenUsers("UserName");
+        target.build();
+
+        // Act
+        boolean actual = target.mightExist("username");
+
+        // Assert
+        assertThat(actual).isTrue();
+    }
+
+    @Test
+    public void testCreatedUsernameMightExist() {
+        // Arrange
+        givenUsers();
+        target.build();
+
+        // Act
+        publish("username", Change.CREATED);
+
+        // Assert
+        assertThat(target.mightExist("username")).isTrue();
+    }
+
+    @Test
+    public void testDeletedUsernameDoesNotExistOnceCommitted() {
+        // Arrange
+        givenUsers("username");
+        target.build();
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        publish("username", Change.DELETED);
+
+        // Assert
+        assertThat(target.mightExist("username")).isTrue();
+        commit();
+        assertThat(target.mightExist("username")).isFalse();
+    }
+
+    @Test
+    public void testRemoteDeleteIsSkipped() {
+        // Arrange
+        givenUsers("username");
+        target.build();
+
+        // Act
+        target.onUserCredentialsChanged(new UserCredentialsChangedEvent("username", Change.DELETED, true));
+
+        // Assert
+        assertThat(target.mightExist("username")).isTrue();
+    }
+
+    @Test
+    public void testDeleteIsSkippedWhenBuildOverlapsCommit() {
+        // Arrange
+        givenUsers("username");
+        target.build();
+        TransactionSynchronizationManager.initSynchronization();
+        publish("username", Change.DELETED);
+        TransactionSynchronizationManager.getSynchronizations().forEach(sync -> sync.beforeCommit(false));
+
+        // Act
+        target.build();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        // Assert
+        assertThat(target.mightExist("username")).isTrue();
+    }
+
+    @Test
+    public void testDefiniteNegativesAreCounted() {
+        // Arrange
+        givenUsers("username");
+        target.build();
+
+        // Act
+        target.mightExist("unknown");
+        target.mightExist("username");
+
+        // Assert
+        assertThat(registry.get("auth.username-filter.definite-negatives").functionCounter().count()).isEqualTo(1);
+    }
+
+    private void commit() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(sync -> sync.beforeCommit(false));
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+    }
+}
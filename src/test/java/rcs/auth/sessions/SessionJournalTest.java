@@ -0,0 +1,307 @@
+package rcs.auth.sessions;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.security.UserPrincipal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SessionJournalTest {
+
+    private static final Duration timeout = Duration.ofMinutes(30);
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicLong currentTimeMillis = new AtomicLong(1_600_000_000_000L);
+    private final List<SessionStore> stores = new ArrayList<>();
+
+    @After
+    public void teardown() {
+        stores.forEach(SessionStore::close);
+    }
+
+    private SessionStore start(long size) throws IOException {
+        SessionJournal journal = new SessionJournal(
+                folder.getRoot().toPath().resolve("sessions.journal"), size, Duration.ofHours(1), Duration.ofMinutes(1));
+        SessionStore store = new SessionStore(timeout, 4, currentTimeMillis::get, journal);
+        store.start();
+        stores.add(store);
+        return store;
+    }
+
+    private SessionStore start() throws IOException {
+        return start(4 << 20);
+    }
+
+    private SessionStore restart(SessionStore store) throws IOException {
+        store.close();
+        return start();
+    }
+
+    private void advance(Duration duration) {
+        currentTimeMillis.addAndGet(duration.toMillis());
+    }
+
+    @Test
+    public void testRestoresSessions() throws IOException {
+        // Arrange
+        SessionStore store = start();
+        String user = store.create(new UserPrincipal("user", "password", UserAuthority.USER));
+        String admin = store.create(new UserPrincipal("admin", "password", UserAuthority.ADMIN));
+
+        // Act
+        SessionStore target = restart(store);
+
+        // Assert
+        assertThat(target.size()).isEqualTo(2);
+        UserPrincipal userPrincipal = target.find(user).get();
+        assertThat(userPrincipal.getUsername()).isEqualTo("user");
+        assertThat(userPrincipal.getPassword()).isEmpty();
+        assertThat(userPrincipal.getRoles())
+                .isEqualTo(new UserPrincipal("user", "", UserAuthority.USER).getRoles());
+        assertThat(target.find(admin).get().getRoles())
+                .isEqualTo(new UserPrincipal("admin", "", UserAuthority.ADMIN).getRoles());
+    }
+
+    @Test
+    public void testRestoresSessionsWithoutClose() throws IOException {
+        // Arrange
+        SessionStore store = start();
+        String id = store.create(new UserPrincipal("user", "", UserAuthority.USER));
+
+        // Act
+        SessionStore target = start();
+
+        // Assert
+        assertThat(target.find(id)).isPresent();
+    }
+
+    @Test
+    public void testRestoresSessionsSharingPrincipal() throws IOException {
+        // Arrange
+        SessionStore store = start();
+        String first = store.create(new UserPrincipal("user", "", UserAuthority.USER));
+        String second = store.create(new UserPrincipal("user", "", UserAuthority.USER));
+
+        // Act
+        SessionStore target = restart(store);
+
+        // Assert
+        assertThat(target.find(second).get()).isSameAs(target.find(first).get());
+    }
+
+    @Test
+    public void testDoesNotRestoreInvalidatedSessions() throws IOException {
+        // Arrange
+        SessionStore store = start();
+        String invalidated = store.create(new UserPrincipal("user", "", UserAuthority.USER));
+        String kept = store.create(new UserPrincipal("user", "", UserAuthority.USER));
+        store.invalidate(invalidated);
+
+        // Act
+        SessionStore target = restart(store);
+
+        // Assert
+        assertThat(target.find(invalidated)).isEmpty();
+        assertThat(target.find(kept)).isPresent();
+    }
+
+    @Test
+    public void testDoesNotRestoreSessionsOfInvalidatedUsers() throws IOException {
+        // Arrange
+        SessionStore store = start();
+        String invalidated = store.create(new UserPrincipal("user", "", UserAuthority.USER));
+        String other = store.create(new UserPrincipal("other", "", UserAuthority.USER));
+        store.invalidateUser("user", Instant.ofEpochMilli(currentTimeMillis.get()));
+        advance(Duration.ofSeconds(1));
+        String later = store.create(new UserPrincipal("user", "", UserAuthority.ADMIN));
+
+        // Act
+        SessionStore target = restart(store);
+
+        // Assert
+        assertThat(target.find(invalidated)).isEmpty();
+        assertThat(target.find(other)).isPresent();
+        assertThat(target.find(later)).isPresent();
+        assertThat(target.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testDoesNotRestoreExpiredSessions() throws IOException {
+        // Arrange
+        SessionStore store = start();
+        String id = store.create(new UserPrincipal("user", "", UserAuthority.USER));
+        store.close();
+        advance(timeout);
+
+        // Act
+        SessionStore target = start();
+
+        // Assert
+        assertThat(target.find(id)).isEmpty();
+        assertThat(target.size()).isZero();
+    }
+
+    @Test
+    public void testRestoresAccesses() throws IOException {
+        // Arrange
+        SessionStore store = start();
+        String id = store.create(new UserPrincipal("user", "", UserAuthority.USER));
+        advance(timeout.minusMinutes(1));
+        store.access(id);
+        store.close();
+        advance(Duration.ofMinutes(2));
+
+        // Act
+        SessionStore target = start();
+
+        // Assert
+        assertThat(target.find(id)).isPresent();
+    }
+
+    @Test
+    public void testRestoresAccessesOnlyOncePerTouchInterval() throws IOException {
+        // Arrange
+        SessionStore store = start();
+        String id = store.create(new UserPrincipal("user", "", UserAuthority.USER));
+        long sizeBefore = getJournalSize(store);
+
+        // Act
+        for (int i = 0; i < 120; i++) {
+            advance(Duration.ofSeconds(1));
+            store.access(id);
+        }
+
+        // Assert
+        assertThat(getJournalSize(store) - sizeBefore).isEqualTo(2 * 128);
+    }
+
+    @Test
+    public void testRestoresSessionsCreatedAfterRestore() throws IOException {
+        // Arrange
+        SessionStore store = start();
+        String first = store.create(new UserPrincipal("user", "", UserAuthority.USER));
+        store = restart(store);
+        String second = store.create(new UserPrincipal("user", "", UserAuthority.USER));
+
+        // Act
+        SessionStore target = restart(store);
+
+        // Assert
+        assertThat(target.find(first)).isPresent();
+        assertThat(target.find(second)).isPresent();
+    }
+
+    @Test
+    public void testFlushCompacts() throws IOException {
+        // Arrange
+        SessionStore target = start();
+        String kept = target.create(new UserPrincipal("user", "", UserAuthority.USER));
+        for (int i = 0; i < 5000; i++) {
+            target.invalidate(target.create(new UserPrincipal("user" + i, "", UserAuthority.USER)));
+        }
+
+        // Act
+        target.getJournal().flush();
+
+        // Assert
+        assertThat(getJournalSize(target)).isEqualTo(1024 + 128);
+        assertThat(restart(target).find(kept)).isPresent();
+    }
+
+    @Test
+    public void testRestoresRecordsAppendedAfterCompaction() throws IOException {
+        // Arrange
+        SessionStore target = start();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            ids.add(target.create(new UserPrincipal("user" + i, "", UserAuthority.USER)));
+        }
+        for (int i = 0; i < 4000; i++) {
+            target.invalidate(ids.get(i));
+        }
+
+        // Act
+        target.getJournal().flush();
+        String created = target.create(new UserPrincipal("user", "", UserAuthority.USER));
+        target.invalidate(ids.get(4000));
+
+        // Assert
+        SessionStore restored = restart(target);
+        assertThat(restored.size()).isEqualTo(1000);
+        assertThat(restored.find(created)).isPresent();
+        assertThat(restored.find(ids.get(4000))).isEmpty();
+        assertThat(restored.find(ids.get(4999))).isPresent();
+    }
+
+    @Test
+    public void testGrowsToFitSessions() throws IOException {
+        // Arrange
+        long size = 1024 + 4 * 128;
+        SessionStore store = start(size);
+        for (int i = 0; i < 4; i++) {
+            store.create(new UserPrincipal("user" + i, "", UserAuthority.USER));
+        }
+        store.close();
+        SessionStore target = start(size);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        target.bindTo(registry);
+
+        // Act
+        for (int i = 4; i < 8; i++) {
+            target.create(new UserPrincipal("user" + i, "", UserAuthority.USER));
+        }
+
+        // Assert
+        assertThat(registry.get("auth.sessions.journal.dropped").functionCounter().count()).isZero();
+        assertThat(restart(target).size()).isEqualTo(8);
+    }
+
+    @Test
+    public void testIgnoresFileThatIsNotJournal() throws IOException {
+        // Arrange
+        Files.writeString(folder.getRoot().toPath().resolve("sessions.journal"), "not a journal");
+
+        // Act
+        SessionStore target = start();
+        String id = target.create(new UserPrincipal("user", "", UserAuthority.USER));
+
+        // Assert
+        assertThat(restart(target).find(id)).isPresent();
+    }
+
+    @Test
+    public void testOnlyOwnerCanReadJournal() throws IOException {
+        // Arrange
+        Path path = folder.getRoot().toPath().resolve("sessions.journal");
+        Assume.assumeTrue(path.getFileSystem().supportedFileAttributeViews().contains("posix"));
+        Files.writeString(path, "left by an earlier version");
+        Files.setPosixFilePermissions(path, PosixFilePermissions.fromString("rw-r--r--"));
+
+        // Act
+        restart(start());
+
+        // Assert
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(path))).isEqualTo("rw-------");
+    }
+
+    private static long getJournalSize(SessionStore store) {
+        return store.getJournal().getSizeInBytes();
+    }
+}
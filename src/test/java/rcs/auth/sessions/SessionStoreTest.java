@@ -0,0 +1,337 @@
+package rcs.auth.sessions;
+
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.security.UserPrincipal;
+import rcs.auth.services.UserCredentialsChangedEvent;
+import rcs.auth.services.UserCredentialsChangedEvent.Change;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(JUnitParamsRunner.class)
+public class SessionStoreTest {
+
+    private final AtomicLong currentTimeMillis = new AtomicLong(1_000_000);
+    private SessionStore target;
+
+    @Before
+    public void setup() {
+        target = new SessionStore(Duration.ofMinutes(30), 4, currentTimeMillis::get);
+    }
+
+    @After
+    public void teardown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void advance(Duration duration) {
+        currentTimeMillis.addAndGet(duration.toMillis());
+    }
+
+    @Test
+    public void testCreate() {
+        // Arrange
+        UserPrincipal user = new UserPrincipal("username", "password", UserAuthority.ADMIN);
+
+        // Act
+        String actual = target.create(user);
+
+        // Assert
+        assertThat(actual).matches("[0-9a-f]{32}");
+        assertThat(target.size()).isEqualTo(1);
+        UserPrincipal principal = target.find(actual).get();
+        assertThat(principal.getUsername()).isEqualTo("username");
+        assertThat(principal.getPassword()).isEmpty();
+        assertThat(principal.getRoles()).isEqualTo(user.getRoles());
+    }
+
+    @Test
+    public void testCreateUniqueIds() {
+        // Arrange
+        UserPrincipal user = new UserPrincipal("username", "", UserAuthority.USER);
+        Set<String> ids = new HashSet<>();
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            ids.add(target.create(user));
+        }
+
+        // Assert
+        assertThat(ids).hasSize(10_000);
+        assertThat(target.size()).isEqualTo(10_000);
+        assertThat(ids).allMatch(id -> target.find(id).isPresent());
+    }
+
+    @Test
+    public void testCreateSharesPrincipalBetweenSessionsOfUser() {
+        // Arrange
+        String first = target.create(new UserPrincipal("username", "", UserAuthority.USER));
+
+        // Act
+        String second = target.create(new UserPrincipal("username", "", UserAuthority.USER));
+
+        // Assert
+        assertThat(target.find(second).get()).isSameAs(target.find(first).get());
+    }
+
+    @Test
+    public void testCreateDoesNotSharePrincipalWithChangedAuthorities() {
+        // Arrange
+        String user = target.create(new UserPrincipal("username", "", UserAuthority.USER));
+
+        // Act
+        String admin = target.create(new UserPrincipal("username", "", UserAuthority.ADMIN));
+
+        // Assert
+        assertThat(target.find(user).get().getRoles()).isNotEqualTo(target.find(admin).get().getRoles());
+    }
+
+    @Test
+    public void testCreateFromPlainUser() {
+        // Arrange
+        User user = new User("username", "password", List.of(new SimpleGrantedAuthority("USER")));
+
+        // Act
+        String actual = target.create(user);
+
+        // Assert
+        assertThat(target.find(actual).get().getAuthorities()).isEqualTo(user.getAuthorities());
+    }
+
+    @Test
+    public void testFindUnknown() {
+        // Act
+        Optional<UserPrincipal> actual = target.find("0123456789abcdef0123456789abcdef");
+
+        // Assert
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    public void testFindMalformed() {
+        // Arrange
+        String id = target.create(new UserPrincipal("username", "", UserAuthority.USER));
+
+        // Act & Assert
+        assertThat(target.find(null)).isEmpty();
+        assertThat(target.find("")).isEmpty();
+        assertThat(target.find(id.substring(1))).isEmpty();
+        assertThat(target.find(id.toUpperCase())).isEmpty();
+        assertThat(target.find(id.substring(1) + "g")).isEmpty();
+    }
+
+    @Test
+    public void testFindAfterTimeout() {
+        // Arrange
+        String id = target.create(new UserPrincipal("username", "", UserAuthority.USER));
+        advance(Duration.ofMinutes(30));
+
+        // Act
+        Optional<UserPrincipal> actual = target.find(id);
+
+        // Assert
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    public void testFindDoesNotExtendSession() {
+        // Arrange
+        String id = target.create(new UserPrincipal("username", "", UserAuthority.USER));
+        advance(Duration.ofMinutes(29));
+        target.find(id);
+        advance(Duration.ofMinutes(1));
+
+        // Act
+        Optional<UserPrincipal> actual = target.find(id);
+
+        // Assert
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    public void testAccessExtendsSession() {
+        // Arrange
+        String id = target.create(new UserPrincipal("username", "", UserAuthority.USER));
+        advance(Duration.ofMinutes(29));
+        target.access(id);
+        advance(Duration.ofMinutes(29));
+
+        // Act
+        Optional<UserPrincipal> actual = target.access(id);
+
+        // Assert
+        assertThat(actual).isPresent();
+    }
+
+    @Test
+    public void testInvalidate() {
+        // Arrange
+        String id = target.create(new UserPrincipal("username", "", UserAuthority.USER));
+        String other = target.create(new UserPrincipal("other", "", UserAuthority.USER));
+
+        // Act
+        boolean actual = target.invalidate(id);
+
+        // Assert
+        assertThat(actual).isTrue();
+        assertThat(target.find(id)).isEmpty();
+        assertThat(target.find(other)).isPresent();
+        assertThat(target.size()).isEqualTo(1);
+        assertThat(target.invalidate(id)).isFalse();
+    }
+
+    @Test
+    public void testInvalidateKeepsOtherSessionsFindable() {
+        // Arrange
+        UserPrincipal user = new UserPrincipal("username", "", UserAuthority.USER);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(target.create(user));
+        }
+
+        // Act
+        ids.subList(0, 900).forEach(target::invalidate);
+
+        // Assert
+        assertThat(target.size()).isEqualTo(100);
+        assertThat(ids.subList(0, 900)).allMatch(id -> target.find(id).isEmpty());
+        assertThat(ids.subList(900, 1000)).allMatch(id -> target.find(id).isPresent());
+    }
+
+    @Test
+    public void testExpire() {
+        // Arrange
+        String idle = target.create(new UserPrincipal("idle", "", UserAuthority.USER));
+        advance(Duration.ofMinutes(10));
+        String active = target.create(new UserPrincipal("active", "", UserAuthority.USER));
+        advance(Duration.ofMinutes(10));
+        target.access(active);
+        advance(Duration.ofMinutes(10));
+
+        // Act
+        int actual = target.expire();
+
+        // Assert
+        assertThat(actual).isEqualTo(1);
+        assertThat(target.size()).isEqualTo(1);
+        assertThat(target.find(idle)).isEmpty();
+        assertThat(target.find(active)).isPresent();
+    }
+
+    @Test
+    public void testExpireAccessedSessionAfterTimeoutSinceLastAccess() {
+        // Arrange
+        String id = target.create(new UserPrincipal("username", "", UserAuthority.USER));
+        advance(Duration.ofMinutes(20));
+        target.access(id);
+        advance(Duration.ofMinutes(10));
+        int expiredOnFirstDeadline = target.expire();
+        advance(Duration.ofMinutes(20));
+
+        // Act
+        int actual = target.expire();
+
+        // Assert
+        assertThat(expiredOnFirstDeadline).isZero();
+        assertThat(actual).isEqualTo(1);
+        assertThat(target.size()).isZero();
+    }
+
+    @Test
+    public void testInvalidateUser() {
+        // Arrange
+        String before = target.create(new UserPrincipal("username", "", UserAuthority.USER));
+        String other = target.create(new UserPrincipal("other", "", UserAuthority.USER));
+        Instant changedAt = Instant.ofEpochMilli(currentTimeMillis.get());
+        advance(Duration.ofSeconds(1));
+        String after = target.create(new UserPrincipal("username", "", UserAuthority.ADMIN));
+
+        // Act
+        target.invalidateUser("username", changedAt);
+
+        // Assert
+        assertThat(target.find(before)).isEmpty();
+        assertThat(target.find(other)).isPresent();
+        assertThat(target.find(after)).isPresent();
+        assertThat(target.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testInvalidateUserRemovesSessionsOnExpiry() {
+        // Arrange
+        String id = target.create(new UserPrincipal("username", "", UserAuthority.USER));
+        target.invalidateUser("username", Instant.ofEpochMilli(currentTimeMillis.get()));
+        advance(Duration.ofMinutes(30));
+
+        // Act
+        int actual = target.expire();
+
+        // Assert
+        assertThat(actual).isEqualTo(1);
+        assertThat(target.size()).isZero();
+        assertThat(target.find(id)).isEmpty();
+    }
+
+    @Test
+    @Parameters({ "AUTHORITY_UPDATED, true", "DELETED, true", "PASSWORD_UPDATED, false", "CREATED, false" })
+    public void testInvalidatesUserOnChange(Change change, boolean invalidated) {
+        // Arrange
+        String id = target.create(new UserPrincipal("username", "", UserAuthority.USER));
+
+        // Act
+        target.onUserCredentialsChanged(new UserCredentialsChangedEvent("username", change, true));
+
+        // Assert
+        assertThat(target.find(id).isEmpty()).isEqualTo(invalidated);
+    }
+
+    @Test
+    public void testInvalidatesUserOnceCommitted() {
+        // Arrange
+        String id = target.create(new UserPrincipal("username", "", UserAuthority.USER));
+        TransactionSynchronizationManager.initSynchronization();
+
+        // Act
+        target.onUserCredentialsChanged(new UserCredentialsChangedEvent("username", Change.DELETED));
+
+        // Assert
+        assertThat(target.find(id)).isPresent();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(target.find(id)).isEmpty();
+    }
+
+    @Test
+    public void testGetSizeInBytes() {
+        // Arrange
+        UserPrincipal user = new UserPrincipal("username", "", UserAuthority.USER);
+        long empty = target.getSizeInBytes();
+
+        // Act
+        for (int i = 0; i < 10_000; i++) {
+            target.create(user);
+        }
+
+        // Assert
+        assertThat((target.getSizeInBytes() - empty) / 10_000).isBetween(56L, 72L);
+    }
+}
@@ -0,0 +1,170 @@
+package rcs.auth.sessions;
+
+import junitparams.JUnitParamsRunner;
+import junitparams.Parameters;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import rcs.auth.api.models.UserAuthority;
+import rcs.auth.security.UserPrincipal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(JUnitParamsRunner.class)
+public class TimingWheelTest {
+
+    private static final UserPrincipal principal = new UserPrincipal("username", "", UserAuthority.USER);
+
+    private static SessionRecord record() {
+        return new SessionRecord(0, 0, principal, 0, 0);
+    }
+
+    @Test
+    @Parameters({
+            "0 | 1",
+            "0 | 63",
+            "0 | 64",
+            "0 | 65",
+            "0 | 4095",
+            "0 | 4096",
+            "0 | 300000",
+            "100 | 1800",
+            "4000 | 4100",
+            "262143 | 262144" })
+    public void testAdvanceHandsOutRecordOnItsDeadline(int tick, int deadline) {
+        // Arrange
+        TimingWheel target = new TimingWheel(tick);
+        SessionRecord record = record();
+        target.schedule(record, deadline);
+        List<SessionRecord> due = new ArrayList<>();
+
+        // Act
+        target.advance(deadline - 1, due::add);
+        List<SessionRecord> dueBefore = List.copyOf(due);
+        target.advance(deadline, due::add);
+
+        // Assert
+        assertThat(dueBefore).isEmpty();
+        assertThat(due).containsExactly(record);
+        assertThat(target.getTick()).isEqualTo(deadline);
+    }
+
+    @Test
+    public void testAdvanceHandsOutManyRecordsOnTheirDeadlines() {
+        // Arrange
+        TimingWheel target = new TimingWheel(0);
+        Random random = new Random(0);
+        Map<SessionRecord, Integer> deadlines = new HashMap<>();
+        for (int i = 0; i < 10_000; i++) {
+            SessionRecord record = record();
+            int deadline = 1 + random.nextInt(10_000);
+            target.schedule(record, deadline);
+            deadlines.put(record, deadline);
+        }
+        Map<SessionRecord, Integer> dueAt = new HashMap<>();
+
+        // Act
+        for (int now = 1; now <= 10_000; now++) {
+            int tick = now;
+            target.advance(now, record -> dueAt.put(record, tick));
+        }
+
+        // Assert
+        assertThat(dueAt).isEqualTo(deadlines);
+    }
+
+    @Test
+    public void testAdvanceCatchesUpOnSkippedTicks() {
+        // Arrange
+        TimingWheel target = new TimingWheel(0);
+        SessionRecord early = record();
+        SessionRecord late = record();
+        target.schedule(early, 10);
+        target.schedule(late, 5000);
+        List<SessionRecord> due = new ArrayList<>();
+
+        // Act
+        target.advance(6000, due::add);
+
+        // Assert
+        assertThat(due).containsExactly(early, late);
+    }
+
+    @Test
+    public void testScheduleInThePastIsDueOnNextTick() {
+        // Arrange
+        TimingWheel target = new TimingWheel(100);
+        SessionRecord record = record();
+        target.schedule(record, 50);
+        List<SessionRecord> due = new ArrayList<>();
+
+        // Act
+        target.advance(101, due::add);
+
+        // Assert
+        assertThat(due).containsExactly(record);
+    }
+
+    @Test
+    public void testScheduleBeyondTopLevelIsDueEarly() {
+        // Arrange
+        TimingWheel target = new TimingWheel(0);
+        SessionRecord record = record();
+        target.schedule(record, Integer.MAX_VALUE);
+        List<SessionRecord> due = new ArrayList<>();
+
+        // Act
+        target.advance((1 << 24) - 1, due::add);
+
+        // Assert
+        assertThat(due).containsExactly(record);
+    }
+
+    @Test
+    public void testCancel() {
+        // Arrange
+        TimingWheel target = new TimingWheel(0);
+        SessionRecord first = record();
+        SessionRecord cancelled = record();
+        SessionRecord last = record();
+        target.schedule(first, 10);
+        target.schedule(cancelled, 10);
+        target.schedule(last, 10);
+        List<SessionRecord> due = new ArrayList<>();
+
+        // Act
+        target.cancel(cancelled);
+        target.advance(10, due::add);
+
+        // Assert
+        assertThat(due).containsExactlyInAnyOrder(first, last);
+    }
+
+    @Test
+    public void testConsumerMayScheduleAgain() {
+        // Arrange
+        TimingWheel target = new TimingWheel(0);
+        SessionRecord record = record();
+        target.schedule(record, 10);
+        List<Integer> dueAt = new ArrayList<>();
+
+        // Act
+        for (int now = 1; now <= 100; now++) {
+            int tick = now;
+            target.advance(now, due -> {
+                dueAt.add(tick);
+                if (tick < 50) {
+                    target.schedule(due, tick + 20);
+                }
+            });
+        }
+
+        // Assert
+        assertThat(dueAt).containsExactly(10, 30, 50);
+    }
+}
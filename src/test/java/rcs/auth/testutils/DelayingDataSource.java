@@ -0,0 +1,37 @@
+package rcs.auth.testutils;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+
+/**
+ * Stands in for a remote or overloaded database by adding a fixed latency to every statement execution. The
+ * connection stays checked out of the pool meanwhile, as it would while waiting on the network.
+ */
+public class DelayingDataSource extends StatementInterceptingDataSource implements AutoCloseable {
+
+    private final Duration latency;
+
+    public DelayingDataSource(DataSource dataSource, Duration latency) {
+        super(dataSource);
+        this.latency = latency;
+    }
+
+    @Override
+    protected void beforeExecute() throws SQLException {
+        try {
+            Thread.sleep(latency.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while delaying statement", e);
+        }
+    }
+
+    // lets the application context close the wrapped pool on shutdown
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
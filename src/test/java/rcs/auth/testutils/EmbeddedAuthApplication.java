@@ -0,0 +1,97 @@
+package rcs.auth.testutils;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import rcs.auth.AuthApplication;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+/**
+ * Runs the whole application in-process against a private in-memory H2 database, for benchmarks and load tests.
+ */
+public class EmbeddedAuthApplication implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+    private final Path appProperties;
+
+    private EmbeddedAuthApplication(ConfigurableApplicationContext context, Path appProperties) {
+        this.context = context;
+        this.appProperties = appProperties;
+    }
+
+    public static EmbeddedAuthApplication start(Map<String, String> overrides) {
+        return start(overrides, UnaryOperator.identity());
+    }
+
+    // overrides take precedence over the defaults below and over application.properties;
+    // the decorator wraps the application's data source, e.g. to simulate a slow database
+    public static EmbeddedAuthApplication start(
+            Map<String, String> overrides,
+            UnaryOperator<DataSource> dataSourceDecorator) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        properties.put("spring.jmx.enabled", "false");
+        properties.put("server.port", "0");
+        properties.put("management.server.port", "0");
+        properties.put("logging.level.root", "WARN");
+        properties.put("auth.hashing.bcrypt.cost", "4");
+        // benchmarks and load tests run their own warm-up
+        properties.put("auth.warm-up.enabled", "false");
+        // all of their clients log in from the same address, far more often than any real client would
+        properties.put("auth.login-throttle.enabled", "false");
+        properties.putAll(overrides);
+
+        try {
+            // AuthApplication requires an app.properties file; everything is passed as arguments instead
+            Path appProperties = Files.createTempFile("auth-", ".properties");
+            properties.put("app.properties", appProperties.toString());
+
+            BeanPostProcessor decorateDataSource = new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? dataSourceDecorator.apply(dataSource) : bean;
+                }
+            };
+            ConfigurableApplicationContext context = new SpringApplicationBuilder(AuthApplication.class)
+                    .initializers(applicationContext ->
+                            applicationContext.getBeanFactory().addBeanPostProcessor(decorateDataSource))
+                    .run(properties.entrySet().stream()
+                            .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                            .toArray(String[]::new));
+            return new EmbeddedAuthApplication(context, appProperties);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public int getPort() {
+        return ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        try {
+            Files.deleteIfExists(appProperties);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -9,10 +9,12 @@ import javax.sql.DataSource;
 public class InMemoryDataSourceTestBase {
 
     protected JdbcTemplate template;
+    protected StatementCountingDataSource dataSource;
 
     @Before
     public final void setupTemplate() {
-        template = new JdbcTemplate(dataSource());
+        dataSource = new StatementCountingDataSource(dataSource());
+        template = new JdbcTemplate(dataSource);
     }
 
     private DataSource dataSource() {
@@ -0,0 +1,50 @@
+package rcs.auth.testutils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts statement executions, i.e. database round trips, made through connections of the wrapped data source, and
+ * the connections taken from it.
+ */
+public class StatementCountingDataSource extends StatementInterceptingDataSource {
+
+    private final AtomicInteger executions = new AtomicInteger();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    public StatementCountingDataSource(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    public int getExecutions() {
+        return executions.get();
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    public void reset() {
+        executions.set(0);
+        connections.set(0);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        connections.incrementAndGet();
+        return super.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        connections.incrementAndGet();
+        return super.getConnection(username, password);
+    }
+
+    @Override
+    protected void beforeExecute() {
+        executions.incrementAndGet();
+    }
+}
@@ -0,0 +1,66 @@
+package rcs.auth.testutils;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Calls {@link #beforeExecute()} before every statement execution, i.e. database round trip, made through
+ * connections of the wrapped data source.
+ */
+public abstract class StatementInterceptingDataSource extends DelegatingDataSource {
+
+    protected StatementInterceptingDataSource(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    protected abstract void beforeExecute() throws SQLException;
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return interceptingConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return interceptingConnection(super.getConnection(username, password));
+    }
+
+    private Connection interceptingConnection(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            return result instanceof Statement
+                    ? interceptingStatement(method.getReturnType(), result)
+                    : result;
+        });
+    }
+
+    // proxies the declared return type, so Statement, PreparedStatement and CallableStatement all keep working
+    private <T> T interceptingStatement(Class<T> type, Object statement) {
+        return proxy(type, type.cast(statement), (proxy, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                beforeExecute();
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package rcs.auth.tokens;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AccessTokenVerifierTest {
+
+    private static final byte[] currentKey = "0123456789abcdef0123456789abcdef".getBytes();
+    private static final byte[] previousKey = "fedcba9876543210fedcba9876543210".getBytes();
+
+    private final Clock clock = Clock.fixed(Instant.parse("2022-01-01T00:00:00Z"), ZoneOffset.UTC);
+
+    private TokenRevocationList revocationList;
+    private AccessTokenVerifier target;
+
+    @Before
+    public void setup() {
+        revocationList = new TokenRevocationList(Duration.ofMinutes(15), clock);
+        target = new AccessTokenVerifier(
+                Map.of("current", currentKey, "previous", previousKey),
+                clock,
+                revocationList);
+    }
+
+    @Test
+    public void testVerify() {
+        // Arrange
+        String token = issuer("current", currentKey, clock).issue("user|name", Set.of("ADMIN", "USER"));
+
+        // Act
+        Optional<VerifiedAccessToken> actual = target.verify(token);
+
+        // Assert
+        assertThat(actual).isPresent();
+        assertThat(actual.get().username()).isEqualTo("user|name");
+        assertThat(actual.get().roles()).containsOnly("ADMIN", "USER");
+    }
+
+    @Test
+    public void testVerifyRotatedKey() {
+        // Arrange
+        String token = issuer("previous", previousKey, clock).issue("username", Set.of("USER"));
+
+        // Act
+        Optional<VerifiedAccessToken> actual = target.verify(token);
+
+        // Assert
+        assertThat(actual).isPresent();
+    }
+
+    @Test
+    public void testVerifyUnknownKey() {
+        // Arrange
+        String token = issuer("retired", currentKey, clock).issue("username", Set.of("USER"));
+
+        // Act
+        Optional<VerifiedAccessToken> actual = target.verify(token);
+
+        // Assert
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    public void testVerifyTampered() {
+        // Arrange
+        String token = issuer("current", currentKey, clock).issue("username", Set.of("USER"));
+        String forged = issuer("current", previousKey, clock).issue("username", Set.of("ADMIN"));
+        String tampered = forged.substring(0, forged.lastIndexOf('.')) + token.substring(token.lastIndexOf('.'));
+
+        // Act
+        Optional<VerifiedAccessToken> actual = target.verify(tampered);
+
+        // Assert
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    public void testVerifyExpired() {
+        // Arrange
+        Clock past = Clock.offset(clock, Duration.ofHours(-1));
+        String token = issuer("current", currentKey, past).issue("username", Set.of("USER"));
+
+        // Act
+        Optional<VerifiedAccessToken> actual = target.verify(token);
+
+        // Assert
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    public void testVerifyRevokedUser() {
+        // Arrange
+        String token = issuer("current", currentKey, clock).issue("username", Set.of("USER"));
+        revocationList.revokeUser("username");
+
+        // Act
+        Optional<VerifiedAccessToken> actual = target.verify(token);
+
+        // Assert
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    public void testVerifyRevokedToken() {
+        // Arrange
+        String token = issuer("current", currentKey, clock).issue("username", Set.of("USER"));
+        revocationList.revokeToken(target.verify(token).get().tokenId());
+
+        // Act
+        Optional<VerifiedAccessToken> actual = target.verify(token);
+
+        // Assert
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    public void testVerifyMalformed() {
+        // Arrange
+
+        // Act
+        Optional<VerifiedAccessToken> actual = target.verify("current.not-base64!.sig");
+
+        // Assert
+        assertThat(actual).isEmpty();
+    }
+
+    private AccessTokenIssuer issuer(String keyId, byte[] key, Clock clock) {
+        return new AccessTokenIssuer(keyId, key, Duration.ofMinutes(15), clock);
+    }
+}
@@ -0,0 +1,93 @@
+package rcs.auth.utils;
+
+import org.junit.Test;
+
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CountingBloomFilterTest {
+
+    @Test
+    public void testMightContainAddedElements() {
+        // Arrange
+        CountingBloomFilter target = new CountingBloomFilter(10_000, 0.01);
+
+        // Act
+        IntStream.range(0, 10_000).forEach(i -> target.add("user" + i));
+
+        // Assert
+        assertThat(IntStream.range(0, 10_000).allMatch(i -> target.mightContain("user" + i))).isTrue();
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+        // Arrange
+        CountingBloomFilter target = new CountingBloomFilter(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> target.add("user" + i));
+
+        // Act
+        long falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> target.mightContain("other" + i))
+                .count();
+
+        // Assert
+        assertThat(falsePositives).isLessThan(2_000);
+    }
+
+    @Test
+    public void testRemove() {
+        // Arrange
+        CountingBloomFilter target = new CountingBloomFilter(1000, 0.01);
+        target.add("username");
+        target.add("other");
+
+        // Act
+        target.remove("username");
+
+        // Assert
+        assertThat(target.mightContain("username")).isFalse();
+        assertThat(target.mightContain("other")).isTrue();
+    }
+
+    @Test
+    public void testRemoveOnceOfElementAddedTwice() {
+        // Arrange
+        CountingBloomFilter target = new CountingBloomFilter(1000, 0.01);
+        target.add("username");
+        target.add("username");
+
+        // Act
+        target.remove("username");
+
+        // Assert
+        assertThat(target.mightContain("username")).isTrue();
+    }
+
+    @Test
+    public void testSaturatedCountersAreNotDecremented() {
+        // Arrange
+        CountingBloomFilter target = new CountingBloomFilter(1000, 0.01);
+        IntStream.range(0, 20).forEach(i -> target.add("username"));
+
+        // Act
+        IntStream.range(0, 20).forEach(i -> target.remove("username"));
+
+        // Assert
+        assertThat(target.mightContain("username")).isTrue();
+    }
+
+    @Test
+    public void testConcurrentAdds() {
+        // Arrange
+        CountingBloomFilter target = new CountingBloomFilter(100_000, 0.01);
+
+        // Act
+        IntStream.range(0, 100_000).parallel().forEach(i -> target.add("user" + i));
+
+        // Assert
+        assertThat(IntStream.range(0, 100_000).allMatch(i -> target.mightContain("user" + i))).isTrue();
+        IntStream.range(0, 100_000).parallel().forEach(i -> target.remove("user" + i));
+        assertThat(IntStream.range(0, 100_000).noneMatch(i -> target.mightContain("user" + i))).isTrue();
+    }
+}
@@ -0,0 +1,57 @@
+package rcs.auth.utils;
+
+import org.junit.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ErrorResponsesTest {
+
+    @Test
+    public void testWrite() throws IOException {
+        // Arrange
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        ErrorResponses.write(response, HttpStatus.NOT_FOUND);
+
+        // Assert
+        assertThat(response.getStatus()).isEqualTo(404);
+        assertThat(response.isCommitted()).isTrue();
+        assertThat(response.getContentLength()).isEqualTo(response.getContentAsByteArray().length);
+        assertThat(response.getContentAsString()).isEqualTo("{\"status\":404,\"error\":\"Not Found\"}");
+    }
+
+    @Test
+    public void testWriteToCommittedResponse() throws IOException {
+        // Arrange
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setStatus(200);
+        response.setCommitted(true);
+
+        // Act
+        ErrorResponses.write(response, HttpStatus.UNAUTHORIZED);
+
+        // Assert
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    public void testOf() {
+        // Act
+        ResponseEntity<byte[]> actual = ErrorResponses.of(HttpStatus.BAD_REQUEST);
+
+        // Assert
+        assertThat(actual.getStatusCodeValue()).isEqualTo(400);
+        assertThat(actual.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(new String(actual.getBody(), StandardCharsets.UTF_8))
+                .isEqualTo("{\"status\":400,\"error\":\"Bad Request\"}");
+    }
+}
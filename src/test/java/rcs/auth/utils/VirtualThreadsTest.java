@@ -0,0 +1,40 @@
+package rcs.auth.utils;
+
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assume.assumeTrue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class VirtualThreadsTest {
+
+    @Test
+    public void testNewThreadPerTaskExecutor() throws Exception {
+        // Arrange
+        assumeTrue(Runtime.version().feature() >= 21);
+        ExecutorService target = VirtualThreads.newThreadPerTaskExecutor("test-");
+
+        // Act
+        String actual;
+        try {
+            actual = target.submit(() -> Thread.currentThread().getName()).get();
+        } finally {
+            target.shutdown();
+        }
+
+        // Assert
+        assertThat(actual).isEqualTo("test-0");
+    }
+
+    @Test
+    public void testNotSupportedBeforeJava21() {
+        // Arrange
+        assumeTrue(Runtime.version().feature() < 21);
+
+        // Act & assert
+        assertThat(VirtualThreads.isSupported()).isFalse();
+        assertThrows(IllegalStateException.class, () -> VirtualThreads.newThreadPerTaskExecutor("test-"));
+    }
+}